@@ -0,0 +1,101 @@
+package agents;
+
+import com.google.adk.agents.BaseAgent;
+import com.google.adk.agents.BaseAgentConfig;
+import com.google.adk.agents.Callbacks;
+import com.google.adk.agents.ConfigAgentUtils;
+import com.google.adk.agents.InvocationContext;
+import com.google.adk.events.Event;
+import helpers.InvoiceIdExtractor;
+import io.reactivex.rxjava3.core.Flowable;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Intake stage that finds the invoice ID in the user message with a precompiled pattern
+ * instead of an LLM call.
+ *
+ * The first ID matched by InvoiceIdExtractor (e.g. "inv 1001" becomes "INV-1001") is
+ * written to outputKey (default invoice_id). When the message contains no recognizable
+ * ID, the first sub-agent (usually the ap_invoice_intake LlmAgent) runs instead, so
+ * unusual phrasings are still handled. Without a sub-agent, MISSING_INVOICE_ID is written.
+ *
+ * YAML:
+ *   agentClass: agents.InvoiceIdIntakeAgent
+ *   outputKey: invoice_id              # optional
+ *   subAgents:
+ *     - configPath: "ap-invoice-intake.yaml"   # optional LLM fallback
+ */
+public class InvoiceIdIntakeAgent extends BaseAgent {
+
+    static final String DEFAULT_OUTPUT_KEY = "invoice_id";
+    static final String MISSING_INVOICE_ID = "MISSING_INVOICE_ID";
+
+    private final String outputKey;
+
+    public InvoiceIdIntakeAgent(String name, String description, String outputKey,
+                                List<? extends BaseAgent> fallback,
+                                List<Callbacks.BeforeAgentCallback> beforeAgentCallbacks,
+                                List<Callbacks.AfterAgentCallback> afterAgentCallbacks) {
+        super(name, description, fallback, beforeAgentCallbacks, afterAgentCallbacks);
+        this.outputKey = outputKey;
+    }
+
+    public static BaseAgent fromConfig(BaseAgentConfig config, String configPath) {
+
+        if(config.name() == null || config.name().trim().isEmpty()) {
+            throw new IllegalStateException(
+                    "Missing configuration property: name in " + configPath
+            );
+        }
+
+        try {
+            var subAgents = ConfigAgentUtils.resolveSubAgents(config.subAgents(), configPath);
+            if (subAgents.size() > 1) {
+                throw new IllegalStateException(
+                        "InvoiceIdIntakeAgent accepts at most one fallback sub-agent in " + configPath);
+            }
+            var callbacks = StageAgentSupport.agentCallbacks(configPath);
+
+            return new InvoiceIdIntakeAgent(
+                    config.name(),
+                    config.description(),
+                    StageAgentSupport.optionalString(configPath, "outputKey", DEFAULT_OUTPUT_KEY),
+                    subAgents,
+                    callbacks.before(),
+                    callbacks.after());
+        } catch (ConfigAgentUtils.ConfigurationException e) {
+            // Rethrow as unchecked exception. ConfigAgentUtils.fromConfig will catch and wrap into ConfigurationException
+            throw new IllegalStateException("Failed to build InvoiceIdIntakeAgent from " + configPath, e);
+        }
+    }
+
+    @Override
+    protected Flowable<Event> runAsyncImpl(InvocationContext ctx) {
+        return Flowable.defer(() -> {
+            Optional<String> invoiceId = InvoiceIdExtractor.first(StageAgentSupport.userText(ctx));
+            if (invoiceId.isPresent()) {
+                return Flowable.just(StageAgentSupport.outputEvent(ctx, name(), outputKey, invoiceId.get()));
+            }
+            if (!subAgents().isEmpty()) {
+                return subAgents().get(0).runAsync(ctx);
+            }
+            return Flowable.just(StageAgentSupport.outputEvent(ctx, name(), outputKey, MISSING_INVOICE_ID));
+        });
+    }
+
+    @Override
+    protected Flowable<Event> runLiveImpl(InvocationContext ctx) {
+        return Flowable.defer(() -> {
+            Optional<String> invoiceId = InvoiceIdExtractor.first(StageAgentSupport.userText(ctx));
+            if (invoiceId.isPresent()) {
+                return Flowable.just(StageAgentSupport.outputEvent(ctx, name(), outputKey, invoiceId.get()));
+            }
+            if (!subAgents().isEmpty()) {
+                return subAgents().get(0).runLive(ctx);
+            }
+            return Flowable.just(StageAgentSupport.outputEvent(ctx, name(), outputKey, MISSING_INVOICE_ID));
+        });
+    }
+}
@@ -1,9 +1,8 @@
 package agents;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.google.adk.agents.*;
 import config.WorkflowCallbackConfigHelper;
+import config.YamlConfigCache;
 
 import java.util.List;
 
@@ -69,13 +68,7 @@ public abstract class LoopWorkflowAgent extends BaseAgent {
     private static Integer loadMaxIterations(String configPath){
 
         try {
-            var yamlText = java.nio.file.Files.readString(java.nio.file.Path.of(configPath));
-            var mapper = new ObjectMapper(new YAMLFactory());
-            var root = mapper.readValue(yamlText, java.util.Map.class);
-
-            if (root == null) {
-                return null;
-            }
+            var root = YamlConfigCache.root(configPath);
 
             Object raw = root.get("maxIterations");
             if (raw == null) {
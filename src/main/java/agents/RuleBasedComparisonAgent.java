@@ -0,0 +1,125 @@
+package agents;
+
+import com.google.adk.agents.BaseAgent;
+import com.google.adk.agents.BaseAgentConfig;
+import com.google.adk.agents.Callbacks;
+import com.google.adk.agents.ConfigAgentUtils;
+import com.google.adk.agents.InvocationContext;
+import com.google.adk.events.Event;
+import decision.ApDecision;
+import decision.ApDecisionEngine;
+import io.reactivex.rxjava3.core.Flowable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Comparison stage that applies the AP policy rules in Java and only calls the LLM
+ * for cases the rules cannot settle.
+ *
+ * Reads invoice_data_json, po_data_json and policy_thresholds_json from session state,
+ * runs ApDecisionEngine and writes the decision JSON to outputKey (default
+ * ap_decision_json). When the engine returns no decision, the first sub-agent (usually
+ * the ap_comparison_analysis LlmAgent) runs instead. Without a sub-agent, undecidable
+ * cases are routed to REVIEW.
+ *
+ * YAML:
+ *   agentClass: agents.RuleBasedComparisonAgent
+ *   outputKey: ap_decision_json        # optional
+ *   subAgents:
+ *     - configPath: "ap-comparison-analysis.yaml"   # optional LLM fallback
+ */
+public class RuleBasedComparisonAgent extends BaseAgent {
+
+    static final String INVOICE_KEY = "invoice_data_json";
+    static final String PO_KEY = "po_data_json";
+    static final String THRESHOLDS_KEY = "policy_thresholds_json";
+    static final String DEFAULT_OUTPUT_KEY = "ap_decision_json";
+
+    private final String outputKey;
+
+    public RuleBasedComparisonAgent(String name, String description, String outputKey,
+                                    List<? extends BaseAgent> fallback,
+                                    List<Callbacks.BeforeAgentCallback> beforeAgentCallbacks,
+                                    List<Callbacks.AfterAgentCallback> afterAgentCallbacks) {
+        super(name, description, fallback, beforeAgentCallbacks, afterAgentCallbacks);
+        this.outputKey = outputKey;
+    }
+
+    public static BaseAgent fromConfig(BaseAgentConfig config, String configPath) {
+
+        if(config.name() == null || config.name().trim().isEmpty()) {
+            throw new IllegalStateException(
+                    "Missing configuration property: name in " + configPath
+            );
+        }
+
+        try {
+            var subAgents = ConfigAgentUtils.resolveSubAgents(config.subAgents(), configPath);
+            if (subAgents.size() > 1) {
+                throw new IllegalStateException(
+                        "RuleBasedComparisonAgent accepts at most one fallback sub-agent in " + configPath);
+            }
+            var callbacks = StageAgentSupport.agentCallbacks(configPath);
+
+            return new RuleBasedComparisonAgent(
+                    config.name(),
+                    config.description(),
+                    StageAgentSupport.optionalString(configPath, "outputKey", DEFAULT_OUTPUT_KEY),
+                    subAgents,
+                    callbacks.before(),
+                    callbacks.after());
+        } catch (ConfigAgentUtils.ConfigurationException e) {
+            // Rethrow as unchecked exception. ConfigAgentUtils.fromConfig will catch and wrap into ConfigurationException
+            throw new IllegalStateException("Failed to build RuleBasedComparisonAgent from " + configPath, e);
+        }
+    }
+
+    @Override
+    protected Flowable<Event> runAsyncImpl(InvocationContext ctx) {
+        return Flowable.defer(() -> {
+            Optional<ApDecision> decision = decide(ctx);
+            if (decision.isPresent()) {
+                return Flowable.just(decisionEvent(ctx, decision.get()));
+            }
+            if (!subAgents().isEmpty()) {
+                return subAgents().get(0).runAsync(ctx);
+            }
+            return Flowable.just(decisionEvent(ctx, undecided()));
+        });
+    }
+
+    @Override
+    protected Flowable<Event> runLiveImpl(InvocationContext ctx) {
+        return Flowable.defer(() -> {
+            Optional<ApDecision> decision = decide(ctx);
+            if (decision.isPresent()) {
+                return Flowable.just(decisionEvent(ctx, decision.get()));
+            }
+            if (!subAgents().isEmpty()) {
+                return subAgents().get(0).runLive(ctx);
+            }
+            return Flowable.just(decisionEvent(ctx, undecided()));
+        });
+    }
+
+    private Optional<ApDecision> decide(InvocationContext ctx) {
+        Map<String, Object> state = ctx.session().state();
+        return ApDecisionEngine.decide(
+                state.get(INVOICE_KEY),
+                state.get(PO_KEY),
+                state.get(THRESHOLDS_KEY));
+    }
+
+    private Event decisionEvent(InvocationContext ctx, ApDecision decision) {
+        return StageAgentSupport.outputEvent(ctx, name(), outputKey, ApDecisionEngine.toJson(decision));
+    }
+
+    private static ApDecision undecided() {
+        return new ApDecision(
+                ApDecision.REVIEW,
+                "The invoice could not be checked automatically against the PO and policy thresholds.",
+                List.of("Automatic comparison was inconclusive; manual review required."));
+    }
+}
@@ -0,0 +1,209 @@
+package agents;
+
+import cache.CachingTool;
+import com.google.adk.agents.BaseAgent;
+import com.google.adk.agents.BaseAgentConfig;
+import com.google.adk.agents.Callbacks;
+import com.google.adk.agents.ConfigAgentUtils;
+import com.google.adk.agents.InvocationContext;
+import com.google.adk.events.Event;
+import com.google.adk.tools.BaseTool;
+import com.google.adk.tools.ToolContext;
+import com.google.adk.utils.ComponentRegistry;
+import helpers.InvoiceIdExtractor;
+import helpers.StateTemplates;
+import io.opentelemetry.api.common.Attributes;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Single;
+import io.reactivex.rxjava3.disposables.CompositeDisposable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import observability.AgentMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+/**
+ * Runs its single sub-agent (the intake stage) while warming the data loaders' caches for
+ * the invoice IDs the user message most likely refers to.
+ *
+ * Only worth it around an intake that makes a model call for every message (the LLM intake,
+ * ap-invoice-intake.yaml). Around InvoiceIdIntakeAgent it gains nothing: that stage answers
+ * in Java whenever InvoiceIdExtractor finds an ID, and falls back to the LLM only when it
+ * finds none, in which case there is nothing to guess either. The default pipeline
+ * therefore runs the rule-based intake without this wrapper.
+ *
+ * Before the sub-agent starts, up to maxGuesses IDs are taken from the raw message with
+ * InvoiceIdExtractor and each prefetch tool is called for each guess on the I/O scheduler.
+ * Prefetch tools must be CachingTool instances (every repository and policy tool is), so
+ * when the real loaders later call the same tool with the same arguments they join the
+ * in-flight load or read its cached result. toolArgs are templated exactly like the
+ * loaders' own, with guessKey standing in for the state key intake will write, which keeps
+ * the cache keys identical.
+ *
+ * Nothing is written to session state and no events are emitted for the prefetch. A wrong
+ * guess costs one tool call: CachingTool does not cache not_found (or any non-ok) results,
+ * so it leaves nothing behind. Prefetch failures are counted in prefetch_errors_total and
+ * logged at debug; failed loads are not cached either, so the loader retries for real.
+ * Prefetches still waiting for the I/O scheduler are disposed when the sub-agent's run ends
+ * or is cancelled; loads already started run on inside CachingTool and stay shared.
+ * prefetch_requests_total counts prefetches once they start, so disposed ones are not
+ * counted.
+ *
+ * YAML:
+ *   agentClass: agents.SpeculativePrefetchAgent
+ *   guessKey: invoice_id               # optional
+ *   maxGuesses: 2                      # optional
+ *   prefetch:
+ *     - tool: "tools.InvoiceRepoTool#getInvoice"
+ *       toolArgs:
+ *         invoiceId: "{invoice_id}"
+ *   subAgents:
+ *     - configPath: "ap-invoice-intake.yaml"
+ */
+public class SpeculativePrefetchAgent extends BaseAgent {
+
+    static final String DEFAULT_GUESS_KEY = "invoice_id";
+    static final int DEFAULT_MAX_GUESSES = 2;
+
+    private static final Logger LOG = LoggerFactory.getLogger(SpeculativePrefetchAgent.class);
+
+    private final String guessKey;
+    private final int maxGuesses;
+    private final List<Prefetch> prefetches;
+
+    public SpeculativePrefetchAgent(String name, String description, String guessKey, int maxGuesses,
+                                    List<Prefetch> prefetches, List<? extends BaseAgent> subAgents,
+                                    List<Callbacks.BeforeAgentCallback> beforeAgentCallbacks,
+                                    List<Callbacks.AfterAgentCallback> afterAgentCallbacks) {
+        super(name, description, subAgents, beforeAgentCallbacks, afterAgentCallbacks);
+        this.guessKey = guessKey;
+        this.maxGuesses = maxGuesses;
+        this.prefetches = List.copyOf(prefetches);
+    }
+
+    /**
+     * One tool to warm per guessed ID.
+     */
+    public record Prefetch(CachingTool tool, Map<String, Object> toolArgs) {}
+
+    public static BaseAgent fromConfig(BaseAgentConfig config, String configPath) {
+
+        if(config.name() == null || config.name().trim().isEmpty()) {
+            throw new IllegalStateException(
+                    "Missing configuration property: name in " + configPath
+            );
+        }
+
+        try {
+            var subAgents = ConfigAgentUtils.resolveSubAgents(config.subAgents(), configPath);
+            if (subAgents.size() != 1) {
+                throw new IllegalStateException(
+                        "SpeculativePrefetchAgent needs exactly one sub-agent in " + configPath);
+            }
+            var callbacks = StageAgentSupport.agentCallbacks(configPath);
+
+            return new SpeculativePrefetchAgent(
+                    config.name(),
+                    config.description(),
+                    StageAgentSupport.optionalString(configPath, "guessKey", DEFAULT_GUESS_KEY),
+                    maxGuesses(configPath),
+                    prefetches(configPath),
+                    subAgents,
+                    callbacks.before(),
+                    callbacks.after());
+        } catch (ConfigAgentUtils.ConfigurationException e) {
+            // Rethrow as unchecked exception. ConfigAgentUtils.fromConfig will catch and wrap into ConfigurationException
+            throw new IllegalStateException("Failed to build SpeculativePrefetchAgent from " + configPath, e);
+        }
+    }
+
+    @Override
+    protected Flowable<Event> runAsyncImpl(InvocationContext ctx) {
+        return Flowable.defer(() -> {
+            CompositeDisposable prefetching = startPrefetch(ctx);
+            return subAgents().get(0).runAsync(ctx).doFinally(prefetching::dispose);
+        });
+    }
+
+    @Override
+    protected Flowable<Event> runLiveImpl(InvocationContext ctx) {
+        return Flowable.defer(() -> {
+            CompositeDisposable prefetching = startPrefetch(ctx);
+            return subAgents().get(0).runLive(ctx).doFinally(prefetching::dispose);
+        });
+    }
+
+    private CompositeDisposable startPrefetch(InvocationContext ctx) {
+        CompositeDisposable prefetching = new CompositeDisposable();
+        List<String> guesses = InvoiceIdExtractor.all(StageAgentSupport.userText(ctx));
+        for (String guess : guesses.subList(0, Math.min(maxGuesses, guesses.size()))) {
+            Map<String, Object> args = Map.of(guessKey, guess);
+            for (Prefetch prefetch : prefetches) {
+                ToolContext toolContext = ToolContext.builder(ctx)
+                        .functionCallId("prefetch-" + Event.generateEventId())
+                        .build();
+                Attributes attrs = Attributes.of(stringKey("tool.name"), prefetch.tool().name());
+                prefetching.add(Single.defer(() -> {
+                            AgentMetrics.PREFETCH_REQUESTS.add(1, attrs);
+                            return prefetch.tool().runAsync(StateTemplates.resolveMap(prefetch.toolArgs(), args), toolContext);
+                        })
+                        .subscribeOn(Schedulers.io())
+                        .subscribe(result -> {}, error -> {
+                            AgentMetrics.PREFETCH_ERRORS.add(1, attrs);
+                            LOG.debug("Prefetch of {} for guess {} failed", prefetch.tool().name(), guess, error);
+                        }));
+            }
+        }
+        return prefetching;
+    }
+
+    // Accepts a number or a numeric string, like LoopWorkflowAgent's maxIterations.
+    private static int maxGuesses(String configPath) {
+        Object raw = StageAgentSupport.loadRoot(configPath).get("maxGuesses");
+        if (raw == null) {
+            return DEFAULT_MAX_GUESSES;
+        }
+        try {
+            int value = raw instanceof Number n ? n.intValue() : Integer.parseInt(String.valueOf(raw).trim());
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalStateException("maxGuesses must be a positive integer in " + configPath);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Prefetch> prefetches(String configPath) {
+        List<Prefetch> result = new ArrayList<>();
+        for (Object entry : StageAgentSupport.optionalList(configPath, "prefetch")) {
+            if (!(entry instanceof Map<?, ?> map) || !(map.get("tool") instanceof String toolName)) {
+                throw new IllegalStateException("Each prefetch entry must be a mapping with 'tool' in " + configPath);
+            }
+            Object toolArgs = map.get("toolArgs");
+            if (toolArgs != null && !(toolArgs instanceof Map)) {
+                throw new IllegalStateException("prefetch toolArgs must be a mapping in " + configPath);
+            }
+            BaseTool tool = ComponentRegistry.getInstance().get(toolName, BaseTool.class)
+                    .orElseThrow(() -> new IllegalStateException(
+                            "Tool '" + toolName + "' is not registered (referenced in " + configPath + ")"));
+            if (!(tool instanceof CachingTool cachingTool)) {
+                // Without a shared cache the prefetched result could never be reused.
+                throw new IllegalStateException(
+                        "Prefetch tool '" + toolName + "' is not cached, so prefetching it is wasted work (" + configPath + ")");
+            }
+            result.add(new Prefetch(cachingTool,
+                    toolArgs == null ? Map.of() : (Map<String, Object>) toolArgs));
+        }
+        if (result.isEmpty()) {
+            throw new IllegalStateException("Missing configuration property: prefetch in " + configPath);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,120 @@
+package agents;
+
+import com.google.adk.agents.Callbacks;
+import com.google.adk.agents.ConfigAgentUtils;
+import com.google.adk.agents.InvocationContext;
+import com.google.adk.events.Event;
+import com.google.adk.events.EventActions;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import config.WorkflowCallbackConfigHelper;
+import config.YamlConfigCache;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared plumbing for the deterministic stage agents (agents that stand in for an LlmAgent
+ * stage without calling a model).
+ */
+final class StageAgentSupport {
+
+    private StageAgentSupport() {}
+
+    /**
+     * Builds the event a stage emits as its final answer: model-authored text content plus a
+     * state delta writing the same text to outputKey, as an LlmAgent with output_key would.
+     */
+    static Event outputEvent(InvocationContext ctx, String author, String outputKey, String text) {
+        ConcurrentHashMap<String, Object> stateDelta = new ConcurrentHashMap<>();
+        stateDelta.put(outputKey, text);
+
+        return Event.builder()
+                .id(Event.generateEventId())
+                .invocationId(ctx.invocationId())
+                .author(author)
+                .content(Content.builder()
+                        .role("model")
+                        .parts(List.of(Part.fromText(text)))
+                        .build())
+                .actions(EventActions.builder().stateDelta(stateDelta).build())
+                .build();
+    }
+
+    /**
+     * Concatenated text of the user message that started this invocation, or "" if none.
+     */
+    static String userText(InvocationContext ctx) {
+        StringBuilder sb = new StringBuilder();
+        ctx.userContent().ifPresent(content -> content.parts().ifPresent(parts -> {
+            for (Part part : parts) {
+                part.text().ifPresent(text -> sb.append(text).append('\n'));
+            }
+        }));
+        return sb.toString();
+    }
+
+    /**
+     * Reads an optional string property that ADK's BaseAgentConfig does not model.
+     */
+    static String optionalString(String configPath, String key, String defaultValue) {
+        Object raw = loadRoot(configPath).get(key);
+        if (raw == null) {
+            return defaultValue;
+        }
+        if (!(raw instanceof String s) || s.trim().isEmpty()) {
+            throw new IllegalStateException(key + " must be a non-empty string in " + configPath);
+        }
+        return s.trim();
+    }
+
+    /**
+     * Reads an optional mapping property, or an empty map when absent.
+     */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> optionalMap(String configPath, String key) {
+        Object raw = loadRoot(configPath).get(key);
+        if (raw == null) {
+            return Map.of();
+        }
+        if (!(raw instanceof Map<?, ?> map)) {
+            throw new IllegalStateException(key + " must be a mapping in " + configPath);
+        }
+        return (Map<String, Object>) map;
+    }
+
+    /**
+     * Reads an optional sequence property, or an empty list when absent.
+     */
+    static List<?> optionalList(String configPath, String key) {
+        Object raw = loadRoot(configPath).get(key);
+        if (raw == null) {
+            return List.of();
+        }
+        if (!(raw instanceof List<?> list)) {
+            throw new IllegalStateException(key + " must be a list in " + configPath);
+        }
+        return list;
+    }
+
+    /**
+     * The stage's beforeAgentCallbacks / afterAgentCallbacks, resolved like a workflow's.
+     */
+    static AgentCallbacks agentCallbacks(String configPath) throws ConfigAgentUtils.ConfigurationException {
+        var helper = new WorkflowCallbackConfigHelper(configPath);
+        return new AgentCallbacks(helper.beforeAgentCallbacks(), helper.afterAgentCallbacks());
+    }
+
+    record AgentCallbacks(List<Callbacks.BeforeAgentCallback> before, List<Callbacks.AfterAgentCallback> after) {}
+
+    static Map<String, Object> loadRoot(String configPath) {
+        try {
+            return YamlConfigCache.root(configPath);
+        } catch (IOException e) {
+            // YAML unreadable
+            throw new IllegalStateException(e);
+        }
+    }
+}
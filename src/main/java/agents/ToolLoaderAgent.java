@@ -0,0 +1,189 @@
+package agents;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.adk.agents.BaseAgent;
+import com.google.adk.agents.BaseAgentConfig;
+import com.google.adk.agents.Callbacks;
+import com.google.adk.agents.ConfigAgentUtils;
+import com.google.adk.agents.InvocationContext;
+import com.google.adk.events.Event;
+import com.google.adk.plugins.PluginManager;
+import com.google.adk.tools.BaseTool;
+import com.google.adk.tools.ToolContext;
+import com.google.adk.utils.ComponentRegistry;
+import com.google.genai.types.Content;
+import com.google.genai.types.FunctionCall;
+import com.google.genai.types.FunctionResponse;
+import com.google.genai.types.Part;
+import helpers.StateTemplates;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Single;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Loader stage that calls one registered tool directly and stores its result, without a model.
+ *
+ * Replaces LlmAgents whose only job is "call tool X with {state_key}, copy the JSON into
+ * output_key". The tool is looked up in the ComponentRegistry under the same name an
+ * LlmAgent's tools: entry uses. Arguments are filled from session state with
+ * StateTemplates. The call and its response are emitted as function call / response
+ * events, so tool trajectories (eval, event journal) look the same as with the LlmAgent,
+ * and the call runs between the plugins' tool callbacks (e.g. ToolMetricsPlugin).
+ *
+ * When the tool returns status "ok", the compact JSON of resultField (or of the whole
+ * response minus status, when resultField is not set) is written to outputKey. Any other
+ * status writes the templated notFound object instead, or the raw response if notFound
+ * is not configured.
+ *
+ * YAML:
+ *   agentClass: agents.ToolLoaderAgent
+ *   tool: "tools.InvoiceRepoTool#getInvoice"
+ *   toolArgs:                          # optional, values may use {state_key}
+ *     invoiceId: "{invoice_id}"
+ *   resultField: invoice               # optional
+ *   notFound:                          # optional
+ *     error: INVOICE_NOT_FOUND
+ *     invoice_id: "{invoice_id}"
+ *   outputKey: invoice_data_json
+ */
+public class ToolLoaderAgent extends BaseAgent {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String STATUS_OK = "ok";
+
+    private final BaseTool tool;
+    private final Map<String, Object> toolArgs;
+    private final String resultField;
+    private final Map<String, Object> notFound;
+    private final String outputKey;
+
+    public ToolLoaderAgent(String name, String description, BaseTool tool, Map<String, Object> toolArgs,
+                           String resultField, Map<String, Object> notFound, String outputKey,
+                           List<Callbacks.BeforeAgentCallback> beforeAgentCallbacks,
+                           List<Callbacks.AfterAgentCallback> afterAgentCallbacks) {
+        super(name, description, List.of(), beforeAgentCallbacks, afterAgentCallbacks);
+        this.tool = tool;
+        this.toolArgs = toolArgs;
+        this.resultField = resultField;
+        this.notFound = notFound;
+        this.outputKey = outputKey;
+    }
+
+    public static BaseAgent fromConfig(BaseAgentConfig config, String configPath) {
+
+        if(config.name() == null || config.name().trim().isEmpty()) {
+            throw new IllegalStateException(
+                    "Missing configuration property: name in " + configPath
+            );
+        }
+
+        String toolName = StageAgentSupport.optionalString(configPath, "tool", null);
+        String outputKey = StageAgentSupport.optionalString(configPath, "outputKey", null);
+        if (toolName == null) {
+            throw new IllegalStateException("Missing configuration property: tool in " + configPath);
+        }
+        if (outputKey == null) {
+            throw new IllegalStateException("Missing configuration property: outputKey in " + configPath);
+        }
+
+        BaseTool tool = ComponentRegistry.getInstance().get(toolName, BaseTool.class)
+                .orElseThrow(() -> new IllegalStateException(
+                        "Tool '" + toolName + "' is not registered (referenced in " + configPath + ")"));
+
+        StageAgentSupport.AgentCallbacks callbacks;
+        try {
+            callbacks = StageAgentSupport.agentCallbacks(configPath);
+        } catch (ConfigAgentUtils.ConfigurationException e) {
+            // Rethrow as unchecked exception. ConfigAgentUtils.fromConfig will catch and wrap into ConfigurationException
+            throw new IllegalStateException("Failed to build ToolLoaderAgent from " + configPath, e);
+        }
+
+        return new ToolLoaderAgent(
+                config.name(),
+                config.description(),
+                tool,
+                StageAgentSupport.optionalMap(configPath, "toolArgs"),
+                StageAgentSupport.optionalString(configPath, "resultField", null),
+                StageAgentSupport.optionalMap(configPath, "notFound"),
+                outputKey,
+                callbacks.before(),
+                callbacks.after());
+    }
+
+    @Override
+    protected Flowable<Event> runAsyncImpl(InvocationContext ctx) {
+        return Flowable.defer(() -> {
+            Map<String, Object> state = ctx.session().state();
+            Map<String, Object> args = StateTemplates.resolveMap(toolArgs, state);
+            String callId = "adk-" + Event.generateEventId();
+
+            Event callEvent = functionEvent(ctx, "model", Part.builder()
+                    .functionCall(FunctionCall.builder().id(callId).name(tool.name()).args(args).build())
+                    .build());
+
+            ToolContext toolContext = ToolContext.builder(ctx).functionCallId(callId).build();
+
+            return Flowable.concat(
+                    Flowable.just(callEvent),
+                    callTool(ctx, args, toolContext).flatMapPublisher(response -> Flowable.just(
+                            functionEvent(ctx, "user", Part.builder()
+                                    .functionResponse(FunctionResponse.builder()
+                                            .id(callId).name(tool.name()).response(response).build())
+                                    .build()),
+                            StageAgentSupport.outputEvent(ctx, name(), outputKey, output(response, state)))));
+        });
+    }
+
+    @Override
+    protected Flowable<Event> runLiveImpl(InvocationContext ctx) {
+        return runAsyncImpl(ctx);
+    }
+
+    // Runs the tool between the plugins' tool callbacks, as an LlmAgent's function call does:
+    // a before callback result skips the tool, an after or error callback result replaces it.
+    private Single<Map<String, Object>> callTool(InvocationContext ctx, Map<String, Object> args,
+                                                 ToolContext toolContext) {
+        PluginManager plugins = ctx.pluginManager();
+        return plugins.runBeforeToolCallback(tool, args, toolContext)
+                .switchIfEmpty(Single.defer(() -> tool.runAsync(args, toolContext))
+                        .flatMap(result -> plugins.runAfterToolCallback(tool, args, toolContext, result)
+                                .defaultIfEmpty(result))
+                        .onErrorResumeNext(error -> plugins.runOnToolErrorCallback(tool, args, toolContext, error)
+                                .switchIfEmpty(Single.error(error))));
+    }
+
+    private String output(Map<String, Object> response, Map<String, Object> state) {
+        Object value;
+        if (STATUS_OK.equals(response.get("status"))) {
+            if (resultField != null) {
+                value = response.get(resultField);
+            } else {
+                Map<String, Object> withoutStatus = new LinkedHashMap<>(response);
+                withoutStatus.remove("status");
+                value = withoutStatus;
+            }
+        } else {
+            value = notFound.isEmpty() ? response : StateTemplates.resolveMap(notFound, state);
+        }
+
+        try {
+            return MAPPER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize result of " + tool.name(), e);
+        }
+    }
+
+    // Function responses are user-role content, as in the events an LlmAgent emits.
+    private Event functionEvent(InvocationContext ctx, String role, Part part) {
+        return Event.builder()
+                .id(Event.generateEventId())
+                .invocationId(ctx.invocationId())
+                .author(name())
+                .content(Content.builder().role(role).parts(List.of(part)).build())
+                .build();
+    }
+}
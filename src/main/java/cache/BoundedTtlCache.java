@@ -0,0 +1,110 @@
+package cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Size-bounded LRU cache whose entries also expire a fixed time after they were written.
+ *
+ * Backed by an access-ordered LinkedHashMap under a single lock; callers only hold it for
+ * a map operation, never while computing a value. Expired entries are dropped lazily when
+ * read or when they reach the LRU end.
+ */
+public final class BoundedTtlCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    public BoundedTtlCache(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, System::nanoTime);
+    }
+
+    public BoundedTtlCache(int maxEntries, Duration ttl, LongSupplier nanoClock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be > 0");
+        }
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl must be > 0");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /**
+     * Returns the live value for key, or null if absent or expired.
+     */
+    public V get(K key) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (nanoClock.getAsLong() - entry.writtenAtNanos >= ttlNanos) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    public void put(K key, V value) {
+        synchronized (entries) {
+            entries.put(key, new Entry<>(value, nanoClock.getAsLong()));
+            if (entries.size() > maxEntries) {
+                entries.remove(entries.keySet().iterator().next());
+            }
+        }
+    }
+
+    /**
+     * Stores value unless a live entry exists; returns that entry's value, or null if
+     * value was stored. Lets callers install a placeholder (e.g. a pending future) atomically.
+     */
+    public V putIfAbsent(K key, V value) {
+        synchronized (entries) {
+            V existing = get(key);
+            if (existing != null) {
+                return existing;
+            }
+            put(key, value);
+            return null;
+        }
+    }
+
+    /**
+     * Removes key only if it is still mapped to value.
+     */
+    public void invalidate(K key, V value) {
+        synchronized (entries) {
+            Entry<V> entry = entries.get(key);
+            if (entry != null && entry.value == value) {
+                entries.remove(key);
+            }
+        }
+    }
+
+    public void invalidate(K key) {
+        synchronized (entries) {
+            entries.remove(key);
+        }
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private record Entry<V>(V value, long writtenAtNanos) {}
+}
@@ -0,0 +1,133 @@
+package cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.google.adk.tools.BaseTool;
+import com.google.adk.tools.ToolContext;
+import com.google.genai.types.FunctionDeclaration;
+import io.opentelemetry.api.common.Attributes;
+import io.reactivex.rxjava3.core.Single;
+import observability.AgentMetrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import static io.opentelemetry.api.common.AttributeKey.booleanKey;
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+/**
+ * Memoizing wrapper around a registered tool, shared by every session and agent that
+ * resolves the tool from the ComponentRegistry.
+ *
+ * Results are cached per data version and argument set (canonical JSON of the args) in a
+ * bounded LRU whose entries expire ttl after the load started. The data version comes from
+ * the supplier given to wrap (e.g. tools.DataVersions::current): once the underlying data
+ * is swapped or reloaded, the next call misses and loads from the new data, and entries of
+ * the old version age out of the LRU. Loads are single-flight: the first miss
+ * installs a pending future and every concurrent call for the same arguments waits on it,
+ * so the delegate runs once. Failed loads are not cached, and neither are results whose
+ * "status" is anything but "ok" (e.g. not_found): a record added after a miss must be found
+ * by the next call, not hidden for the whole TTL. Concurrent waiters still share them.
+ *
+ * Only wrap tools whose result depends on the arguments alone (not on the ToolContext or
+ * session state), and treat returned maps as read-only since callers share them.
+ */
+public final class CachingTool extends BaseTool {
+
+    private static final ObjectMapper CANONICAL_JSON = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+
+    private final BaseTool delegate;
+    private final Supplier<String> dataVersion;
+    private final BoundedTtlCache<String, CompletableFuture<Map<String, Object>>> results;
+    private final Attributes missAttributes;
+    private final Attributes hitAttributes;
+    private final Attributes sharedLoadAttributes;
+
+    private CachingTool(BaseTool delegate, Duration ttl, int maxEntries, Supplier<String> dataVersion) {
+        super(delegate.name(), delegate.description(), delegate.longRunning());
+        this.delegate = delegate;
+        this.dataVersion = dataVersion;
+        this.results = new BoundedTtlCache<>(maxEntries, ttl);
+        this.missAttributes = Attributes.of(stringKey("tool.name"), delegate.name());
+        this.hitAttributes = Attributes.of(
+                stringKey("tool.name"), delegate.name(), booleanKey("shared_load"), false);
+        this.sharedLoadAttributes = Attributes.of(
+                stringKey("tool.name"), delegate.name(), booleanKey("shared_load"), true);
+    }
+
+    /**
+     * For a delegate whose data never changes while the process runs.
+     */
+    public static CachingTool wrap(BaseTool delegate, Duration ttl, int maxEntries) {
+        return wrap(delegate, ttl, maxEntries, () -> "");
+    }
+
+    public static CachingTool wrap(BaseTool delegate, Duration ttl, int maxEntries, Supplier<String> dataVersion) {
+        return new CachingTool(delegate, ttl, maxEntries, dataVersion);
+    }
+
+    @Override
+    public Optional<FunctionDeclaration> declaration() {
+        return delegate.declaration();
+    }
+
+    @Override
+    public Single<Map<String, Object>> runAsync(Map<String, Object> args, ToolContext toolContext) {
+        return Single.defer(() -> {
+            String key = key(args);
+            CompletableFuture<Map<String, Object>> pending = new CompletableFuture<>();
+            CompletableFuture<Map<String, Object>> existing = results.putIfAbsent(key, pending);
+
+            if (existing != null) {
+                AgentMetrics.TOOL_CACHE_HITS.add(1, existing.isDone() ? hitAttributes : sharedLoadAttributes);
+                return Single.fromCompletionStage(existing);
+            }
+
+            AgentMetrics.TOOL_CACHE_MISSES.add(1, missAttributes);
+            // Deferred so a delegate that throws synchronously still fails pending instead of
+            // leaving every caller for this key waiting until the TTL expires.
+            Single.defer(() -> delegate.runAsync(args, toolContext)).subscribe(
+                    result -> {
+                        if (!isCacheable(result)) {
+                            results.invalidate(key, pending);
+                        }
+                        pending.complete(result);
+                    },
+                    error -> {
+                        results.invalidate(key, pending);
+                        AgentMetrics.TOOL_CACHE_LOAD_ERRORS.add(1, missAttributes);
+                        pending.completeExceptionally(error);
+                    });
+            return Single.fromCompletionStage(pending);
+        });
+    }
+
+    /**
+     * Drops the cached result for one argument set, e.g. after the record changed upstream.
+     */
+    public void invalidate(Map<String, Object> args) {
+        results.invalidate(key(args));
+    }
+
+    public void invalidateAll() {
+        results.clear();
+    }
+
+    private static boolean isCacheable(Map<String, Object> result) {
+        Object status = result == null ? null : result.get("status");
+        return status == null || "ok".equals(status);
+    }
+
+    private String key(Map<String, Object> args) {
+        try {
+            return dataVersion.get() + "|" + CANONICAL_JSON.writeValueAsString(args == null ? Map.of() : args);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Tool arguments are not serializable", e);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Persistent cache tier: one UTF-8 file per entry, named by its hex key, in a local directory.
+ *
+ * Files are written to a temporary name and renamed into place, so readers never see a
+ * partial entry and concurrent writers of the same key simply race to an identical result.
+ * Entries older than the TTL (by file modification time) are treated as absent and deleted.
+ *
+ * The tier holds at most maxBytes of entries. When a write takes it over the cap, the oldest
+ * entries are deleted until it is back under LOW_WATER_FRACTION of the cap. The total is
+ * counted from the files present at startup (stale temporary files are removed) and kept
+ * up to date by this instance; files other processes write to the same directory are only
+ * seen on the next eviction scan.
+ */
+public final class DiskCacheTier {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DiskCacheTier.class);
+    private static final Pattern HEX_KEY = Pattern.compile("[0-9a-f]{16,128}");
+    private static final String SUFFIX = ".json";
+    private static final String TEMP_SUFFIX = ".tmp";
+    static final double LOW_WATER_FRACTION = 0.9;
+
+    private final Path directory;
+    private final long ttlMillis;
+    private final long maxBytes;
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    public DiskCacheTier(Path directory, Duration ttl, long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be > 0");
+        }
+        this.directory = directory;
+        this.ttlMillis = ttl.toMillis();
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(directory);
+            totalBytes.set(scan(true).stream().mapToLong(Entry::size).sum());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open cache directory " + directory, e);
+        }
+        if (totalBytes.get() > maxBytes) {
+            evict();
+        }
+    }
+
+    /**
+     * Returns the stored value, or null if absent, expired or unreadable.
+     */
+    public String get(String key) {
+        Path file = file(key);
+        try {
+            long ageMillis = System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis();
+            if (ageMillis >= ttlMillis) {
+                delete(file);
+                return null;
+            }
+            return Files.readString(file, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            LOG.warn("Failed to read cache entry {}", file, e);
+            return null;
+        }
+    }
+
+    public void put(String key, String value) {
+        Path file = file(key);
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > maxBytes) {
+            return;
+        }
+        try {
+            Path tmp = Files.createTempFile(directory, key, TEMP_SUFFIX);
+            Files.write(tmp, bytes);
+            long replaced = sizeOrZero(file);
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            if (totalBytes.addAndGet(bytes.length - replaced) > maxBytes) {
+                evict();
+            }
+        } catch (IOException e) {
+            // A cache write failure only costs a future miss.
+            LOG.warn("Failed to write cache entry {}", file, e);
+        }
+    }
+
+    /**
+     * Bytes of entries currently held, as tracked by this instance.
+     */
+    public long totalBytes() {
+        return totalBytes.get();
+    }
+
+    // Deletes the oldest entries until the tier is under the low-water mark. The total is
+    // recounted from the directory, which also corrects any drift from concurrent writers.
+    private synchronized void evict() {
+        if (totalBytes.get() <= maxBytes) {
+            return;
+        }
+        try {
+            List<Entry> entries = scan(false);
+            entries.sort(Comparator.comparingLong(Entry::modifiedMillis));
+            long total = entries.stream().mapToLong(Entry::size).sum();
+            long target = (long) (maxBytes * LOW_WATER_FRACTION);
+            for (Entry entry : entries) {
+                if (total <= target) {
+                    break;
+                }
+                if (Files.deleteIfExists(entry.file())) {
+                    total -= entry.size();
+                }
+            }
+            totalBytes.set(total);
+        } catch (IOException e) {
+            LOG.warn("Failed to evict cache entries in {}", directory, e);
+        }
+    }
+
+    // Cache entries in the directory; removes leftover temporary files when asked to.
+    private List<Entry> scan(boolean removeTempFiles) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                try {
+                    if (name.endsWith(SUFFIX)) {
+                        entries.add(new Entry(file, Files.size(file), Files.getLastModifiedTime(file).toMillis()));
+                    } else if (removeTempFiles && name.endsWith(TEMP_SUFFIX)) {
+                        Files.deleteIfExists(file);
+                    }
+                } catch (NoSuchFileException e) {
+                    // Deleted concurrently
+                }
+            }
+        }
+        return entries;
+    }
+
+    private void delete(Path file) throws IOException {
+        long size = sizeOrZero(file);
+        if (Files.deleteIfExists(file)) {
+            totalBytes.addAndGet(-size);
+        }
+    }
+
+    private static long sizeOrZero(Path file) {
+        try {
+            return Files.size(file);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private Path file(String key) {
+        if (!HEX_KEY.matcher(key).matches()) {
+            throw new IllegalArgumentException("Cache keys must be lowercase hex: " + key);
+        }
+        return directory.resolve(key + SUFFIX);
+    }
+
+    private record Entry(Path file, long size, long modifiedMillis) {}
+}
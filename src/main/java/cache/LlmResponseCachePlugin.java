@@ -0,0 +1,172 @@
+package cache;
+
+import com.google.adk.agents.CallbackContext;
+import com.google.adk.models.LlmRequest;
+import com.google.adk.models.LlmResponse;
+import com.google.adk.plugins.BasePlugin;
+import com.google.genai.types.Content;
+import com.google.genai.types.GenerateContentConfig;
+import io.opentelemetry.api.common.Attributes;
+import io.reactivex.rxjava3.core.Maybe;
+import observability.AgentMetrics;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+/**
+ * ADK plugin that answers repeated model calls from a content-addressed cache.
+ *
+ * The key is the SHA-256 of the model name, the generation config (which carries the
+ * rendered system instruction and the tool declarations) and every request content. A
+ * byte-identical request is therefore served without calling the model: first from a
+ * bounded in-memory LRU with TTL, then from a disk tier that survives restarts (so
+ * repeated eval runs and re-triaged invoices hit too). Disk hits are promoted to memory.
+ *
+ * Only complete, successful responses are stored: partial streaming chunks and responses
+ * carrying an error code are never cached. Hits and misses are counted in AgentMetrics.
+ */
+public final class LlmResponseCachePlugin extends BasePlugin {
+
+    public static final String DEFAULT_DIR = "cache/llm-responses";
+    public static final Duration DEFAULT_TTL = Duration.ofHours(24);
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+    public static final long DEFAULT_MAX_DISK_MB = 256;
+
+    private static final String TIER_MEMORY = "memory";
+    private static final String TIER_DISK = "disk";
+
+    private final BoundedTtlCache<String, Content> memory;
+    private final DiskCacheTier disk;
+    // Request key per in-flight model call, so afterModelCallback can store under it.
+    private final ConcurrentHashMap<String, String> pendingKeys = new ConcurrentHashMap<>();
+
+    /**
+     * @param directory    disk tier location, or null for a memory-only cache
+     * @param maxDiskBytes cap on the disk tier's total size
+     */
+    public LlmResponseCachePlugin(int maxEntries, Duration ttl, Path directory, long maxDiskBytes) {
+        super("llm_response_cache");
+        this.memory = new BoundedTtlCache<>(maxEntries, ttl);
+        this.disk = directory == null ? null : new DiskCacheTier(directory, ttl, maxDiskBytes);
+    }
+
+    /**
+     * Cache configured from AP_LLM_CACHE_* variables. The cache is opt-in: AP_LLM_CACHE is
+     * "off" (the default; returns empty), "memory" (no disk tier) or "on" (memory and disk).
+     *
+     * Also off while AP_LLM_MODE=record: a cache hit would skip the model call, and the
+     * request would be missing from the recording.
+     */
+    public static Optional<LlmResponseCachePlugin> fromEnvironment() {
+        String mode = env("AP_LLM_CACHE", "off");
+        if ("off".equalsIgnoreCase(mode) || "record".equalsIgnoreCase(env("AP_LLM_MODE", "live"))) {
+            return Optional.empty();
+        }
+        int maxEntries = Integer.parseInt(env("AP_LLM_CACHE_MAX_ENTRIES", String.valueOf(DEFAULT_MAX_ENTRIES)));
+        Duration ttl = Duration.ofMinutes(
+                Long.parseLong(env("AP_LLM_CACHE_TTL_MINUTES", String.valueOf(DEFAULT_TTL.toMinutes()))));
+        Path dir = "memory".equalsIgnoreCase(mode) ? null : Path.of(env("AP_LLM_CACHE_DIR", DEFAULT_DIR));
+        long maxDiskBytes = Long.parseLong(env("AP_LLM_CACHE_DISK_MAX_MB", String.valueOf(DEFAULT_MAX_DISK_MB)))
+                * 1024 * 1024;
+        return Optional.of(new LlmResponseCachePlugin(maxEntries, ttl, dir, maxDiskBytes));
+    }
+
+    @Override
+    public Maybe<LlmResponse> beforeModelCallback(CallbackContext callbackContext, LlmRequest.Builder llmRequest) {
+        String key = key(llmRequest.build());
+        String agentName = callbackContext.agentName();
+        // A leftover key from an earlier call of this agent must not receive this call's response.
+        pendingKeys.remove(callKey(callbackContext));
+
+        Content cached = memory.get(key);
+        if (cached != null) {
+            AgentMetrics.LLM_CACHE_HITS.add(1, attributes(agentName, TIER_MEMORY));
+            return Maybe.just(LlmResponse.builder().content(cached).build());
+        }
+        if (disk != null) {
+            String json = disk.get(key);
+            if (json != null) {
+                Content content = Content.fromJson(json);
+                memory.put(key, content);
+                AgentMetrics.LLM_CACHE_HITS.add(1, attributes(agentName, TIER_DISK));
+                return Maybe.just(LlmResponse.builder().content(content).build());
+            }
+        }
+
+        AgentMetrics.LLM_CACHE_MISSES.add(1, Attributes.of(stringKey("agent.name"), agentName));
+        pendingKeys.put(callKey(callbackContext), key);
+        return Maybe.empty();
+    }
+
+    @Override
+    public Maybe<LlmResponse> afterModelCallback(CallbackContext callbackContext, LlmResponse llmResponse) {
+        if (llmResponse.partial().orElse(false)) {
+            return Maybe.empty();
+        }
+        String key = pendingKeys.remove(callKey(callbackContext));
+        if (key != null && llmResponse.errorCode().isEmpty() && llmResponse.content().isPresent()) {
+            Content content = llmResponse.content().get();
+            memory.put(key, content);
+            if (disk != null) {
+                disk.put(key, content.toJson());
+            }
+        }
+        return Maybe.empty();
+    }
+
+    @Override
+    public Maybe<LlmResponse> onModelErrorCallback(CallbackContext callbackContext, LlmRequest.Builder llmRequest,
+                                                   Throwable error) {
+        pendingKeys.remove(callKey(callbackContext));
+        return Maybe.empty();
+    }
+
+    // Parallel sub-agents share an invocation, so the agent name is part of the call identity.
+    private static String callKey(CallbackContext callbackContext) {
+        return callbackContext.invocationId() + "/" + callbackContext.agentName();
+    }
+
+    /**
+     * Content address of a model request; also the lookup key of models.RecordReplayLlm.
+     */
+    public static String key(LlmRequest request) {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        update(sha256, request.model().orElse(""));
+        update(sha256, request.config().map(GenerateContentConfig::toJson).orElse(""));
+        for (Content content : request.contents()) {
+            update(sha256, content.toJson());
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    // Length-prefixed, so adjacent fields cannot run into each other.
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(new byte[]{
+                (byte) (bytes.length >>> 24), (byte) (bytes.length >>> 16),
+                (byte) (bytes.length >>> 8), (byte) bytes.length});
+        digest.update(bytes);
+    }
+
+    private static Attributes attributes(String agentName, String tier) {
+        return Attributes.of(stringKey("agent.name"), agentName, stringKey("tier"), tier);
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+}
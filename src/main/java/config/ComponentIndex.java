@@ -0,0 +1,101 @@
+package config;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Names YAML agent configs may reference, read from config/component-index.properties.
+ *
+ * Reading the index loads no component classes; RegistrationService turns each entry into
+ * a factory that runs on first lookup.
+ */
+public final class ComponentIndex {
+
+    public static final String RESOURCE = "config/component-index.properties";
+
+    public static final String CACHE_REPOSITORY = "repository";
+    public static final String CACHE_POLICY = "policy";
+    public static final String CACHE_NONE = "none";
+
+    private static final String AGENT_PREFIX = "agent.";
+    private static final String TOOL_PREFIX = "tool.";
+    private static final String CALLBACK_PREFIX = "callback.";
+    private static final Set<String> CACHE_PROFILES = Set.of(CACHE_REPOSITORY, CACHE_POLICY, CACHE_NONE);
+
+    // agentClass name -> class name
+    private final Map<String, String> agents;
+    // tool name (Class#method) -> cache profile
+    private final Map<String, String> tools;
+    // callback name -> Class#method of its public static factory
+    private final Map<String, String> callbacks;
+
+    private ComponentIndex(Map<String, String> agents, Map<String, String> tools, Map<String, String> callbacks) {
+        this.agents = agents;
+        this.tools = tools;
+        this.callbacks = callbacks;
+    }
+
+    public static ComponentIndex load() {
+        Properties properties = new Properties();
+        try (InputStream in = ComponentIndex.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Component index not found on classpath: " + RESOURCE);
+            }
+            properties.load(in);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read component index " + RESOURCE, e);
+        }
+
+        Map<String, String> agents = new TreeMap<>();
+        Map<String, String> tools = new TreeMap<>();
+        Map<String, String> callbacks = new TreeMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            String value = properties.getProperty(key).trim();
+            if (key.startsWith(AGENT_PREFIX)) {
+                agents.put(key.substring(AGENT_PREFIX.length()), value);
+            } else if (key.startsWith(TOOL_PREFIX)) {
+                String name = key.substring(TOOL_PREFIX.length());
+                if (name.indexOf('#') <= 0 || name.endsWith("#")) {
+                    throw new IllegalStateException("Tool entry must be Class#method in " + RESOURCE + ": " + name);
+                }
+                if (!CACHE_PROFILES.contains(value)) {
+                    throw new IllegalStateException(
+                            "Unknown cache profile '" + value + "' for " + name + " in " + RESOURCE);
+                }
+                tools.put(name, value);
+            } else if (key.startsWith(CALLBACK_PREFIX)) {
+                if (value.indexOf('#') <= 0 || value.endsWith("#")) {
+                    throw new IllegalStateException("Callback factory must be Class#method in " + RESOURCE + ": " + key);
+                }
+                callbacks.put(key.substring(CALLBACK_PREFIX.length()), value);
+            } else {
+                throw new IllegalStateException("Unknown component kind in " + RESOURCE + ": " + key);
+            }
+        }
+        return new ComponentIndex(Map.copyOf(agents), Map.copyOf(tools), Map.copyOf(callbacks));
+    }
+
+    public Map<String, String> agents() {
+        return agents;
+    }
+
+    public Map<String, String> tools() {
+        return tools;
+    }
+
+    public Map<String, String> callbacks() {
+        return callbacks;
+    }
+
+    static String toolClass(String toolName) {
+        return toolName.substring(0, toolName.indexOf('#'));
+    }
+
+    static String toolMethod(String toolName) {
+        return toolName.substring(toolName.indexOf('#') + 1);
+    }
+}
@@ -0,0 +1,64 @@
+package config;
+
+import com.google.adk.utils.ComponentRegistry;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * ComponentRegistry that creates indexed components on first lookup.
+ *
+ * Each pending name has a factory; the first get() for that name runs it once (concurrent
+ * lookups of the same name wait for it) and registers the result, after which lookups are
+ * plain registry reads. A factory that throws stays pending, so the next lookup retries.
+ * An explicit register() replaces any pending factory for the name.
+ */
+final class LazyComponentRegistry extends ComponentRegistry {
+
+    private final ConcurrentHashMap<String, Supplier<Object>> pending;
+    private final AtomicInteger created = new AtomicInteger();
+
+    LazyComponentRegistry(Map<String, Supplier<Object>> factories) {
+        this.pending = new ConcurrentHashMap<>(factories);
+    }
+
+    @Override
+    public void register(String name, Object value) {
+        pending.remove(name);
+        super.register(name, value);
+    }
+
+    @Override
+    public Optional<Object> get(String name) {
+        materialize(name);
+        return super.get(name);
+    }
+
+    @Override
+    public <T> Optional<T> get(String name, Class<T> type) {
+        materialize(name);
+        return super.get(name, type);
+    }
+
+    /**
+     * Number of indexed components created so far.
+     */
+    int createdCount() {
+        return created.get();
+    }
+
+    private void materialize(String name) {
+        if (name == null) {
+            return;
+        }
+        pending.computeIfPresent(name, (key, factory) -> {
+            // super.register: our override would modify pending from inside its own compute.
+            super.register(key, factory.get());
+            created.incrementAndGet();
+            return null;
+        });
+    }
+}
@@ -13,16 +13,21 @@ import io.opentelemetry.sdk.metrics.export.MetricExporter;
 import io.opentelemetry.sdk.metrics.export.PeriodicMetricReader;
 import io.opentelemetry.sdk.resources.Resource;
 import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
 import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
 import io.opentelemetry.sdk.trace.export.SpanExporter;
 import io.opentelemetry.sdk.trace.samplers.Sampler;
 import io.opentelemetry.semconv.ResourceAttributes;
+import observability.AgentMetrics;
+import observability.TailSampling;
+import observability.TailSamplingSpanProcessor;
 
 import java.io.IOException;
 import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -43,19 +48,22 @@ public final class OpenTelemetryBootstrap {
     }
 
     private static void initRuntime(SpanExporter spanExporter){
+        // Tail sampling needs every span; without it, keep the old 2% head sampling.
+        Optional<TailSampling> tailSampling = TailSampling.fromEnvironment();
         SdkTracerProvider tracerProvider = SdkTracerProvider.builder()
-                .addSpanProcessor(BatchSpanProcessor.builder(spanExporter)
-                        .setScheduleDelay(100, TimeUnit.MILLISECONDS)
-                        .build())
+                .addSpanProcessor(spanProcessor(spanExporter, tailSampling))
                 .setResource(Resource.getDefault().merge(
                         Resource.create(Attributes.of(SERVICE_NAME, "minimal-agent")))
                 )
-                .setSampler(Sampler.traceIdRatioBased(0.02))
+                .setSampler(tailSampling.isPresent()
+                        ? Sampler.parentBased(Sampler.alwaysOn())
+                        : Sampler.traceIdRatioBased(0.02))
                 .build();
 
         OpenTelemetrySdk openTelemetry =  OpenTelemetrySdk.builder()
                 .setTracerProvider(tracerProvider)
                 .buildAndRegisterGlobal();
+        AgentMetrics.bind(openTelemetry);
 
         Runtime.getRuntime().addShutdownHook(new Thread(openTelemetry::close));
     }
@@ -115,10 +123,7 @@ public final class OpenTelemetryBootstrap {
         SdkTracerProvider tracerProvider =
                 SdkTracerProvider.builder()
                         .setResource(resource)
-                        .addSpanProcessor(
-                                BatchSpanProcessor.builder(spanExporter)
-                                        .setScheduleDelay(100, TimeUnit.MILLISECONDS)
-                                        .build())
+                        .addSpanProcessor(spanProcessor(spanExporter, TailSampling.fromEnvironment()))
                         .build();
 
         // Google Cloud Monitoring exporter
@@ -133,14 +138,26 @@ public final class OpenTelemetryBootstrap {
                 .build();
 
 
-        // Build the SDK instance
-        return OpenTelemetrySdk.builder()
+        // Build the SDK instance, then bind the application's instruments to it
+        OpenTelemetrySdk openTelemetry = OpenTelemetrySdk.builder()
                 .setTracerProvider(tracerProvider)
                 .setMeterProvider(meterProvider)
                 .buildAndRegisterGlobal();
+        AgentMetrics.bind(openTelemetry);
+        return openTelemetry;
 
     }
 
+    // Batches spans to the exporter, behind tail sampling when it is enabled.
+    private static SpanProcessor spanProcessor(SpanExporter spanExporter, Optional<TailSampling> tailSampling) {
+        SpanProcessor batch = BatchSpanProcessor.builder(spanExporter)
+                .setScheduleDelay(100, TimeUnit.MILLISECONDS)
+                .build();
+        return tailSampling
+                .<SpanProcessor>map(settings -> new TailSamplingSpanProcessor(batch, settings))
+                .orElse(batch);
+    }
+
     private static String extractProjectIdFromEnv() {
         // Preferred: OTEL_RESOURCE_ATTRIBUTES="gcp.project_id=...,service.name=..."
         String attrs = System.getenv("OTEL_RESOURCE_ATTRIBUTES");
@@ -1,38 +1,111 @@
 package config;
 
+import cache.CachingTool;
+import com.google.adk.tools.BaseTool;
 import com.google.adk.tools.FunctionTool;
 import com.google.adk.utils.ComponentRegistry;
-import tools.InvoiceRepoTool;
-import tools.PoRepoTool;
-import tools.PolicyThresholdsTool;
+import models.ModelRegistrations;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import tools.DataVersions;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Makes the workflow wrappers, stage agents, function tools and agent callbacks resolvable
+ * from YAML.
+ *
+ * Components are listed in config/component-index.properties (see ComponentIndex) and
+ * installed as factories in a LazyComponentRegistry: an agent class is loaded, and a
+ * FunctionTool built, only when an agent config first references it. Installing the index
+ * is done once per process; later calls are no-ops.
+ */
 public class RegistrationService {
 
-    public void registerWorkflowWrappers(){
-        ComponentRegistry registry = ComponentRegistry.getInstance();
+    private static final Logger LOG = LoggerFactory.getLogger(RegistrationService.class);
 
-        registry.register(
-                "agents.SequentialWorkflowAgent", agents.SequentialWorkflowAgent.class);
-        registry.register(
-                "agents.ParallelWorkflowAgent", agents.ParallelWorkflowAgent.class);
-        registry.register(
-                "agents.LoopWorkflowAgent", agents.LoopWorkflowAgent.class);
+    private static volatile LazyComponentRegistry installed;
+
+    public void registerWorkflowWrappers(){
+        install();
     }
 
+    // Repository and policy lookups are memoized across sessions and keyed by DataVersions,
+    // so a swapped store or repository, or a reloaded AP_POLICY_FILE, is read on the next
+    // call. The short policy TTL only bounds how long results of the old policy stay in memory.
+    static final Duration REPOSITORY_CACHE_TTL = Duration.ofMinutes(5);
+    static final Duration POLICY_CACHE_TTL = Duration.ofSeconds(30);
+    static final int TOOL_CACHE_MAX_ENTRIES = 10_000;
+
     public void registerFunctionTools(){
-        ComponentRegistry registry = ComponentRegistry.getInstance();
+        install();
+    }
+
+    /**
+     * Swaps the YAML-named models for record/replay stand-ins when AP_LLM_MODE is set.
+     */
+    public void registerModels(){
+        ModelRegistrations.registerFromEnvironment();
+    }
 
-        registry.register(
-                "tools.InvoiceRepoTool#getInvoice",
-                FunctionTool.create(InvoiceRepoTool.class, "getInvoice"));
+    /**
+     * Number of indexed agent classes and tools created so far (0 before installation).
+     */
+    public static int createdComponentCount() {
+        LazyComponentRegistry registry = installed;
+        return registry == null ? 0 : registry.createdCount();
+    }
+
+    private static synchronized void install() {
+        if (installed != null) {
+            return;
+        }
+        long startNanos = System.nanoTime();
+        ComponentIndex index = ComponentIndex.load();
+
+        Map<String, Supplier<Object>> factories = new HashMap<>();
+        index.agents().forEach((name, className) -> factories.put(name, () -> loadClass(className)));
+        index.tools().forEach((name, cache) -> factories.put(name, () -> createTool(name, cache)));
+        index.callbacks().forEach((name, factory) -> factories.put(name, () -> createCallback(factory)));
+
+        installed = new LazyComponentRegistry(factories);
+        ComponentRegistry.setInstance(installed);
 
-        registry.register(
-                "tools.PoRepoTool#getPoForInvoice",
-                FunctionTool.create(PoRepoTool.class, "getPoForInvoice"));
+        LOG.info("Indexed {} agent classes, {} tools and {} callbacks in {} ms; each is created on first use",
+                index.agents().size(), index.tools().size(), index.callbacks().size(),
+                (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    static BaseTool createTool(String name, String cache) {
+        FunctionTool tool = FunctionTool.create(
+                loadClass(ComponentIndex.toolClass(name)), ComponentIndex.toolMethod(name));
+        return switch (cache) {
+            case ComponentIndex.CACHE_REPOSITORY ->
+                    CachingTool.wrap(tool, REPOSITORY_CACHE_TTL, TOOL_CACHE_MAX_ENTRIES, DataVersions::current);
+            case ComponentIndex.CACHE_POLICY ->
+                    CachingTool.wrap(tool, POLICY_CACHE_TTL, TOOL_CACHE_MAX_ENTRIES, DataVersions::current);
+            default -> tool;
+        };
+    }
 
-        registry.register(
-                "tools.PolicyThresholdsTool#getThresholds",
-                FunctionTool.create(PolicyThresholdsTool.class, "getThresholds"));
+    static Object createCallback(String factory) {
+        try {
+            return loadClass(ComponentIndex.toolClass(factory))
+                    .getMethod(ComponentIndex.toolMethod(factory))
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create indexed callback from " + factory, e);
+        }
+    }
 
+    private static Class<?> loadClass(String className) {
+        try {
+            return Class.forName(className);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Indexed component class not found: " + className, e);
+        }
     }
 }
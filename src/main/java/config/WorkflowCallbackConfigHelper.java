@@ -1,13 +1,9 @@
 package config;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.google.adk.agents.Callbacks;
 import com.google.adk.agents.ConfigAgentUtils;
 import com.google.adk.utils.ComponentRegistry;
 
-import java.nio.file.Files;
-import java.nio.file.Path;
 import java.util.*;
 
 public final class WorkflowCallbackConfigHelper {
@@ -38,10 +34,7 @@ public final class WorkflowCallbackConfigHelper {
 
     private static Map<String, Object> loadRoot(String configPath) {
         try {
-            String yaml = Files.readString(Path.of(configPath));
-            var mapper = new ObjectMapper(new YAMLFactory());
-            Object obj = mapper.readValue(yaml, Map.class);
-            return (obj instanceof Map) ? (Map<String, Object>) obj : Collections.emptyMap();
+            return YamlConfigCache.root(configPath);
         } catch (Exception e) {
             throw new RuntimeException("Failed to load workflow callback config in" + configPath, e);
         }
@@ -0,0 +1,85 @@
+package config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Process-wide cache of parsed agent YAML files.
+ *
+ * Building the agent tree reads the same file from several places (the workflow wrappers,
+ * WorkflowCallbackConfigHelper, the stage agents). Each file is parsed once with a single
+ * shared mapper and the result is reused until the file's modification time or size
+ * changes. Entries are keyed by real path, so relative and absolute spellings share one.
+ *
+ * Returned maps (and nested maps and lists) are unmodifiable, since every caller shares them.
+ */
+public final class YamlConfigCache {
+
+    private static final ObjectMapper YAML = new ObjectMapper(new YAMLFactory());
+    private static final ConcurrentHashMap<Path, Parsed> CACHE = new ConcurrentHashMap<>();
+
+    private YamlConfigCache() {}
+
+    /**
+     * Shared, thread-safe YAML mapper.
+     */
+    public static ObjectMapper mapper() {
+        return YAML;
+    }
+
+    /**
+     * Top-level mapping of the YAML file, or an empty map if the document is not a mapping.
+     */
+    public static Map<String, Object> root(String configPath) throws IOException {
+        Path path = Path.of(configPath).toRealPath();
+        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        long modifiedMillis = attrs.lastModifiedTime().toMillis();
+        long size = attrs.size();
+
+        Parsed cached = CACHE.get(path);
+        if (cached != null && cached.modifiedMillis() == modifiedMillis && cached.size() == size) {
+            return cached.root();
+        }
+
+        // Concurrent first reads may both parse; the results are identical.
+        Object parsed = YAML.readValue(Files.readString(path), Object.class);
+        Map<String, Object> root = parsed instanceof Map<?, ?> map ? freezeMap(map) : Map.of();
+        CACHE.put(path, new Parsed(modifiedMillis, size, root));
+        return root;
+    }
+
+    static void clear() {
+        CACHE.clear();
+    }
+
+    private static Map<String, Object> freezeMap(Map<?, ?> map) {
+        Map<String, Object> copy = new LinkedHashMap<>();
+        map.forEach((k, v) -> copy.put(String.valueOf(k), freeze(v)));
+        return Collections.unmodifiableMap(copy);
+    }
+
+    private static Object freeze(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return freezeMap(map);
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            list.forEach(v -> copy.add(freeze(v)));
+            return Collections.unmodifiableList(copy);
+        }
+        return value;
+    }
+
+    private record Parsed(long modifiedMillis, long size, Map<String, Object> root) {}
+}
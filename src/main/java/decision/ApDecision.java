@@ -0,0 +1,22 @@
+package decision;
+
+import java.util.List;
+
+/**
+ * Structured AP decision, serialized into the ap_decision_json state key.
+ *
+ * Mirrors the JSON object the ap_comparison_analysis prompt asks the model to produce.
+ */
+public record ApDecision(
+        String decision,            // OK_TO_PAY / REVIEW / DO_NOT_PAY
+        String summary,             // one sentence in plain English
+        List<String> discrepancies  // empty if none
+) {
+    public static final String OK_TO_PAY = "OK_TO_PAY";
+    public static final String REVIEW = "REVIEW";
+    public static final String DO_NOT_PAY = "DO_NOT_PAY";
+
+    public ApDecision {
+        discrepancies = List.copyOf(discrepancies);
+    }
+}
@@ -0,0 +1,326 @@
+package decision;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Deterministic implementation of the rules in ap-comparison-analysis.yaml.
+ *
+ * The engine only answers when the inputs leave no room for judgement: both JSON
+ * blobs parse, all thresholds are present, vendor and currency either match or
+ * clearly differ, and invoice and PO lines pair up one-to-one by line_number.
+ * Anything else (near-miss vendor names such as suffixes or typos, unmatched lines, missing fields, a zero
+ * PO quantity) returns Optional.empty() so the caller can fall back to the LLM.
+ */
+public final class ApDecisionEngine {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    // Absorbs floating point noise when comparing a variance against its threshold.
+    private static final double EPSILON = 1e-9;
+
+    private ApDecisionEngine() {}
+
+    /**
+     * Decides from the raw state values (JSON strings or already-parsed maps) written
+     * by the loader stages.
+     */
+    public static Optional<ApDecision> decide(Object invoiceData, Object poData, Object thresholds) {
+        Map<String, Object> invoice = asMap(invoiceData);
+        Map<String, Object> po = asMap(poData);
+        Map<String, Object> policy = asMap(thresholds);
+        if (invoice == null || po == null || policy == null) {
+            return Optional.empty();
+        }
+        return decide(invoice, po, policy);
+    }
+
+    public static Optional<ApDecision> decide(Map<String, Object> invoice,
+                                              Map<String, Object> po,
+                                              Map<String, Object> policy) {
+
+        // STEP 1: fundamental errors
+        if ("INVOICE_NOT_FOUND".equals(invoice.get("error"))) {
+            return Optional.of(new ApDecision(
+                    ApDecision.DO_NOT_PAY,
+                    "Invoice " + text(invoice.get("invoice_id"), "unknown") + " was not found, so it cannot be paid.",
+                    List.of("Invoice not found in the invoice repository.")));
+        }
+        if ("PO_NOT_FOUND".equals(po.get("error"))) {
+            return Optional.of(new ApDecision(
+                    ApDecision.REVIEW,
+                    "No matching purchase order was found for invoice "
+                            + text(invoice.get("invoice_id"), text(po.get("invoice_id"), "unknown")) + ".",
+                    List.of("No matching PO found.")));
+        }
+        if (invoice.containsKey("error") || po.containsKey("error")) {
+            return Optional.empty();
+        }
+
+        String invoiceId = text(invoice.get("invoice_id"), null);
+        String poNumber = text(po.get("po_number"), null);
+        String invoiceVendor = text(invoice.get("vendor"), null);
+        String poVendor = text(po.get("vendor"), null);
+        String invoiceCurrency = text(invoice.get("currency"), null);
+        String poCurrency = text(po.get("currency"), null);
+        Double total = number(invoice.get("total"));
+        Double maxTotal = number(po.get("max_total"));
+        Double maxLineVariance = number(policy.get("max_line_variance_percent"));
+        Double maxInvoiceVariance = number(policy.get("max_invoice_variance_percent"));
+        Double autoApprovalMax = number(policy.get("auto_approval_max_amount"));
+
+        if (invoiceId == null || poNumber == null || invoiceVendor == null || poVendor == null
+                || invoiceCurrency == null || poCurrency == null || total == null || maxTotal == null
+                || maxLineVariance == null || maxInvoiceVariance == null || autoApprovalMax == null) {
+            return Optional.empty();
+        }
+
+        // STEP 2a: vendor and currency
+        VendorMatch vendorMatch = compareVendors(invoiceVendor, poVendor);
+        if (vendorMatch == VendorMatch.AMBIGUOUS) {
+            return Optional.empty();
+        }
+        boolean currencyMatches = invoiceCurrency.trim().equalsIgnoreCase(poCurrency.trim());
+
+        if (vendorMatch == VendorMatch.DIFFERENT || !currencyMatches) {
+            List<String> discrepancies = new ArrayList<>();
+            if (vendorMatch == VendorMatch.DIFFERENT) {
+                discrepancies.add("Vendor mismatch: invoice '" + invoiceVendor + "' vs PO '" + poVendor + "'.");
+            }
+            if (!currencyMatches) {
+                discrepancies.add("Currency mismatch: invoice " + invoiceCurrency + " vs PO " + poCurrency + ".");
+            }
+            return Optional.of(new ApDecision(
+                    ApDecision.DO_NOT_PAY,
+                    "Invoice " + invoiceId + " does not match PO " + poNumber + " on "
+                            + (vendorMatch == VendorMatch.DIFFERENT && !currencyMatches ? "vendor and currency"
+                            : vendorMatch == VendorMatch.DIFFERENT ? "vendor" : "currency") + ".",
+                    discrepancies));
+        }
+
+        // STEP 2b: line-level variance
+        Map<Integer, Map<?, ?>> poLines = linesByNumber(po.get("lines"));
+        Map<Integer, Map<?, ?>> invoiceLines = linesByNumber(invoice.get("lines"));
+        if (poLines == null || invoiceLines == null || !poLines.keySet().equals(invoiceLines.keySet())) {
+            return Optional.empty();
+        }
+
+        List<String> discrepancies = new ArrayList<>();
+        for (Map.Entry<Integer, Map<?, ?>> entry : invoiceLines.entrySet()) {
+            int lineNumber = entry.getKey();
+            Map<?, ?> invoiceLine = entry.getValue();
+            Map<?, ?> poLine = poLines.get(lineNumber);
+
+            for (String field : List.of("quantity", "unit_price")) {
+                Double invoiced = number(invoiceLine.get(field));
+                Double ordered = number(poLine.get(field));
+                if (invoiced == null || ordered == null) {
+                    return Optional.empty();
+                }
+                Double variance = variancePercent(invoiced, ordered);
+                if (variance == null) {
+                    return Optional.empty();
+                }
+                if (variance > maxLineVariance + EPSILON) {
+                    discrepancies.add(String.format(Locale.ROOT,
+                            "Line %d %s %s vs PO %s (%.2f%% variance > %.2f%% allowed).",
+                            lineNumber, field, format(invoiced), format(ordered), variance, maxLineVariance));
+                }
+            }
+        }
+
+        // STEP 2c: invoice total vs PO max_total and auto-approval limit
+        Double totalVariance = variancePercent(total, maxTotal);
+        if (totalVariance == null) {
+            return Optional.empty();
+        }
+        if (totalVariance > maxInvoiceVariance + EPSILON) {
+            discrepancies.add(String.format(Locale.ROOT,
+                    "Invoice total %s vs PO max_total %s (%.2f%% variance > %.2f%% allowed).",
+                    format(total), format(maxTotal), totalVariance, maxInvoiceVariance));
+        }
+        if (total > autoApprovalMax + EPSILON) {
+            discrepancies.add(String.format(Locale.ROOT,
+                    "Invoice total %s exceeds the auto-approval limit of %s.",
+                    format(total), format(autoApprovalMax)));
+        }
+
+        if (discrepancies.isEmpty()) {
+            return Optional.of(new ApDecision(
+                    ApDecision.OK_TO_PAY,
+                    "Invoice " + invoiceId + " matches PO " + poNumber
+                            + " within policy thresholds and is within the auto-approval limit.",
+                    List.of()));
+        }
+        return Optional.of(new ApDecision(
+                ApDecision.REVIEW,
+                "Invoice " + invoiceId + " matches the vendor and currency of PO " + poNumber
+                        + " but exceeds policy thresholds and needs manual review.",
+                discrepancies));
+    }
+
+    /**
+     * Serializes a decision into the compact JSON stored under ap_decision_json.
+     */
+    public static String toJson(ApDecision decision) {
+        Map<String, Object> json = new LinkedHashMap<>();
+        json.put("decision", decision.decision());
+        json.put("summary", decision.summary());
+        json.put("discrepancies", decision.discrepancies());
+        try {
+            return MAPPER.writeValueAsString(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize AP decision", e);
+        }
+    }
+
+    // ---- Helpers ----
+
+    private enum VendorMatch { SAME, DIFFERENT, AMBIGUOUS }
+
+    private static VendorMatch compareVendors(String invoiceVendor, String poVendor) {
+        String a = normalize(invoiceVendor);
+        String b = normalize(poVendor);
+        if (a.equals(b)) {
+            return VendorMatch.SAME;
+        }
+        // "Acme Supplies" vs "Acme Supplies, Inc." could be the same legal entity; let the model judge.
+        String strippedA = a.replaceAll("[^a-z0-9]", "");
+        String strippedB = b.replaceAll("[^a-z0-9]", "");
+        if (strippedA.isEmpty() || strippedB.isEmpty()
+                || strippedA.contains(strippedB) || strippedB.contains(strippedA)) {
+            return VendorMatch.AMBIGUOUS;
+        }
+        // Typos ("Acme Suplies") are near matches too; only clearly unrelated names are DIFFERENT.
+        int maxTypos = Math.max(1, Math.max(strippedA.length(), strippedB.length()) / 4);
+        if (editDistance(strippedA, strippedB, maxTypos) <= maxTypos) {
+            return VendorMatch.AMBIGUOUS;
+        }
+        return VendorMatch.DIFFERENT;
+    }
+
+    // Levenshtein distance, or limit + 1 once it is known to exceed limit.
+    private static int editDistance(String a, String b, int limit) {
+        if (Math.abs(a.length() - b.length()) > limit) {
+            return limit + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > limit) {
+                return limit + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static String normalize(String value) {
+        return value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    // Percent difference relative to the reference value, or null when undefined.
+    private static Double variancePercent(double actual, double reference) {
+        if (reference == 0.0) {
+            return actual == 0.0 ? 0.0 : null;
+        }
+        return Math.abs(actual - reference) / Math.abs(reference) * 100.0;
+    }
+
+    // Lines keyed by line_number, or null if any line is malformed or duplicated.
+    private static Map<Integer, Map<?, ?>> linesByNumber(Object rawLines) {
+        if (!(rawLines instanceof List<?> lines)) {
+            return null;
+        }
+        Map<Integer, Map<?, ?>> result = new HashMap<>();
+        for (Object rawLine : lines) {
+            if (!(rawLine instanceof Map<?, ?> line)) {
+                return null;
+            }
+            Double lineNumber = number(line.get("line_number"));
+            if (lineNumber == null || lineNumber != Math.rint(lineNumber)) {
+                return null;
+            }
+            if (result.put(lineNumber.intValue(), line) != null) {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        if (value instanceof Map<?, ?> map) {
+            return (Map<String, Object>) map;
+        }
+        if (!(value instanceof String json) || json.isBlank()) {
+            return null;
+        }
+        try {
+            Object parsed = MAPPER.readValue(stripCodeFence(json), Object.class);
+            return parsed instanceof Map<?, ?> map ? (Map<String, Object>) map : null;
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    // LLM loaders sometimes wrap their JSON in a ```json fence.
+    private static String stripCodeFence(String json) {
+        String trimmed = json.trim();
+        if (!trimmed.startsWith("```")) {
+            return trimmed;
+        }
+        int firstNewline = trimmed.indexOf('\n');
+        int closingFence = trimmed.lastIndexOf("```");
+        if (firstNewline < 0 || closingFence <= firstNewline) {
+            return trimmed;
+        }
+        return trimmed.substring(firstNewline + 1, closingFence).trim();
+    }
+
+    private static Double number(Object value) {
+        if (value instanceof Number n) {
+            return n.doubleValue();
+        }
+        if (value instanceof String s) {
+            try {
+                return Double.parseDouble(s.trim());
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static String text(Object value, String fallback) {
+        if (value == null) {
+            return fallback;
+        }
+        String s = value.toString().trim();
+        return s.isEmpty() ? fallback : s;
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}
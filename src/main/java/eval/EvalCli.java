@@ -4,6 +4,8 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.adk.agents.BaseAgent;
 import com.google.adk.agents.ConfigAgentUtils;
+import com.google.adk.plugins.BasePlugin;
+import cache.LlmResponseCachePlugin;
 import config.RegistrationService;
 import eval.config.EvalConfig;
 import eval.metrics.EvaluationCriterion;
@@ -15,8 +17,10 @@ import eval.model.results.EvalRunResult;
 import eval.model.results.MetricScore;
 import eval.runner.AgentRunner;
 import eval.runner.JavaAdkAgentRunner;
+import observability.StageTimingCallbacks;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -50,12 +54,16 @@ public final class EvalCli {
         RegistrationService registrationService = new RegistrationService();
         registrationService.registerWorkflowWrappers();
         registrationService.registerFunctionTools();
+        registrationService.registerModels();
 
         EvalSet evalSet = MAPPER.readValue(evalSetPath.toFile(), EvalSet.class);
         EvalConfig evalConfig = MAPPER.readValue(evalConfigPath.toFile(), EvalConfig.class);
 
         BaseAgent rootAgent = ConfigAgentUtils.fromConfig(agentConfigPath);
-        AgentRunner runner = new JavaAdkAgentRunner(rootAgent);
+        StageTimingCallbacks.indexParents(rootAgent);
+        List<BasePlugin> plugins = new ArrayList<>();
+        LlmResponseCachePlugin.fromEnvironment().ifPresent(plugins::add);
+        AgentRunner runner = new JavaAdkAgentRunner(rootAgent, plugins);
 
         List<EvaluationCriterion> criteria = List.of(
                 new ToolTrajectoryAvgScoreCriterion(),
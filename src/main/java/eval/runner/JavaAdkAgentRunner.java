@@ -5,11 +5,14 @@ import eval.model.*;
 import com.google.adk.agents.BaseAgent;
 import com.google.adk.agents.RunConfig;
 import com.google.adk.events.Event;
-import com.google.adk.runner.InMemoryRunner;
+import com.google.adk.memory.InMemoryMemoryService;
+import com.google.adk.plugins.BasePlugin;
+import com.google.adk.runner.Runner;
 import com.google.adk.sessions.Session;
 import com.google.genai.types.FunctionCall;
 import com.google.genai.types.FunctionResponse;
 import io.reactivex.rxjava3.core.Flowable;
+import sessions.BoundedSessionService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,13 +25,20 @@ import java.util.concurrent.atomic.AtomicReference;
 // Bridge between the project's EvalSet DTOs and the Java ADK runtime
 public final class JavaAdkAgentRunner implements AgentRunner {
 
-    private final InMemoryRunner runner;
+    private final Runner runner;
     private final RunConfig runConfig;
 
     private static final Logger LOG = LoggerFactory.getLogger(JavaAdkAgentRunner.class);
 
     public JavaAdkAgentRunner(BaseAgent rootAgent) {
-        this.runner = new InMemoryRunner(rootAgent);
+        this(rootAgent, List.of());
+    }
+
+    // Plugins apply to every eval case, e.g. cache.LlmResponseCachePlugin to make repeated runs cheap.
+    // Case sessions live in a bounded session service and are deleted once the case has run.
+    public JavaAdkAgentRunner(BaseAgent rootAgent, List<BasePlugin> plugins) {
+        this.runner = new Runner(rootAgent, rootAgent.name(), null,
+                BoundedSessionService.fromEnvironment(), new InMemoryMemoryService(), plugins);
         this.runConfig = RunConfig.builder().build();
     }
 
@@ -76,6 +86,10 @@ public final class JavaAdkAgentRunner implements AgentRunner {
             );
         }
 
+        runner.sessionService()
+                .deleteSession(si.appName(), session.userId(), session.id())
+                .blockingAwait();
+
         return actualInvocations;
     }
 
@@ -0,0 +1,133 @@
+package helpers;
+
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptAppender;
+import net.openhft.chronicle.wire.WriteMarshallable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single writer for a Chronicle Queue: one daemon thread owns the only appender and writes
+ * the documents handed to it, in order.
+ *
+ * Chronicle appenders are single-threaded, and queue.acquireAppender() keeps one per
+ * calling thread. With a virtual thread per request that means an appender (and its mapped
+ * store and thread-local cleanup) created and abandoned per request; funnelling every
+ * write through one thread keeps a single appender for the life of the queue.
+ *
+ * append waits for room when capacity writes are pending; tryAppend gives up instead.
+ * Each returned future completes with the queue index of the written excerpt, or
+ * exceptionally if the write failed or the writer was closed first.
+ */
+public final class ChronicleWriter implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChronicleWriter.class);
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+    private static final Write STOP = new Write(null, null);
+
+    private final ChronicleQueue queue;
+    private final BlockingQueue<Write> pending;
+    private final Thread thread;
+    private volatile boolean closed;
+
+    public ChronicleWriter(ChronicleQueue queue, String threadName, int capacity) {
+        this.queue = queue;
+        this.pending = new ArrayBlockingQueue<>(capacity);
+        this.thread = new Thread(this::run, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues a write, waiting for room if the writer is behind.
+     */
+    public CompletableFuture<Long> append(WriteMarshallable document) {
+        Write write = new Write(document, new CompletableFuture<>());
+        if (closed) {
+            return rejected(write);
+        }
+        try {
+            pending.put(write);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            write.done().completeExceptionally(e);
+        }
+        return afterQueued(write);
+    }
+
+    /**
+     * Queues a write, or returns null without queuing it if capacity writes are pending.
+     */
+    public CompletableFuture<Long> tryAppend(WriteMarshallable document) {
+        Write write = new Write(document, new CompletableFuture<>());
+        if (closed) {
+            return rejected(write);
+        }
+        return pending.offer(write) ? afterQueued(write) : null;
+    }
+
+    // Closed while queuing: the writer may already have stopped, so take the write back.
+    private CompletableFuture<Long> afterQueued(Write write) {
+        if (closed && pending.remove(write)) {
+            return rejected(write);
+        }
+        return write.done();
+    }
+
+    private void run() {
+        try (ExcerptAppender appender = queue.createAppender()) {
+            while (true) {
+                Write write = pending.take();
+                if (write == STOP) {
+                    break;
+                }
+                try {
+                    appender.writeDocument(write.document());
+                    write.done().complete(appender.lastIndexAppended());
+                } catch (RuntimeException e) {
+                    write.done().completeExceptionally(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            LOG.error("Chronicle writer {} stopped", thread.getName(), e);
+        } finally {
+            closed = true;
+            for (Write left; (left = pending.poll()) != null; ) {
+                if (left != STOP) {
+                    rejected(left);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes everything queued so far, then stops the writer thread. Later appends fail.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            pending.put(STOP);
+            thread.join(TimeUnit.SECONDS.toMillis(CLOSE_TIMEOUT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<Long> rejected(Write write) {
+        write.done().completeExceptionally(new IllegalStateException("Chronicle writer " + thread.getName() + " is closed"));
+        return write.done();
+    }
+
+    private record Write(WriteMarshallable document, CompletableFuture<Long> done) {}
+}
@@ -0,0 +1,70 @@
+package helpers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds invoice IDs such as "INV-1001" in free text and normalizes them.
+ *
+ * Accepts any casing and an optional '-', '_' or space between the prefix and the digits
+ * ("inv 1001", "Inv_1001", "INV1001"), and always normalizes to the canonical
+ * "INV-1001" form the repositories are keyed by. IDs with further segments
+ * ("INV-2024-001") are not matched at all, so the caller falls back to the LLM intake
+ * instead of loading a truncated ID. The pattern is compiled once and shared; matching
+ * is allocation-light and thread-safe.
+ */
+public final class InvoiceIdExtractor {
+
+    // The digits must not be followed by another ID segment: "INV-2024-001" is not INV-2024.
+    private static final Pattern INVOICE_ID =
+            Pattern.compile("\\bINV[-_ ]?(\\d{3,12})(?![-_\\w])", Pattern.CASE_INSENSITIVE);
+
+    private InvoiceIdExtractor() {}
+
+    /**
+     * First invoice ID mentioned in the text, normalized.
+     */
+    public static Optional<String> first(String text) {
+        if (text == null || text.isEmpty()) {
+            return Optional.empty();
+        }
+        Matcher m = INVOICE_ID.matcher(text);
+        return m.find() ? Optional.of(normalized(m)) : Optional.empty();
+    }
+
+    /**
+     * All distinct invoice IDs in order of first mention, normalized.
+     */
+    public static List<String> all(String text) {
+        List<String> ids = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return ids;
+        }
+        Matcher m = INVOICE_ID.matcher(text);
+        while (m.find()) {
+            String id = normalized(m);
+            if (!ids.contains(id)) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Normalizes a single invoice ID, or returns empty if the value is not one.
+     */
+    public static Optional<String> normalize(String rawId) {
+        if (rawId == null) {
+            return Optional.empty();
+        }
+        Matcher m = INVOICE_ID.matcher(rawId.trim());
+        return m.matches() ? Optional.of(normalized(m)) : Optional.empty();
+    }
+
+    private static String normalized(Matcher m) {
+        return "INV-" + m.group(1);
+    }
+}
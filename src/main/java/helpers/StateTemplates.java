@@ -0,0 +1,71 @@
+package helpers;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Fills {state_key} placeholders in YAML-provided values from session state, the same
+ * syntax LlmAgent instructions use.
+ *
+ * Maps and lists are resolved recursively. A string that is exactly one placeholder is
+ * replaced by the state value itself (keeping numbers and maps intact); placeholders
+ * inside longer strings are replaced by the value's string form. A placeholder whose key
+ * is not in state is an error, as it is for instructions.
+ */
+public final class StateTemplates {
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\{([A-Za-z_][A-Za-z0-9_]*)}");
+
+    private StateTemplates() {}
+
+    public static Object resolve(Object template, Map<String, Object> state) {
+        if (template instanceof String s) {
+            return resolveString(s, state);
+        }
+        if (template instanceof Map<?, ?> map) {
+            Map<String, Object> resolved = new LinkedHashMap<>();
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                resolved.put(String.valueOf(e.getKey()), resolve(e.getValue(), state));
+            }
+            return resolved;
+        }
+        if (template instanceof List<?> list) {
+            List<Object> resolved = new ArrayList<>(list.size());
+            for (Object item : list) {
+                resolved.add(resolve(item, state));
+            }
+            return resolved;
+        }
+        return template;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> resolveMap(Map<String, Object> template, Map<String, Object> state) {
+        return (Map<String, Object>) resolve(template, state);
+    }
+
+    private static Object resolveString(String template, Map<String, Object> state) {
+        Matcher m = PLACEHOLDER.matcher(template);
+        if (m.matches()) {
+            return lookup(m.group(1), state);
+        }
+        m.reset();
+        StringBuilder sb = new StringBuilder();
+        while (m.find()) {
+            m.appendReplacement(sb, Matcher.quoteReplacement(String.valueOf(lookup(m.group(1), state))));
+        }
+        m.appendTail(sb);
+        return sb.toString();
+    }
+
+    private static Object lookup(String key, Map<String, Object> state) {
+        if (!state.containsKey(key)) {
+            throw new IllegalStateException("Context variable not found: `" + key + "`.");
+        }
+        return state.get(key);
+    }
+}
@@ -0,0 +1,112 @@
+package models;
+
+import com.google.adk.models.BaseLlm;
+import com.google.adk.models.BaseLlmConnection;
+import com.google.adk.models.LlmRequest;
+import com.google.adk.models.LlmResponse;
+import com.google.genai.errors.ApiException;
+import io.opentelemetry.api.common.Attributes;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Single;
+import observability.AgentMetrics;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+/**
+ * Model wrapper that admits each call through the model's AdmissionLimiter before it reaches
+ * the delegate.
+ *
+ * A call waits (without holding a thread) until the limiter grants a permit, then runs the
+ * delegate; the permit is released when the response stream ends. Shed calls fail at once
+ * with ModelCallShedException and never reach the provider. A call failing with HTTP 429
+ * (RESOURCE_EXHAUSTED) is reported to the limiter as rate-limited, so the whole process backs
+ * off rather than each caller retrying on its own.
+ *
+ * A call leaves llm_admission_queue_depth, and records its llm_admission_wait_ms, exactly
+ * once: when it is granted or shed, or when its caller disposes it while still queued. The
+ * grant time of each admitted call is recorded in AdmissionGrants against every response it
+ * emits and against its error, so model metrics can measure service time from the grant
+ * rather than include the queueing.
+ *
+ * Live connections (connect) bypass admission; this pipeline does not use them.
+ */
+public final class AdmissionControlledLlm extends BaseLlm {
+
+    private final BaseLlm delegate;
+    private final AdmissionLimiter limiter;
+    private final Duration maxWait;
+    private final Attributes modelAttributes;
+
+    public AdmissionControlledLlm(BaseLlm delegate, AdmissionLimiter limiter, Duration maxWait) {
+        super(delegate.model());
+        this.delegate = Objects.requireNonNull(delegate, "delegate");
+        this.limiter = Objects.requireNonNull(limiter, "limiter");
+        this.maxWait = maxWait;
+        this.modelAttributes = Attributes.of(stringKey("model"), delegate.model());
+    }
+
+    @Override
+    public Flowable<LlmResponse> generateContent(LlmRequest llmRequest, boolean stream) {
+        return Flowable.defer(() -> {
+            long queuedNanos = System.nanoTime();
+            CompletableFuture<AdmissionLimiter.Permit> pending = limiter.acquire(maxWait);
+            AgentMetrics.LLM_ADMISSION_QUEUE_DEPTH.add(1, modelAttributes);
+            AtomicBoolean dequeued = new AtomicBoolean();
+            Runnable leaveQueue = () -> {
+                if (dequeued.compareAndSet(false, true)) {
+                    AgentMetrics.LLM_ADMISSION_QUEUE_DEPTH.add(-1, modelAttributes);
+                    AgentMetrics.LLM_ADMISSION_WAIT_MS.record(
+                            (System.nanoTime() - queuedNanos) / 1_000_000.0, modelAttributes);
+                }
+            };
+
+            return Single.fromCompletionStage(pending)
+                    .doOnEvent((permit, error) -> {
+                        leaveQueue.run();
+                        if (error instanceof ModelCallShedException shed) {
+                            AgentMetrics.LLM_ADMISSION_SHED.add(1, Attributes.of(
+                                    stringKey("model"), model(),
+                                    stringKey("reason"), shed.reason().name().toLowerCase(Locale.ROOT)));
+                        }
+                    })
+                    .doOnDispose(() -> {
+                        // Unsubscribed while queued: leave the queue, or hand back a permit
+                        // granted concurrently. No-op for the gauge once granted.
+                        leaveQueue.run();
+                        if (!pending.cancel(false)) {
+                            pending.thenAccept(permit -> permit.release(AdmissionLimiter.Outcome.CANCELLED));
+                        }
+                    })
+                    .flatMapPublisher(permit -> {
+                        long grantedNanos = System.nanoTime();
+                        return delegate.generateContent(llmRequest, stream)
+                                .doOnNext(response -> AdmissionGrants.record(response, grantedNanos))
+                                .doOnError(e -> AdmissionGrants.record(e, grantedNanos))
+                                .doOnComplete(() -> permit.release(AdmissionLimiter.Outcome.SUCCESS))
+                                .doOnError(e -> permit.release(outcome(e)))
+                                .doOnCancel(() -> permit.release(AdmissionLimiter.Outcome.CANCELLED));
+                    });
+        });
+    }
+
+    @Override
+    public BaseLlmConnection connect(LlmRequest llmRequest) {
+        return delegate.connect(llmRequest);
+    }
+
+    static AdmissionLimiter.Outcome outcome(Throwable error) {
+        if (error instanceof ApiException api && api.code() == 429) {
+            return AdmissionLimiter.Outcome.RATE_LIMITED;
+        }
+        String message = String.valueOf(error.getMessage());
+        return message.contains("429") || message.contains("RESOURCE_EXHAUSTED")
+                ? AdmissionLimiter.Outcome.RATE_LIMITED
+                : AdmissionLimiter.Outcome.FAILED;
+    }
+}
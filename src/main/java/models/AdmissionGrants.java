@@ -0,0 +1,59 @@
+package models;
+
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When each admitted model call was granted its permit, for measuring service time apart
+ * from the admission wait.
+ *
+ * AdmissionControlledLlm records the grant time against every response it emits, and
+ * against the error if the call fails after admission. The entry is keyed by the identity
+ * of that response or error object, so a reader such as observability.ModelMetricsPlugin
+ * finds it on whichever thread the object reaches it. take removes the entry; entries
+ * nobody takes (model metrics off, an error wrapped on the way) are swept once stale.
+ */
+public final class AdmissionGrants {
+
+    static final long STALE_AFTER_NANOS = TimeUnit.MINUTES.toNanos(10);
+    static final int SWEEP_THRESHOLD = 1_000;
+
+    private static final ConcurrentHashMap<Signal, Long> GRANTED_NANOS = new ConcurrentHashMap<>();
+
+    private AdmissionGrants() {}
+
+    static void record(Object signal, long grantedNanos) {
+        if (GRANTED_NANOS.size() >= SWEEP_THRESHOLD) {
+            long now = System.nanoTime();
+            GRANTED_NANOS.values().removeIf(granted -> now - granted > STALE_AFTER_NANOS);
+        }
+        GRANTED_NANOS.put(new Signal(signal), grantedNanos);
+    }
+
+    /**
+     * nanoTime at which the call that produced this response or error was admitted, if it
+     * went through admission control.
+     */
+    public static OptionalLong take(Object signal) {
+        Long granted = GRANTED_NANOS.remove(new Signal(signal));
+        return granted == null ? OptionalLong.empty() : OptionalLong.of(granted);
+    }
+
+    static int size() {
+        return GRANTED_NANOS.size();
+    }
+
+    // Identity key: equal responses of different calls must not share an entry.
+    private record Signal(Object ref) {
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Signal signal && signal.ref == ref;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(ref);
+        }
+    }
+}
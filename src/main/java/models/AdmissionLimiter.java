@@ -0,0 +1,233 @@
+package models;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission control for calls to one model: a token-bucket rate limit plus an adaptive
+ * concurrency limit, with a bounded FIFO queue whose entries carry deadlines.
+ *
+ * - Rate: at most ratePerSecond calls start per second on average, with bursts up to burst.
+ * - Concurrency (AIMD): the in-flight limit grows by about one per limit's worth of calls
+ *   that finish within latencyTarget, and is multiplied by DECREASE_ON_SLOW when one is
+ *   slower. A rate-limited call (HTTP 429) halves it and empties the token bucket, so the
+ *   process backs off instead of retrying into the provider's limit.
+ * - Queueing: a call that cannot start waits in FIFO order until a slot and a token are
+ *   free. It is shed (the future fails with ModelCallShedException) when the queue already
+ *   holds maxQueue calls, or when it is still waiting at its deadline.
+ *
+ * Callers must release every granted Permit exactly once; further releases are ignored.
+ */
+public final class AdmissionLimiter {
+
+    /**
+     * How a permitted call ended, which drives the adaptive limit.
+     */
+    public enum Outcome { SUCCESS, RATE_LIMITED, FAILED, CANCELLED }
+
+    static final double DECREASE_ON_SLOW = 0.9;
+    static final double DECREASE_ON_RATE_LIMIT = 0.5;
+
+    private static final ScheduledExecutorService TIMERS = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "model-admission-timer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final String model;
+    private final double ratePerNano;
+    private final double burst;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final int maxQueue;
+
+    // Guarded by this.
+    private final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+    private double limit;
+    private int inFlight;
+    private ScheduledFuture<?> wakeUp;
+
+    public AdmissionLimiter(String model, double ratePerSecond, int burst, int initialLimit, int minLimit,
+                            int maxLimit, Duration latencyTarget, int maxQueue) {
+        if (ratePerSecond <= 0 || burst <= 0 || minLimit <= 0 || maxLimit < minLimit || maxQueue < 0) {
+            throw new IllegalArgumentException("Invalid admission limits for " + model);
+        }
+        this.model = model;
+        this.ratePerNano = ratePerSecond / 1e9;
+        this.burst = burst;
+        this.tokens = burst;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.maxQueue = maxQueue;
+    }
+
+    /**
+     * Requests a permit, waiting at most maxWait. The future completes with the permit, or
+     * fails with ModelCallShedException. Cancelling the future gives up the place in line.
+     */
+    public CompletableFuture<Permit> acquire(Duration maxWait) {
+        CompletableFuture<Permit> future = new CompletableFuture<>();
+        Waiter waiter = new Waiter(future);
+        synchronized (this) {
+            if (queue.isEmpty() && tryStart()) {
+                future.complete(new Permit());
+                return future;
+            }
+            if (queue.size() >= maxQueue) {
+                future.completeExceptionally(new ModelCallShedException(model, ModelCallShedException.Reason.QUEUE_FULL));
+                return future;
+            }
+            waiter.timeout = TIMERS.schedule(() -> expire(waiter), maxWait.toNanos(), TimeUnit.NANOSECONDS);
+            queue.addLast(waiter);
+            scheduleWakeUpIfNeeded();
+        }
+        // A cancelled waiter leaves the queue at once rather than when it reaches the head.
+        future.whenComplete((permit, error) -> {
+            if (future.isCancelled()) {
+                synchronized (this) {
+                    queue.remove(waiter);
+                }
+            }
+        });
+        return future;
+    }
+
+    public synchronized int queueDepth() {
+        return queue.size();
+    }
+
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    public synchronized double limit() {
+        return limit;
+    }
+
+    private void expire(Waiter waiter) {
+        boolean removed;
+        synchronized (this) {
+            removed = queue.remove(waiter);
+        }
+        if (removed) {
+            waiter.future.completeExceptionally(new ModelCallShedException(model, ModelCallShedException.Reason.DEADLINE));
+        }
+    }
+
+    private void release(Outcome outcome, long latencyNanos) {
+        synchronized (this) {
+            inFlight--;
+            switch (outcome) {
+                case SUCCESS -> {
+                    if (latencyNanos <= latencyTargetNanos) {
+                        limit = Math.min(maxLimit, limit + 1.0 / limit);
+                    } else {
+                        limit = Math.max(minLimit, limit * DECREASE_ON_SLOW);
+                    }
+                }
+                case RATE_LIMITED -> {
+                    limit = Math.max(minLimit, limit * DECREASE_ON_RATE_LIMIT);
+                    tokens = 0;
+                }
+                case FAILED, CANCELLED -> {
+                    // No signal about provider capacity.
+                }
+            }
+        }
+        dispatch();
+    }
+
+    // Starts queued calls while capacity allows; schedules a wake-up if only tokens are short.
+    private void dispatch() {
+        while (true) {
+            Waiter next;
+            synchronized (this) {
+                if (queue.isEmpty() || !tryStart()) {
+                    scheduleWakeUpIfNeeded();
+                    return;
+                }
+                next = queue.pollFirst();
+            }
+            next.timeout.cancel(false);
+            if (!next.future.complete(new Permit())) {
+                // Cancelled or expired concurrently: hand the slot back.
+                synchronized (this) {
+                    inFlight--;
+                }
+            }
+        }
+    }
+
+    // Caller holds the lock.
+    private boolean tryStart() {
+        refill();
+        if (inFlight >= (int) limit || tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        inFlight++;
+        return true;
+    }
+
+    // Caller holds the lock.
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * ratePerNano);
+        lastRefillNanos = now;
+    }
+
+    // Caller holds the lock. Only a token shortage needs a timer; a slot shortage ends on release.
+    private void scheduleWakeUpIfNeeded() {
+        if (queue.isEmpty() || tokens >= 1 || inFlight >= (int) limit) {
+            return;
+        }
+        if (wakeUp != null) {
+            return;
+        }
+        long delayNanos = (long) Math.ceil((1 - tokens) / ratePerNano);
+        wakeUp = TIMERS.schedule(this::onWakeUp, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void onWakeUp() {
+        synchronized (this) {
+            wakeUp = null;
+        }
+        dispatch();
+    }
+
+    /**
+     * Right to make one model call.
+     */
+    public final class Permit {
+        private final long startNanos = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit() {}
+
+        public void release(Outcome outcome) {
+            if (released.compareAndSet(false, true)) {
+                AdmissionLimiter.this.release(outcome, System.nanoTime() - startNanos);
+            }
+        }
+    }
+
+    private static final class Waiter {
+        final CompletableFuture<Permit> future;
+        ScheduledFuture<?> timeout;
+
+        Waiter(CompletableFuture<Permit> future) {
+            this.future = future;
+        }
+    }
+}
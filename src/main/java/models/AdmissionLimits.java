@@ -0,0 +1,44 @@
+package models;
+
+import java.time.Duration;
+
+/**
+ * Admission limits applied to each model, read from the environment.
+ *
+ * AP_LLM_RATE_PER_SECOND (default 10) and AP_LLM_BURST (default 10) size the token bucket.
+ * AP_LLM_INITIAL_CONCURRENCY (default 4) is where the adaptive in-flight limit starts; it stays
+ * between AP_LLM_MIN_CONCURRENCY (default 1) and AP_LLM_MAX_CONCURRENCY (default 16), shrinking
+ * when calls take longer than AP_LLM_LATENCY_TARGET_MS (default 15000) or are rate-limited.
+ * At most AP_LLM_QUEUE_MAX (default 256) calls wait, each for up to AP_LLM_QUEUE_TIMEOUT_MS
+ * (default 30000) before it is shed.
+ *
+ * The defaults suit interactive traffic. A batch run (Main --batch, 64 items in flight by
+ * default) starts only 4 model calls at a time and queues the rest; once that queue is
+ * deeper than the calls the limit can finish in 30 s, items are shed and reported as
+ * failed. For batch runs raise AP_LLM_QUEUE_TIMEOUT_MS (or AP_LLM_INITIAL_CONCURRENCY, if the
+ * quota allows), or pass a maxConcurrency close to AP_LLM_MAX_CONCURRENCY.
+ */
+public record AdmissionLimits(double ratePerSecond, int burst, int initialConcurrency, int minConcurrency,
+                              int maxConcurrency, Duration latencyTarget, int maxQueue, Duration queueTimeout) {
+
+    public static AdmissionLimits fromEnvironment() {
+        return new AdmissionLimits(
+                Double.parseDouble(ModelRegistrations.env("AP_LLM_RATE_PER_SECOND", "10")),
+                intEnv("AP_LLM_BURST", 10),
+                intEnv("AP_LLM_INITIAL_CONCURRENCY", 4),
+                intEnv("AP_LLM_MIN_CONCURRENCY", 1),
+                intEnv("AP_LLM_MAX_CONCURRENCY", 16),
+                Duration.ofMillis(intEnv("AP_LLM_LATENCY_TARGET_MS", 15_000)),
+                intEnv("AP_LLM_QUEUE_MAX", 256),
+                Duration.ofMillis(intEnv("AP_LLM_QUEUE_TIMEOUT_MS", 30_000)));
+    }
+
+    public AdmissionLimiter newLimiter(String model) {
+        return new AdmissionLimiter(model, ratePerSecond, burst, initialConcurrency, minConcurrency,
+                maxConcurrency, latencyTarget, maxQueue);
+    }
+
+    private static int intEnv(String name, int defaultValue) {
+        return Integer.parseInt(ModelRegistrations.env(name, String.valueOf(defaultValue)));
+    }
+}
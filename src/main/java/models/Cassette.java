@@ -0,0 +1,135 @@
+package models;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.adk.JsonBaseModel;
+import com.google.adk.models.LlmResponse;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recorded model exchanges, one JSON line per request:
+ *
+ *   {"key": "<request hash>", "model": "...", "responses": [{"content": {...}, "partial": false,
+ *    "turnComplete": true, "usageMetadata": {...}, ...}, ...]}
+ *
+ * responses holds every response the model streamed for that request, in order, each as
+ * the complete LlmResponse JSON, so replayed calls report the same usage metadata, finish
+ * reason, turn completion and error fields as the recorded ones. The file
+ * is append-only; when a key occurs more than once the last recording wins, so re-recording
+ * a changed prompt just appends.
+ */
+public final class Cassette implements AutoCloseable {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final Path file;
+    private final ConcurrentHashMap<String, List<LlmResponse>> exchanges = new ConcurrentHashMap<>();
+    private BufferedWriter writer;
+
+    private Cassette(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Loads every exchange in file (if it exists); record() appends to the same file.
+     */
+    public static Cassette open(Path file) {
+        Cassette cassette = new Cassette(file);
+        if (Files.exists(file)) {
+            try {
+                int lineNumber = 0;
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    lineNumber++;
+                    if (!line.isBlank()) {
+                        cassette.load(line, lineNumber);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to read model cassette " + file, e);
+            }
+        }
+        return cassette;
+    }
+
+    /**
+     * Recorded responses for the request key, or null if it was never recorded.
+     */
+    public List<LlmResponse> find(String key) {
+        return exchanges.get(key);
+    }
+
+    public int size() {
+        return exchanges.size();
+    }
+
+    public synchronized void record(String key, String model, List<LlmResponse> responses) {
+        ObjectNode entry = MAPPER.createObjectNode();
+        entry.put("key", key);
+        entry.put("model", model);
+        ArrayNode array = entry.putArray("responses");
+        for (LlmResponse response : responses) {
+            try {
+                array.add(MAPPER.readTree(response.toJson()));
+            } catch (IOException e) {
+                throw new IllegalStateException("Model response is not valid JSON", e);
+            }
+        }
+
+        try {
+            if (writer == null) {
+                Path parent = file.toAbsolutePath().getParent();
+                if (parent != null) {
+                    Files.createDirectories(parent);
+                }
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(MAPPER.writeValueAsString(entry));
+            writer.newLine();
+            // Flush per exchange so an interrupted recording session keeps what it captured.
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to model cassette " + file, e);
+        }
+        exchanges.put(key, List.copyOf(responses));
+    }
+
+    private void load(String line, int lineNumber) throws IOException {
+        JsonNode entry = MAPPER.readTree(line);
+        JsonNode key = entry.get("key");
+        JsonNode responses = entry.get("responses");
+        if (key == null || !key.isTextual() || responses == null || !responses.isArray()) {
+            throw new IllegalStateException("Malformed model cassette entry at " + file + ":" + lineNumber);
+        }
+        List<LlmResponse> loaded = new ArrayList<>();
+        for (JsonNode node : responses) {
+            // Entries recorded with only content and partial load the same way.
+            loaded.add(JsonBaseModel.fromJsonString(MAPPER.writeValueAsString(node), LlmResponse.class));
+        }
+        exchanges.put(key.asText(), List.copyOf(loaded));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to close model cassette " + file, e);
+            }
+            writer = null;
+        }
+    }
+}
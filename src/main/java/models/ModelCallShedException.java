@@ -0,0 +1,28 @@
+package models;
+
+/**
+ * A model call was refused by admission control instead of being sent to the provider.
+ */
+public final class ModelCallShedException extends RuntimeException {
+
+    public enum Reason { QUEUE_FULL, DEADLINE }
+
+    private final String model;
+    private final Reason reason;
+
+    public ModelCallShedException(String model, Reason reason) {
+        super("Model call to " + model + " shed: " + (reason == Reason.QUEUE_FULL
+                ? "admission queue is full"
+                : "no capacity before the queue deadline"));
+        this.model = model;
+        this.reason = reason;
+    }
+
+    public String model() {
+        return model;
+    }
+
+    public Reason reason() {
+        return reason;
+    }
+}
@@ -0,0 +1,115 @@
+package models;
+
+import com.google.adk.models.BaseLlm;
+import com.google.adk.models.Gemini;
+import com.google.adk.models.LlmRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Registers the models named in agent YAML: record/replay stand-ins when AP_LLM_MODE asks for
+ * them, and admission control in front of every model unless AP_LLM_ADMISSION is off.
+ *
+ * AP_LLM_MODE:
+ *   live    (default) the real Gemini models.
+ *   record  real Gemini calls, each exchange appended to AP_LLM_CASSETTE.
+ *   replay  responses served from AP_LLM_CASSETTE, offline, after AP_LLM_REPLAY_LATENCY_MS.
+ *
+ * AP_LLM_ADMISSION (on by default, except in replay) wraps each model in an
+ * AdmissionControlledLlm. There is one AdmissionLimiter per model name for the whole
+ * process, shared by every session and agent calling that model; see AdmissionLimits.
+ *
+ * Registration replaces ADK's factory for "gemini-.*" in LlmRegistry, so the YAML keeps
+ * naming gemini-2.5-flash. It must run before the first model call resolves a model.
+ */
+public final class ModelRegistrations {
+
+    public static final String DEFAULT_CASSETTE = "cassettes/llm-exchanges.jsonl";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ModelRegistrations.class);
+    private static final String GEMINI_PATTERN = "gemini-.*";
+
+    private static boolean registered;
+
+    private ModelRegistrations() {}
+
+    public static synchronized void registerFromEnvironment() {
+        if (registered) {
+            return;
+        }
+        registered = true;
+
+        RecordReplayLlm.Mode mode = mode();
+        Function<String, BaseLlm> factory = mode == null ? ModelRegistrations::gemini : recordReplay(mode);
+
+        AdmissionLimits limits = admissionEnabled(mode) ? AdmissionLimits.fromEnvironment() : null;
+        if (limits == null) {
+            if (mode != null) {
+                LlmRegistry.registerLlm(GEMINI_PATTERN, factory::apply);
+            }
+            return;
+        }
+
+        ConcurrentHashMap<String, AdmissionLimiter> limiters = new ConcurrentHashMap<>();
+        LlmRegistry.registerLlm(GEMINI_PATTERN, modelName -> new AdmissionControlledLlm(
+                factory.apply(modelName),
+                limiters.computeIfAbsent(modelName, limits::newLimiter),
+                limits.queueTimeout()));
+        LOG.info("Model admission control on: {}", limits);
+    }
+
+    private static BaseLlm gemini(String modelName) {
+        return Gemini.builder().modelName(modelName).build();
+    }
+
+    private static Function<String, BaseLlm> recordReplay(RecordReplayLlm.Mode mode) {
+        Path file = Path.of(env("AP_LLM_CASSETTE", DEFAULT_CASSETTE));
+        Duration latency = Duration.ofMillis(Long.parseLong(env("AP_LLM_REPLAY_LATENCY_MS", "0")));
+
+        Cassette cassette = Cassette.open(file);
+        Runtime.getRuntime().addShutdownHook(new Thread(cassette::close));
+
+        LOG.info("Model calls {} {} ({} recorded exchanges)",
+                mode == RecordReplayLlm.Mode.RECORD ? "recorded to" : "replayed from", file, cassette.size());
+        return modelName -> new RecordReplayLlm(
+                modelName,
+                mode,
+                cassette,
+                mode == RecordReplayLlm.Mode.RECORD ? gemini(modelName) : null,
+                latency);
+    }
+
+    private static boolean admissionEnabled(RecordReplayLlm.Mode mode) {
+        String value = env("AP_LLM_ADMISSION", mode == RecordReplayLlm.Mode.REPLAY ? "off" : "on")
+                .toLowerCase(Locale.ROOT);
+        return switch (value) {
+            case "on" -> true;
+            case "off" -> false;
+            default -> throw new IllegalStateException("Unknown AP_LLM_ADMISSION: " + value + " (expected on or off)");
+        };
+    }
+
+    /**
+     * The record/replay mode selected by AP_LLM_MODE, or null for live models.
+     */
+    public static RecordReplayLlm.Mode mode() {
+        String value = env("AP_LLM_MODE", "live").toLowerCase(Locale.ROOT);
+        return switch (value) {
+            case "live" -> null;
+            case "record" -> RecordReplayLlm.Mode.RECORD;
+            case "replay" -> RecordReplayLlm.Mode.REPLAY;
+            default -> throw new IllegalStateException("Unknown AP_LLM_MODE: " + value + " (expected live, record or replay)");
+        };
+    }
+
+    static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+}
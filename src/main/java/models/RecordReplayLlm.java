@@ -0,0 +1,99 @@
+package models;
+
+import cache.LlmResponseCachePlugin;
+import com.google.adk.models.BaseLlm;
+import com.google.adk.models.BaseLlmConnection;
+import com.google.adk.models.LlmRequest;
+import com.google.adk.models.LlmResponse;
+import io.reactivex.rxjava3.core.Flowable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stand-in model that records real model exchanges to a Cassette, or replays them offline.
+ *
+ * Requests are identified by the same content hash as the LLM response cache (model name,
+ * generation config including the system instruction and tool declarations, and every
+ * request content), so a replayed pipeline sees exactly the responses the recorded one got
+ * for byte-identical prompts.
+ *
+ * - RECORD: calls the delegate model and appends each successful exchange to the cassette.
+ * - REPLAY: serves the recorded responses after the configured synthetic latency and never
+ *   touches the network. An unrecorded request fails the call with IllegalStateException,
+ *   rather than silently returning something else.
+ *
+ * A streaming replay emits every recorded chunk; a non-streaming replay emits only the
+ * complete (non-partial) responses.
+ */
+public final class RecordReplayLlm extends BaseLlm {
+
+    public enum Mode { RECORD, REPLAY }
+
+    private final Mode mode;
+    private final Cassette cassette;
+    private final BaseLlm delegate;
+    private final Duration latency;
+
+    /**
+     * @param delegate the real model; required for RECORD, ignored for REPLAY
+     * @param latency  delay before the first replayed response (zero for none)
+     */
+    public RecordReplayLlm(String model, Mode mode, Cassette cassette, BaseLlm delegate, Duration latency) {
+        super(model);
+        this.mode = Objects.requireNonNull(mode, "mode");
+        this.cassette = Objects.requireNonNull(cassette, "cassette");
+        this.delegate = mode == Mode.RECORD ? Objects.requireNonNull(delegate, "delegate") : null;
+        this.latency = latency;
+    }
+
+    @Override
+    public Flowable<LlmResponse> generateContent(LlmRequest llmRequest, boolean stream) {
+        String key = LlmResponseCachePlugin.key(llmRequest);
+        return mode == Mode.REPLAY ? replay(key, stream) : record(key, llmRequest, stream);
+    }
+
+    private Flowable<LlmResponse> replay(String key, boolean stream) {
+        return Flowable.defer(() -> {
+            List<LlmResponse> recorded = cassette.find(key);
+            if (recorded == null) {
+                return Flowable.error(new IllegalStateException(
+                        "No recorded response for " + model() + " request " + key
+                                + "; record it with AP_LLM_MODE=record"));
+            }
+            Flowable<LlmResponse> responses = Flowable.fromIterable(recorded);
+            if (!stream) {
+                responses = responses.filter(r -> !r.partial().orElse(false));
+            }
+            return latency.isZero()
+                    ? responses
+                    : responses.delaySubscription(latency.toMillis(), TimeUnit.MILLISECONDS);
+        });
+    }
+
+    private Flowable<LlmResponse> record(String key, LlmRequest llmRequest, boolean stream) {
+        return Flowable.defer(() -> {
+            List<LlmResponse> captured = Collections.synchronizedList(new ArrayList<>());
+            return delegate.generateContent(llmRequest, stream)
+                    .doOnNext(captured::add)
+                    .doOnComplete(() -> {
+                        // Errors are not recorded: replay should fail loudly instead of repeating them.
+                        if (!captured.isEmpty() && captured.stream().noneMatch(r -> r.errorCode().isPresent())) {
+                            cassette.record(key, model(), captured);
+                        }
+                    });
+        });
+    }
+
+    @Override
+    public BaseLlmConnection connect(LlmRequest llmRequest) {
+        if (mode == Mode.REPLAY) {
+            throw new UnsupportedOperationException("Live connections cannot be replayed: " + model());
+        }
+        return delegate.connect(llmRequest);
+    }
+}
@@ -1,26 +1,238 @@
 package observability;
 
-import io.opentelemetry.api.GlobalOpenTelemetry;
+import io.opentelemetry.api.OpenTelemetry;
 import io.opentelemetry.api.metrics.Meter;
 import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongUpDownCounter;
 import io.opentelemetry.api.metrics.DoubleHistogram;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The application's metric instruments.
+ *
+ * Instruments are declared here but bound to a real Meter only by bind(OpenTelemetry),
+ * which OpenTelemetryBootstrap calls once the SDK is built. Until then they are no-ops.
+ * Loading this class early (a plugin or tool touching a metric during startup) therefore
+ * cannot pin the instruments to the no-op provider, and cannot make GlobalOpenTelemetry
+ * settle on a no-op before the bootstrap registers the SDK.
+ */
 public final class AgentMetrics {
-    private static final Meter METER =
-            GlobalOpenTelemetry.getMeter("your.org.adk.metrics");
+
+    static final String METER_NAME = "your.org.adk.metrics";
+
+    // Declared before the instruments, which add themselves during class initialization.
+    private static final List<DeferredInstrument> INSTRUMENTS = new ArrayList<>();
+    private static volatile boolean bound;
 
     public static final LongCounter AGENT_RUNS =
-            METER.counterBuilder("agent_runs_total")
-                    .setDescription("Number of ADK agent runs")
-                    .setUnit("1")
-                    .build();
+            counter("agent_runs_total",
+                    "Number of ADK agent runs",
+                    "1");
 
     public static final DoubleHistogram AGENT_LATENCY_MS =
-            METER.histogramBuilder("agent_run_latency_ms")
-                    .setDescription("Latency of ADK agent runs in ms")
-                    .setUnit("ms")
-                    .build();
+            histogram("agent_run_latency_ms",
+                    "Latency of ADK agent runs in ms",
+                    "ms");
+
+    public static final DoubleHistogram AGENT_TTFT_MS =
+            histogram("agent_time_to_first_token_ms",
+                    "Time from user message to the first reply text of an ADK agent run, in ms",
+                    "ms");
+
+    public static final LongCounter LLM_CALLS =
+            counter("llm_calls_total",
+                    "Model calls by agent, model and status (ok, error, shed); cache hits excluded",
+                    "1");
+
+    public static final DoubleHistogram LLM_LATENCY_MS =
+            histogram("llm_call_latency_ms",
+                    "Time from model request to complete response in ms, by agent, model and status",
+                    "ms");
+
+    public static final DoubleHistogram LLM_TIME_TO_FIRST_CHUNK_MS =
+            histogram("llm_time_to_first_chunk_ms",
+                    "Time from model request to its first response chunk in ms, by agent and model",
+                    "ms");
+
+    public static final LongCounter LLM_PROMPT_TOKENS =
+            counter("llm_prompt_tokens_total",
+                    "Prompt tokens reported in model usage metadata, by agent and model",
+                    "{token}");
+
+    public static final LongCounter LLM_CANDIDATE_TOKENS =
+            counter("llm_candidate_tokens_total",
+                    "Output (candidate) tokens reported in model usage metadata, by agent and model",
+                    "{token}");
+
+    public static final LongCounter LLM_TOTAL_TOKENS =
+            counter("llm_total_tokens_total",
+                    "Total tokens reported in model usage metadata, by agent and model",
+                    "{token}");
+
+    public static final LongCounter STAGE_RUNS =
+            counter("agent_stage_runs_total",
+                    "Runs of agents timed by the stageTiming callbacks, by agent, parent workflow and status",
+                    "1");
+
+    public static final DoubleHistogram STAGE_LATENCY_MS =
+            histogram("agent_stage_latency_ms",
+                    "Latency of individual agents (stages and workflows) in ms, by agent and parent workflow",
+                    "ms");
+
+    public static final LongCounter LLM_CACHE_HITS =
+            counter("llm_cache_hits_total",
+                    "Model calls answered from the LLM response cache",
+                    "1");
+
+    public static final LongCounter LLM_CACHE_MISSES =
+            counter("llm_cache_misses_total",
+                    "Model calls not found in the LLM response cache",
+                    "1");
+
+    public static final LongCounter TOOL_CALLS =
+            counter("tool_calls_total",
+                    "Tool calls by tool and outcome (ok, not_found, error)",
+                    "1");
+
+    public static final DoubleHistogram TOOL_LATENCY_MS =
+            histogram("tool_call_latency_ms",
+                    "Latency of tool calls in ms, by tool and outcome",
+                    "ms");
+
+    public static final LongCounter TOOL_ERRORS =
+            counter("tool_errors_total",
+                    "Failed tool calls by tool and kind (exception, status)",
+                    "1");
+
+    public static final DoubleHistogram TOOL_ARGS_BYTES =
+            histogram("tool_call_args_bytes",
+                    "Approximate JSON size of tool call arguments, by tool",
+                    "By");
+
+    public static final DoubleHistogram TOOL_RESPONSE_BYTES =
+            histogram("tool_call_response_bytes",
+                    "Approximate JSON size of tool responses, by tool",
+                    "By");
+
+    public static final LongCounter TOOL_CACHE_HITS =
+            counter("tool_cache_hits_total",
+                    "Tool calls answered from the tool result cache (shared_load: waited on an in-flight load)",
+                    "1");
+
+    public static final LongCounter TOOL_CACHE_MISSES =
+            counter("tool_cache_misses_total",
+                    "Tool calls that loaded from the underlying tool",
+                    "1");
+
+    public static final LongCounter TOOL_CACHE_LOAD_ERRORS =
+            counter("tool_cache_load_errors_total",
+                    "Tool loads that failed and were not cached",
+                    "1");
+
+    public static final LongCounter PREFETCH_REQUESTS =
+            counter("prefetch_requests_total",
+                    "Speculative tool loads started for guessed invoice IDs before intake completed",
+                    "1");
+
+    public static final LongCounter PREFETCH_ERRORS =
+            counter("prefetch_errors_total",
+                    "Speculative tool loads that failed, by tool",
+                    "1");
+
+    public static final LongCounter TRIAGE_COALESCING =
+            counter("triage_coalescing_total",
+                    "Coalescable triage requests by role (leader: ran the pipeline, follower: shared a leader's run)",
+                    "1");
+
+    public static final LongUpDownCounter LLM_ADMISSION_QUEUE_DEPTH =
+            upDownCounter("llm_admission_queue_depth",
+                    "Model calls waiting for an admission permit, by model",
+                    "1");
+
+    public static final DoubleHistogram LLM_ADMISSION_WAIT_MS =
+            histogram("llm_admission_wait_ms",
+                    "Time model calls waited for an admission permit (or until shed), in ms",
+                    "ms");
+
+    public static final LongCounter LLM_ADMISSION_SHED =
+            counter("llm_admission_shed_total",
+                    "Model calls refused by admission control, by model and reason (queue_full, deadline)",
+                    "1");
+
+    public static final LongUpDownCounter SESSIONS_LIVE =
+            upDownCounter("sessions_live",
+                    "Sessions currently held by the bounded session service",
+                    "1");
+
+    public static final LongUpDownCounter SESSION_LIVE_BYTES =
+            upDownCounter("session_live_bytes",
+                    "Approximate serialized size of retained session events",
+                    "By");
+
+    public static final LongCounter SESSIONS_EVICTED =
+            counter("sessions_evicted_total",
+                    "Sessions evicted by reason (capacity, idle)",
+                    "1");
+
+    public static final LongCounter SESSION_EVICTED_BYTES =
+            counter("session_evicted_bytes_total",
+                    "Approximate bytes released by session and event eviction, by reason",
+                    "By");
+
+    public static final LongCounter EVENT_JOURNAL_ERRORS =
+            counter("event_journal_errors_total",
+                    "Runner events that could not be written to the event journal",
+                    "1");
+
+    public static final LongCounter TRACES_TAIL_SAMPLED =
+            counter("traces_tail_sampled_total",
+                    "Traces decided by tail sampling, by decision (error, slow, baseline, dropped, incomplete)",
+                    "1");
+
+    public static final LongCounter TRACE_SPANS_DROPPED =
+            counter("trace_spans_dropped_total",
+                    "Spans tail sampling could not buffer, by reason (buffer_full, trace_full)",
+                    "1");
+
+    public static final LongCounter METRICS_DROPPED =
+            counter("metrics_dropped_total",
+                    "Measurements dropped because the asynchronous metrics buffer was full",
+                    "1");
 
     private AgentMetrics() {}
 
+    /**
+     * Binds every instrument to a Meter of openTelemetry. Measurements recorded before this
+     * call are dropped; binding again switches all instruments to the new provider.
+     */
+    public static synchronized void bind(OpenTelemetry openTelemetry) {
+        Meter meter = openTelemetry.getMeter(METER_NAME);
+        for (DeferredInstrument instrument : INSTRUMENTS) {
+            instrument.bind(meter);
+        }
+        bound = true;
+    }
+
+    public static boolean isBound() {
+        return bound;
+    }
+
+    private static LongCounter counter(String name, String description, String unit) {
+        return register(new DeferredInstrument.Counter(name, description, unit));
+    }
+
+    private static DoubleHistogram histogram(String name, String description, String unit) {
+        return register(new DeferredInstrument.Histogram(name, description, unit));
+    }
+
+    private static LongUpDownCounter upDownCounter(String name, String description, String unit) {
+        return register(new DeferredInstrument.UpDownCounter(name, description, unit));
+    }
+
+    private static <T extends DeferredInstrument> T register(T instrument) {
+        INSTRUMENTS.add(instrument);
+        return instrument;
+    }
 }
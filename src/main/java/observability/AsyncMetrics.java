@@ -0,0 +1,121 @@
+package observability;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Records measurements off the caller's thread.
+ *
+ * add / record put the measurement in a MetricsRingBuffer and return; a daemon thread
+ * drains the buffer into the instruments. With pre-built Attributes, recording allocates
+ * nothing on the caller's thread and never blocks it: when the buffer is full the
+ * measurement is dropped and counted in metrics_dropped_total.
+ *
+ * The drainer parks for 1 ms between empty polls. After IDLE_POLLS_BEFORE_SLEEP empty polls
+ * in a row it sleeps up to MAX_IDLE_PARK_NANOS instead, and the next add / record wakes it,
+ * so an idle process does not wake a thread every millisecond.
+ *
+ * AP_METRICS_BUFFER_SIZE sets the capacity (default 8192, rounded up to a power of two).
+ */
+public final class AsyncMetrics {
+
+    static final int DEFAULT_CAPACITY = 8192;
+
+    private static final Logger LOG = LoggerFactory.getLogger(AsyncMetrics.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long MAX_IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+    private static final int IDLE_POLLS_BEFORE_SLEEP = 50;
+    private static final long FLUSH_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(2);
+
+    private static final MetricsRingBuffer<Object, Attributes> BUFFER = new MetricsRingBuffer<>(capacity());
+    private static final MetricsRingBuffer.Sink<Object, Attributes> SINK = AsyncMetrics::apply;
+    private static final Thread DRAINER = new Thread(AsyncMetrics::drainLoop, "metrics-drainer");
+    // Set while the drainer sleeps for longer than IDLE_PARK_NANOS; producers then wake it.
+    private static volatile boolean drainerSleeping;
+
+    static {
+        DRAINER.setDaemon(true);
+        DRAINER.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(AsyncMetrics::flush, "metrics-flush"));
+    }
+
+    private AsyncMetrics() {}
+
+    public static void add(LongCounter counter, long value, Attributes attributes) {
+        if (BUFFER.offer(counter, value, attributes) && drainerSleeping) {
+            LockSupport.unpark(DRAINER);
+        }
+    }
+
+    public static void record(DoubleHistogram histogram, double value, Attributes attributes) {
+        if (BUFFER.offer(histogram, value, attributes) && drainerSleeping) {
+            LockSupport.unpark(DRAINER);
+        }
+    }
+
+    /**
+     * Waits (up to two seconds) until everything offered so far has been recorded.
+     */
+    public static void flush() {
+        long deadline = System.nanoTime() + FLUSH_TIMEOUT_NANOS;
+        while (BUFFER.size() > 0 && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(IDLE_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Measurements dropped because the buffer was full.
+     */
+    public static long dropped() {
+        return BUFFER.dropped();
+    }
+
+    private static void drainLoop() {
+        long reportedDrops = 0;
+        int idlePolls = 0;
+        while (true) {
+            try {
+                int drained = BUFFER.drain(SINK);
+                long drops = BUFFER.dropped();
+                if (drops != reportedDrops) {
+                    AgentMetrics.METRICS_DROPPED.add(drops - reportedDrops);
+                    reportedDrops = drops;
+                }
+                if (drained > 0) {
+                    idlePolls = 0;
+                } else if (++idlePolls < IDLE_POLLS_BEFORE_SLEEP) {
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                } else {
+                    drainerSleeping = true;
+                    // Re-check after announcing the sleep, so an offer made just before is not missed.
+                    if (BUFFER.size() == 0) {
+                        LockSupport.parkNanos(MAX_IDLE_PARK_NANOS);
+                    }
+                    drainerSleeping = false;
+                }
+            } catch (RuntimeException e) {
+                // A failing exporter must not stop metric recording.
+                LOG.warn("Failed to record a metric", e);
+            }
+        }
+    }
+
+    private static void apply(Object instrument, double value, Attributes attributes) {
+        if (instrument instanceof LongCounter counter) {
+            counter.add((long) value, attributes);
+        } else if (instrument instanceof DoubleHistogram histogram) {
+            histogram.record(value, attributes);
+        }
+    }
+
+    private static int capacity() {
+        String value = System.getenv("AP_METRICS_BUFFER_SIZE");
+        return value == null || value.isBlank() ? DEFAULT_CAPACITY : Integer.parseInt(value.trim());
+    }
+}
@@ -0,0 +1,117 @@
+package observability;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.api.metrics.LongUpDownCounter;
+import io.opentelemetry.api.metrics.Meter;
+import io.opentelemetry.api.metrics.MeterProvider;
+import io.opentelemetry.context.Context;
+
+/**
+ * Instrument whose real implementation is created when AgentMetrics.bind supplies a Meter.
+ * Before that, every call goes to the no-op provider's instrument.
+ */
+abstract class DeferredInstrument {
+
+    private static final Meter NOOP_METER = MeterProvider.noop().get(AgentMetrics.METER_NAME);
+
+    final String name;
+    final String description;
+    final String unit;
+
+    DeferredInstrument(String name, String description, String unit) {
+        this.name = name;
+        this.description = description;
+        this.unit = unit;
+    }
+
+    abstract void bind(Meter meter);
+
+    static final class Counter extends DeferredInstrument implements LongCounter {
+        private volatile LongCounter delegate;
+
+        Counter(String name, String description, String unit) {
+            super(name, description, unit);
+            bind(NOOP_METER);
+        }
+
+        @Override
+        void bind(Meter meter) {
+            delegate = meter.counterBuilder(name).setDescription(description).setUnit(unit).build();
+        }
+
+        @Override
+        public void add(long value) {
+            delegate.add(value);
+        }
+
+        @Override
+        public void add(long value, Attributes attributes) {
+            delegate.add(value, attributes);
+        }
+
+        @Override
+        public void add(long value, Attributes attributes, Context context) {
+            delegate.add(value, attributes, context);
+        }
+    }
+
+    static final class UpDownCounter extends DeferredInstrument implements LongUpDownCounter {
+        private volatile LongUpDownCounter delegate;
+
+        UpDownCounter(String name, String description, String unit) {
+            super(name, description, unit);
+            bind(NOOP_METER);
+        }
+
+        @Override
+        void bind(Meter meter) {
+            delegate = meter.upDownCounterBuilder(name).setDescription(description).setUnit(unit).build();
+        }
+
+        @Override
+        public void add(long value) {
+            delegate.add(value);
+        }
+
+        @Override
+        public void add(long value, Attributes attributes) {
+            delegate.add(value, attributes);
+        }
+
+        @Override
+        public void add(long value, Attributes attributes, Context context) {
+            delegate.add(value, attributes, context);
+        }
+    }
+
+    static final class Histogram extends DeferredInstrument implements DoubleHistogram {
+        private volatile DoubleHistogram delegate;
+
+        Histogram(String name, String description, String unit) {
+            super(name, description, unit);
+            bind(NOOP_METER);
+        }
+
+        @Override
+        void bind(Meter meter) {
+            delegate = meter.histogramBuilder(name).setDescription(description).setUnit(unit).build();
+        }
+
+        @Override
+        public void record(double value) {
+            delegate.record(value);
+        }
+
+        @Override
+        public void record(double value, Attributes attributes) {
+            delegate.record(value, attributes);
+        }
+
+        @Override
+        public void record(double value, Attributes attributes, Context context) {
+            delegate.record(value, attributes, context);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package observability;
+
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptTailer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+
+/**
+ * Prints, filters and tails an EventJournalPlugin journal.
+ *
+ * Usage:
+ *   java -cp target/minimal-agent-1.0-SNAPSHOT.jar \
+ *        observability.EventJournalCli \
+ *        [journalDir] \
+ *        [--session <id>] [--type <type>] [--author <name>] \
+ *        [--full] [--follow]
+ *
+ * journalDir defaults to logs/event-journal. --type takes one of function_call,
+ * function_response, partial_text, final_response, state_delta, text, other.
+ * Payloads are truncated to 200 characters unless --full is given. --follow keeps
+ * polling for new events like tail -f.
+ */
+public final class EventJournalCli {
+
+    private static final int PREVIEW_LENGTH = 200;
+    private static final long FOLLOW_POLL_MILLIS = 50;
+
+    private EventJournalCli() {}
+
+    public static void main(String[] args) throws InterruptedException {
+        Path dir = Path.of(EventJournalPlugin.DEFAULT_DIR);
+        String session = null;
+        String type = null;
+        String author = null;
+        boolean full = false;
+        boolean follow = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--session" -> session = requireValue(args, ++i, "--session");
+                case "--type" -> type = requireValue(args, ++i, "--type");
+                case "--author" -> author = requireValue(args, ++i, "--author");
+                case "--full" -> full = true;
+                case "--follow" -> follow = true;
+                default -> {
+                    if (args[i].startsWith("--")) {
+                        usage("Unknown option: " + args[i]);
+                    }
+                    dir = Path.of(args[i]);
+                }
+            }
+        }
+
+        if (!Files.isDirectory(dir)) {
+            usage("Journal directory not found: " + dir);
+        }
+
+        Filter filter = new Filter(session, type, author, full);
+
+        try (ChronicleQueue queue = ChronicleQueue.singleBuilder(dir.toFile()).readOnly(true).build()) {
+            ExcerptTailer tailer = queue.createTailer();
+            while (true) {
+                boolean read = tailer.readDocument(w -> {
+                    Record record = new Record(
+                            w.read("ts").int64(),
+                            w.read("type").text(),
+                            w.read("sessionId").text(),
+                            w.read("invocationId").text(),
+                            w.read("eventId").text(),
+                            w.read("author").text(),
+                            w.read("partial").bool(),
+                            w.read("final").bool(),
+                            w.read("text").text(),
+                            w.read("functionCalls").text(),
+                            w.read("functionResponses").text(),
+                            w.read("stateDelta").text());
+                    if (filter.matches(record)) {
+                        System.out.println(filter.format(record));
+                    }
+                });
+
+                if (!read) {
+                    if (!follow) {
+                        break;
+                    }
+                    Thread.sleep(FOLLOW_POLL_MILLIS);
+                }
+            }
+        }
+    }
+
+    private static String requireValue(String[] args, int index, String option) {
+        if (index >= args.length) {
+            usage("Missing value for " + option);
+        }
+        return args[index];
+    }
+
+    private static void usage(String error) {
+        System.err.println(error);
+        System.err.println("Usage: EventJournalCli [journalDir] [--session <id>] [--type <type>] "
+                + "[--author <name>] [--full] [--follow]");
+        System.exit(1);
+    }
+
+    private record Record(
+            long ts,
+            String type,
+            String sessionId,
+            String invocationId,
+            String eventId,
+            String author,
+            boolean partial,
+            boolean finalResponse,
+            String text,
+            String functionCalls,
+            String functionResponses,
+            String stateDelta
+    ) {}
+
+    private record Filter(String session, String type, String author, boolean full) {
+
+        boolean matches(Record r) {
+            return (session == null || session.equals(r.sessionId()))
+                    && (type == null || type.equals(r.type()))
+                    && (author == null || author.equals(r.author()));
+        }
+
+        String format(Record r) {
+            StringBuilder sb = new StringBuilder()
+                    .append(Instant.ofEpochMilli(r.ts()))
+                    .append(' ').append(r.type())
+                    .append(" session=").append(r.sessionId())
+                    .append(" invocation=").append(r.invocationId())
+                    .append(" author=").append(r.author());
+            appendField(sb, "text", r.text());
+            appendField(sb, "calls", r.functionCalls());
+            appendField(sb, "responses", r.functionResponses());
+            appendField(sb, "stateDelta", r.stateDelta());
+            return sb.toString();
+        }
+
+        private void appendField(StringBuilder sb, String name, String value) {
+            if (value == null || value.isEmpty()) {
+                return;
+            }
+            String shown = full || value.length() <= PREVIEW_LENGTH
+                    ? value
+                    : value.substring(0, PREVIEW_LENGTH) + "...";
+            sb.append(' ').append(name).append('=').append(shown.replace('\n', ' '));
+        }
+    }
+}
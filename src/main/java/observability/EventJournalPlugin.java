@@ -0,0 +1,195 @@
+package observability;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.adk.agents.InvocationContext;
+import com.google.adk.events.Event;
+import com.google.adk.plugins.BasePlugin;
+import com.google.genai.types.FunctionCall;
+import com.google.genai.types.FunctionResponse;
+import com.google.genai.types.Part;
+import helpers.ChronicleWriter;
+import io.reactivex.rxjava3.core.Maybe;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * ADK plugin that appends every runner Event to a memory-mapped Chronicle Queue journal.
+ *
+ * Replaces text logging of full LLM payloads: each event becomes one binary excerpt with
+ * a small envelope (timestamp, type, session, invocation, author) plus, when present,
+ * text, function calls, function responses and the state delta. Nested payloads are
+ * stored as compact JSON strings inside the binary document.
+ *
+ * The excerpt is built on the caller's thread and written by a single ChronicleWriter
+ * thread, the queue's only appender. If JOURNAL_CAPACITY writes are already pending the
+ * event is not journaled; like a failed write it is counted in event_journal_errors_total.
+ *
+ * Read the journal with observability.EventJournalCli.
+ */
+public final class EventJournalPlugin extends BasePlugin implements AutoCloseable {
+
+    public static final String DEFAULT_DIR = "logs/event-journal";
+
+    // Record types, in order of precedence when an event carries several payloads.
+    public static final String TYPE_FUNCTION_CALL = "function_call";
+    public static final String TYPE_FUNCTION_RESPONSE = "function_response";
+    public static final String TYPE_PARTIAL_TEXT = "partial_text";
+    public static final String TYPE_FINAL_RESPONSE = "final_response";
+    public static final String TYPE_STATE_DELTA = "state_delta";
+    public static final String TYPE_TEXT = "text";
+    public static final String TYPE_OTHER = "other";
+
+    private static final Logger LOG = LoggerFactory.getLogger(EventJournalPlugin.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int JOURNAL_CAPACITY = 8_192;
+
+    private final ChronicleQueue queue;
+    private final ChronicleWriter writer;
+
+    public EventJournalPlugin(Path directory) {
+        super("event_journal");
+        this.queue = ChronicleQueue.singleBuilder(directory.toFile()).build();
+        this.writer = new ChronicleWriter(queue, "event-journal-writer", JOURNAL_CAPACITY);
+    }
+
+    /**
+     * Journal in AP_EVENT_JOURNAL_DIR, or logs/event-journal if unset.
+     */
+    public static EventJournalPlugin fromEnvironment() {
+        String dir = System.getenv("AP_EVENT_JOURNAL_DIR");
+        return new EventJournalPlugin(Path.of(dir == null || dir.isBlank() ? DEFAULT_DIR : dir.trim()));
+    }
+
+    @Override
+    public Maybe<Event> onEventCallback(InvocationContext invocationContext, Event event) {
+        try {
+            append(invocationContext.session().id(), event);
+        } catch (RuntimeException e) {
+            // Journaling must never fail a user turn, but lost events must be visible.
+            AgentMetrics.EVENT_JOURNAL_ERRORS.add(1);
+            LOG.warn("Failed to journal event {}", event.id(), e);
+        }
+        return Maybe.empty();
+    }
+
+    private void append(String sessionId, Event event) {
+        if (queue.isClosed()) {
+            return;
+        }
+        List<Map<String, Object>> calls = functionCalls(event);
+        List<Map<String, Object>> responses = functionResponses(event);
+        String text = text(event);
+        boolean partial = event.partial().orElse(false);
+        boolean finalResponse = event.finalResponse();
+        Map<String, Object> stateDelta = event.actions() != null ? event.actions().stateDelta() : null;
+        boolean hasStateDelta = stateDelta != null && !stateDelta.isEmpty();
+
+        String type = !calls.isEmpty() ? TYPE_FUNCTION_CALL
+                : !responses.isEmpty() ? TYPE_FUNCTION_RESPONSE
+                : partial && text != null ? TYPE_PARTIAL_TEXT
+                : finalResponse ? TYPE_FINAL_RESPONSE
+                : hasStateDelta ? TYPE_STATE_DELTA
+                : text != null ? TYPE_TEXT
+                : TYPE_OTHER;
+
+        String callsJson = calls.isEmpty() ? null : toJson(calls);
+        String responsesJson = responses.isEmpty() ? null : toJson(responses);
+        String stateDeltaJson = hasStateDelta ? toJson(stateDelta) : null;
+        long ts = event.timestamp();
+        String invocationId = event.invocationId();
+        String eventId = event.id();
+        String author = event.author();
+
+        CompletableFuture<Long> written = writer.tryAppend(w -> w
+                .write("ts").int64(ts)
+                .write("type").text(type)
+                .write("sessionId").text(sessionId)
+                .write("invocationId").text(invocationId)
+                .write("eventId").text(eventId)
+                .write("author").text(author)
+                .write("partial").bool(partial)
+                .write("final").bool(finalResponse)
+                .write("text").text(text)
+                .write("functionCalls").text(callsJson)
+                .write("functionResponses").text(responsesJson)
+                .write("stateDelta").text(stateDeltaJson));
+        if (written == null) {
+            AgentMetrics.EVENT_JOURNAL_ERRORS.add(1);
+            LOG.debug("Journal writer is behind; event {} not journaled", eventId);
+            return;
+        }
+        written.whenComplete((index, error) -> {
+            if (error != null) {
+                AgentMetrics.EVENT_JOURNAL_ERRORS.add(1);
+                LOG.warn("Failed to journal event {}", eventId, error);
+            }
+        });
+    }
+
+    private static List<Map<String, Object>> functionCalls(Event event) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (FunctionCall call : event.functionCalls()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", call.name().orElse(null));
+            entry.put("args", call.args().orElse(Map.of()));
+            result.add(entry);
+        }
+        return result;
+    }
+
+    private static List<Map<String, Object>> functionResponses(Event event) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (FunctionResponse response : event.functionResponses()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", response.name().orElse(null));
+            entry.put("response", response.response().orElse(Map.of()));
+            result.add(entry);
+        }
+        return result;
+    }
+
+    // Concatenated text parts, or null when the event has no text.
+    private static String text(Event event) {
+        StringBuilder sb = null;
+        if (event.content().isPresent() && event.content().get().parts().isPresent()) {
+            for (Part part : event.content().get().parts().get()) {
+                if (part.text().isPresent()) {
+                    if (sb == null) {
+                        sb = new StringBuilder();
+                    }
+                    sb.append(part.text().get());
+                }
+            }
+        }
+        return sb == null ? null : sb.toString();
+    }
+
+    private static String toJson(Object value) {
+        try {
+            return MAPPER.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            return String.valueOf(value);
+        }
+    }
+
+    /**
+     * Writes the pending events and closes the journal; AppOrchestrator calls this from a
+     * shutdown hook. Events arriving afterwards are not journaled.
+     */
+    @Override
+    public void close() {
+        writer.close();
+        if (!queue.isClosed()) {
+            queue.close();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package observability;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Approximate serialized sizes of tool payloads and session events, computed by walking
+ * them instead of encoding them, so measuring every call costs no allocation of the JSON text.
+ */
+public final class JsonSizes {
+
+    private JsonSizes() {}
+
+    /**
+     * Length of the compact JSON encoding of value (maps, collections, arrays, strings and
+     * scalars). Strings are counted in chars without escapes, so the result is a close lower
+     * bound for typical payloads.
+     */
+    public static long approximate(Object value) {
+        if (value == null) {
+            return 4;
+        }
+        if (value instanceof CharSequence s) {
+            return s.length() + 2L;
+        }
+        if (value instanceof Map<?, ?> map) {
+            long size = 2 + Math.max(0, map.size() - 1);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                size += String.valueOf(entry.getKey()).length() + 3L + approximate(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof Collection<?> list) {
+            long size = 2 + Math.max(0, list.size() - 1);
+            for (Object element : list) {
+                size += approximate(element);
+            }
+            return size;
+        }
+        if (value instanceof Object[] array) {
+            return approximate(Arrays.asList(array));
+        }
+        return String.valueOf(value).length();
+    }
+}
@@ -0,0 +1,113 @@
+package observability;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bounded, lock-free multi-producer / single-consumer queue of metric measurements.
+ *
+ * Each slot holds a target (the instrument), a value and an attribute set, stored in
+ * preallocated parallel arrays, so offering a measurement allocates nothing. Producers
+ * claim a sequence number with a CAS and publish the slot with a release store; the single
+ * consumer reads published slots in order and frees them. When the buffer is full, offer
+ * drops the measurement and counts it instead of blocking the caller.
+ *
+ * @param <T> instrument type
+ * @param <A> attribute set type
+ */
+final class MetricsRingBuffer<T, A> {
+
+    /**
+     * Receives drained measurements, on the consumer thread.
+     */
+    interface Sink<T, A> {
+        void accept(T target, double value, A attributes);
+    }
+
+    static final int MAX_CAPACITY = 1 << 24;
+
+    private final int capacity;
+    private final int mask;
+    private final Object[] targets;
+    private final double[] values;
+    private final Object[] attributes;
+    // Slot i holds sequence s once published[i] == s + 1.
+    private final AtomicLongArray published;
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    // Next sequence to consume; written only by the consumer.
+    private volatile long consumed;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    MetricsRingBuffer(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity must be between 1 and " + MAX_CAPACITY + ": " + capacity);
+        }
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.targets = new Object[this.capacity];
+        this.values = new double[this.capacity];
+        this.attributes = new Object[this.capacity];
+        this.published = new AtomicLongArray(this.capacity);
+    }
+
+    /**
+     * Enqueues one measurement; false (and counted as dropped) when the buffer is full.
+     */
+    boolean offer(T target, double value, A attrs) {
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - consumed >= capacity) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!claimed.compareAndSet(seq, seq + 1));
+
+        int slot = (int) seq & mask;
+        targets[slot] = target;
+        values[slot] = value;
+        attributes[slot] = attrs;
+        published.lazySet(slot, seq + 1);
+        return true;
+    }
+
+    /**
+     * Hands every published measurement to sink, in order. Consumer thread only.
+     *
+     * @return the number of measurements drained
+     */
+    @SuppressWarnings("unchecked")
+    int drain(Sink<T, A> sink) {
+        long seq = consumed;
+        int drained = 0;
+        while (true) {
+            int slot = (int) seq & mask;
+            if (published.get(slot) != seq + 1) {
+                return drained;
+            }
+            T target = (T) targets[slot];
+            double value = values[slot];
+            A attrs = (A) attributes[slot];
+            targets[slot] = null;
+            attributes[slot] = null;
+            consumed = ++seq;
+            drained++;
+            sink.accept(target, value, attrs);
+        }
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    long dropped() {
+        return dropped.get();
+    }
+
+    int size() {
+        return (int) (claimed.get() - consumed);
+    }
+}
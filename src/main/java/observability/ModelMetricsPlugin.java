@@ -0,0 +1,167 @@
+package observability;
+
+import com.google.adk.agents.CallbackContext;
+import com.google.adk.models.LlmRequest;
+import com.google.adk.models.LlmResponse;
+import com.google.adk.plugins.BasePlugin;
+import com.google.genai.types.GenerateContentResponseUsageMetadata;
+import io.opentelemetry.api.common.Attributes;
+import io.reactivex.rxjava3.core.Maybe;
+import models.AdmissionGrants;
+import models.ModelCallShedException;
+
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+/**
+ * ADK plugin that records token usage and latency of every model call, by agent and model.
+ *
+ * - llm_calls_total and llm_call_latency_ms: one per call, until the complete (non-partial)
+ *   response or the error, by status (ok, error). Calls refused by admission control never
+ *   reached the model: they are counted with status shed and no latency.
+ * - llm_time_to_first_chunk_ms: until the first response of the call, partial or not.
+ *
+ * Both latencies are service times: they start when models.AdmissionControlledLlm granted
+ * the call, which it records in models.AdmissionGrants against the response or error, so
+ * the time queued for admission stays in llm_admission_wait_ms only. Calls that did not go
+ * through admission control are timed from the request.
+ * - llm_prompt_tokens_total, llm_candidate_tokens_total, llm_total_tokens_total: summed from
+ *   the usage metadata of complete responses.
+ *
+ * Register it after LlmResponseCachePlugin: calls answered from the cache never reach the
+ * model and are not counted here (llm_cache_hits_total counts them).
+ */
+public final class ModelMetricsPlugin extends BasePlugin {
+
+    static final long STALE_AFTER_NANOS = TimeUnit.MINUTES.toNanos(10);
+    static final int SWEEP_THRESHOLD = 1_000;
+
+    private static final String UNKNOWN_MODEL = "unknown";
+
+    // invocation/agent -> call in flight; abandoned calls are swept once stale.
+    private final ConcurrentHashMap<String, PendingCall> pending = new ConcurrentHashMap<>();
+
+    public ModelMetricsPlugin() {
+        super("model_metrics");
+    }
+
+    /**
+     * The plugin unless AP_MODEL_METRICS is "off".
+     */
+    public static Optional<ModelMetricsPlugin> fromEnvironment() {
+        String value = System.getenv("AP_MODEL_METRICS");
+        return value != null && "off".equalsIgnoreCase(value.trim())
+                ? Optional.empty()
+                : Optional.of(new ModelMetricsPlugin());
+    }
+
+    @Override
+    public Maybe<LlmResponse> beforeModelCallback(CallbackContext callbackContext, LlmRequest.Builder llmRequest) {
+        long now = System.nanoTime();
+        if (pending.size() >= SWEEP_THRESHOLD) {
+            pending.values().removeIf(call -> now - call.startNanos > STALE_AFTER_NANOS);
+        }
+        String model = llmRequest.build().model().orElse(UNKNOWN_MODEL);
+        pending.put(callKey(callbackContext), new PendingCall(callbackContext.agentName(), model, now));
+        return Maybe.empty();
+    }
+
+    @Override
+    public Maybe<LlmResponse> afterModelCallback(CallbackContext callbackContext, LlmResponse llmResponse) {
+        // Taken for every response, so none is left behind.
+        OptionalLong granted = AdmissionGrants.take(llmResponse);
+        String key = callKey(callbackContext);
+        PendingCall call = pending.get(key);
+        if (call == null) {
+            return Maybe.empty();
+        }
+        long now = System.nanoTime();
+        if (!call.firstChunkSeen) {
+            call.firstChunkSeen = true;
+            granted.ifPresent(call::admittedAt);
+            AgentMetrics.LLM_TIME_TO_FIRST_CHUNK_MS.record(millis(call.serviceNanos(now)), call.attributes);
+        }
+        if (llmResponse.partial().orElse(false)) {
+            return Maybe.empty();
+        }
+
+        pending.remove(key, call);
+        Attributes status = call.withStatus(llmResponse.errorCode().isPresent() ? "error" : "ok");
+        AgentMetrics.LLM_CALLS.add(1, status);
+        AgentMetrics.LLM_LATENCY_MS.record(millis(call.serviceNanos(now)), status);
+        llmResponse.usageMetadata().ifPresent(usage -> recordUsage(usage, call.attributes));
+        return Maybe.empty();
+    }
+
+    @Override
+    public Maybe<LlmResponse> onModelErrorCallback(CallbackContext callbackContext, LlmRequest.Builder llmRequest,
+                                                   Throwable error) {
+        OptionalLong granted = AdmissionGrants.take(error);
+        PendingCall call = pending.remove(callKey(callbackContext));
+        if (call == null) {
+            return Maybe.empty();
+        }
+        if (error instanceof ModelCallShedException) {
+            AgentMetrics.LLM_CALLS.add(1, call.withStatus("shed"));
+            return Maybe.empty();
+        }
+        if (!call.firstChunkSeen) {
+            granted.ifPresent(call::admittedAt);
+        }
+        Attributes status = call.withStatus("error");
+        AgentMetrics.LLM_CALLS.add(1, status);
+        AgentMetrics.LLM_LATENCY_MS.record(millis(call.serviceNanos(System.nanoTime())), status);
+        return Maybe.empty();
+    }
+
+    private static void recordUsage(GenerateContentResponseUsageMetadata usage, Attributes attributes) {
+        usage.promptTokenCount().ifPresent(n -> AgentMetrics.LLM_PROMPT_TOKENS.add(n, attributes));
+        usage.candidatesTokenCount().ifPresent(n -> AgentMetrics.LLM_CANDIDATE_TOKENS.add(n, attributes));
+        usage.totalTokenCount().ifPresent(n -> AgentMetrics.LLM_TOTAL_TOKENS.add(n, attributes));
+    }
+
+    // Parallel sub-agents share an invocation, so the agent name is part of the call identity.
+    private static String callKey(CallbackContext callbackContext) {
+        return callbackContext.invocationId() + "/" + callbackContext.agentName();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    private static final class PendingCall {
+        final String agentName;
+        final String model;
+        final long startNanos;
+        final Attributes attributes;
+        // Only the thread delivering this call's responses touches these.
+        boolean firstChunkSeen;
+        long serviceStartNanos;
+
+        PendingCall(String agentName, String model, long startNanos) {
+            this.agentName = agentName;
+            this.model = model;
+            this.startNanos = startNanos;
+            this.serviceStartNanos = startNanos;
+            this.attributes = Attributes.of(stringKey("agent.name"), agentName, stringKey("model"), model);
+        }
+
+        void admittedAt(long grantedNanos) {
+            serviceStartNanos = Math.max(startNanos, grantedNanos);
+        }
+
+        // Time since the call was admitted, or since the request without admission control.
+        long serviceNanos(long nowNanos) {
+            return Math.max(0, nowNanos - serviceStartNanos);
+        }
+
+        Attributes withStatus(String status) {
+            return Attributes.of(stringKey("agent.name"), agentName, stringKey("model"), model,
+                    stringKey("status"), status);
+        }
+    }
+}
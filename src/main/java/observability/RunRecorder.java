@@ -3,16 +3,61 @@ package observability;
 import static io.opentelemetry.api.common.AttributeKey.stringKey;
 import io.opentelemetry.api.common.Attributes;
 
-// Records metrics in the SDK
+import java.util.concurrent.ConcurrentHashMap;
+
+// Records metrics in the SDK, asynchronously and without allocating per call: attribute
+// sets are built once per (agent, status) and measurements go through AsyncMetrics.
 public class RunRecorder {
 
+    private static final ConcurrentHashMap<String, AgentAttributes> AGENTS = new ConcurrentHashMap<>();
+
     public void recordAgentRun(String agentName, long latencyMs, String status){
-        Attributes attrs = Attributes.of(
-                stringKey("agent.name"), agentName,
-                stringKey("status"), status // ok or error
-        );
+        Attributes attrs = agent(agentName).withStatus(status); // status: ok or error
+
+        AsyncMetrics.add(AgentMetrics.AGENT_RUNS, 1, attrs);
+        AsyncMetrics.record(AgentMetrics.AGENT_LATENCY_MS, (double)latencyMs, attrs);
+    }
+
+    // Time until the first reply text reached the user; recorded once per run that produced any.
+    public void recordTimeToFirstToken(String agentName, long ttftMs){
+        Attributes attrs = agent(agentName).agentOnly;
+
+        AsyncMetrics.record(AgentMetrics.AGENT_TTFT_MS, (double)ttftMs, attrs);
+    }
+
+    private static AgentAttributes agent(String agentName) {
+        AgentAttributes attrs = AGENTS.get(agentName);
+        return attrs != null ? attrs : AGENTS.computeIfAbsent(agentName, AgentAttributes::new);
+    }
+
+    private static final class AgentAttributes {
+        final String agentName;
+        final Attributes agentOnly;
+        final Attributes ok;
+        final Attributes error;
+        // Statuses other than ok and error, built on first use.
+        final ConcurrentHashMap<String, Attributes> others = new ConcurrentHashMap<>();
+
+        AgentAttributes(String agentName) {
+            this.agentName = agentName;
+            this.agentOnly = Attributes.of(stringKey("agent.name"), agentName);
+            this.ok = statusAttributes("ok");
+            this.error = statusAttributes("error");
+        }
+
+        Attributes withStatus(String status) {
+            if ("ok".equals(status)) {
+                return ok;
+            }
+            if ("error".equals(status)) {
+                return error;
+            }
+            Attributes attrs = others.get(status);
+            return attrs != null ? attrs : others.computeIfAbsent(status, this::statusAttributes);
+        }
 
-        AgentMetrics.AGENT_RUNS.add(1, attrs);
-        AgentMetrics.AGENT_LATENCY_MS.record((double)latencyMs, attrs);
+        private Attributes statusAttributes(String status) {
+            return Attributes.of(stringKey("agent.name"), agentName, stringKey("status"), status);
+        }
     }
 }
@@ -0,0 +1,127 @@
+package observability;
+
+import com.google.adk.agents.BaseAgent;
+import com.google.adk.agents.Callbacks;
+import io.opentelemetry.api.common.Attributes;
+import io.reactivex.rxjava3.core.Maybe;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+/**
+ * Before/after agent callbacks that time each agent they are attached to.
+ *
+ * Listed in config/component-index.properties as stageTiming.before and stageTiming.after,
+ * so any agent YAML can reference them: beforeAgentCallbacks / afterAgentCallbacks for the
+ * workflow wrappers and stage agents, before_agent_callbacks / after_agent_callbacks for
+ * LlmAgents. Each completed run records agent_stage_latency_ms and agent_stage_runs_total
+ * with the agent name and its parent workflow (see indexParents).
+ *
+ * A run that fails never reaches its after callback. A background sweep, every
+ * SWEEP_INTERVAL, drops start times older than STALE_AFTER and counts them with status
+ * "incomplete", so failed runs neither pile up nor wait for traffic to be reported.
+ */
+public final class StageTimingCallbacks {
+
+    public static final String BEFORE = "stageTiming.before";
+    public static final String AFTER = "stageTiming.after";
+
+    static final String NO_PARENT = "none";
+    static final long STALE_AFTER_NANOS = TimeUnit.MINUTES.toNanos(10);
+    static final long SWEEP_INTERVAL_SECONDS = 60;
+
+    // invocationId + KEY_SEPARATOR + agent name -> start nanos
+    private static final ConcurrentHashMap<String, Long> STARTED = new ConcurrentHashMap<>();
+    // agent name -> parent agent name, filled by indexParents
+    private static final ConcurrentHashMap<String, String> PARENTS = new ConcurrentHashMap<>();
+    private static final String KEY_SEPARATOR = "\u001f";
+
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "stage-timing-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        SWEEPER.scheduleWithFixedDelay(() -> sweep(System.nanoTime()),
+                SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private StageTimingCallbacks() {}
+
+    public static Callbacks.BeforeAgentCallback before() {
+        return ctx -> {
+            start(ctx.invocationId(), ctx.agentName(), System.nanoTime());
+            return Maybe.empty();
+        };
+    }
+
+    public static Callbacks.AfterAgentCallback after() {
+        return ctx -> {
+            String agent = ctx.agentName();
+            long elapsedNanos = finish(ctx.invocationId(), agent, System.nanoTime());
+            if (elapsedNanos >= 0) {
+                Attributes attrs = attributes(agent, "ok");
+                AgentMetrics.STAGE_RUNS.add(1, attrs);
+                AgentMetrics.STAGE_LATENCY_MS.record(elapsedNanos / 1_000_000.0, attrs);
+            }
+            return Maybe.empty();
+        };
+    }
+
+    /**
+     * Remembers the parent of every agent under root, for the workflow attribute. Callbacks
+     * only see the agent's name, so call this once the agent tree is built.
+     */
+    public static void indexParents(BaseAgent root) {
+        PARENTS.putIfAbsent(root.name(), NO_PARENT);
+        for (BaseAgent child : root.subAgents()) {
+            PARENTS.put(child.name(), root.name());
+            indexParents(child);
+        }
+    }
+
+    static void start(String invocationId, String agent, long nowNanos) {
+        STARTED.put(key(invocationId, agent), nowNanos);
+    }
+
+    // Elapsed nanos since the matching start, or -1 if there was none.
+    static long finish(String invocationId, String agent, long nowNanos) {
+        Long startNanos = STARTED.remove(key(invocationId, agent));
+        return startNanos == null ? -1 : nowNanos - startNanos;
+    }
+
+    static String parent(String agent) {
+        return PARENTS.getOrDefault(agent, NO_PARENT);
+    }
+
+    static int openCount() {
+        return STARTED.size();
+    }
+
+    static void sweep(long nowNanos) {
+        for (Map.Entry<String, Long> entry : STARTED.entrySet()) {
+            if (nowNanos - entry.getValue() > STALE_AFTER_NANOS && STARTED.remove(entry.getKey(), entry.getValue())) {
+                String key = entry.getKey();
+                String agent = key.substring(key.indexOf(KEY_SEPARATOR) + 1);
+                AgentMetrics.STAGE_RUNS.add(1, attributes(agent, "incomplete"));
+            }
+        }
+    }
+
+    private static Attributes attributes(String agent, String status) {
+        return Attributes.of(
+                stringKey("agent.name"), agent,
+                stringKey("workflow"), parent(agent),
+                stringKey("status"), status);
+    }
+
+    private static String key(String invocationId, String agent) {
+        return invocationId + KEY_SEPARATOR + agent;
+    }
+}
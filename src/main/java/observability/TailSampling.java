@@ -0,0 +1,44 @@
+package observability;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Tail sampling settings for TailSamplingSpanProcessor, read from the environment.
+ *
+ * Traces with an error, or whose root span took at least AP_TRACE_SLOW_MS (default 20000),
+ * are always exported; the others are exported at up to AP_TRACE_BASELINE_PER_SECOND
+ * (default 1) traces per second. At most AP_TRACE_MAX_TRACES (default 1024) traces are
+ * buffered, each with at most AP_TRACE_MAX_SPANS_PER_TRACE (default 512) spans, and a trace
+ * whose root has not ended after AP_TRACE_MAX_AGE_MS (default 120000) is given up on.
+ */
+public record TailSampling(Duration slowThreshold, double baselinePerSecond, int maxTraces, int maxSpansPerTrace,
+                           Duration maxTraceAge) {
+
+    public TailSampling {
+        if (baselinePerSecond < 0 || maxTraces <= 0 || maxSpansPerTrace <= 0) {
+            throw new IllegalArgumentException("Invalid tail sampling settings: baselinePerSecond="
+                    + baselinePerSecond + ", maxTraces=" + maxTraces + ", maxSpansPerTrace=" + maxSpansPerTrace);
+        }
+    }
+
+    /**
+     * The settings, or empty when AP_TRACE_TAIL_SAMPLING is "off".
+     */
+    public static Optional<TailSampling> fromEnvironment() {
+        if ("off".equalsIgnoreCase(env("AP_TRACE_TAIL_SAMPLING", "on"))) {
+            return Optional.empty();
+        }
+        return Optional.of(new TailSampling(
+                Duration.ofMillis(Long.parseLong(env("AP_TRACE_SLOW_MS", "20000"))),
+                Double.parseDouble(env("AP_TRACE_BASELINE_PER_SECOND", "1")),
+                Integer.parseInt(env("AP_TRACE_MAX_TRACES", "1024")),
+                Integer.parseInt(env("AP_TRACE_MAX_SPANS_PER_TRACE", "512")),
+                Duration.ofMillis(Long.parseLong(env("AP_TRACE_MAX_AGE_MS", "120000")))));
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+}
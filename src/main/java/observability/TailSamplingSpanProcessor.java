@@ -0,0 +1,349 @@
+package observability;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+/**
+ * Span processor that decides per trace, once its root span has ended, whether to export it.
+ *
+ * Ended spans are buffered by trace ID. When the local root span (no parent, or a remote one)
+ * ends, the whole trace goes to the downstream processor (normally a BatchSpanProcessor) if
+ * any span has status ERROR or the root took at least TailSampling.slowThreshold; other
+ * traces are exported at up to baselinePerSecond, the rest are dropped. Spans of a trace that
+ * end after its root follow the decision already made.
+ *
+ * Memory is bounded: at most maxTraces traces are buffered and at most maxSpansPerTrace spans
+ * per trace; spans beyond either bound are dropped and counted in trace_spans_dropped_total.
+ * A trace whose root has not ended after maxTraceAge is swept: exported if it has an error,
+ * dropped ("incomplete") otherwise. A background sweep runs every SWEEP_INTERVAL_SECONDS,
+ * and again whenever the buffer is full, so abandoned traces are reported and released
+ * without waiting for traffic. Every decision is counted in traces_tail_sampled_total.
+ *
+ * A trace's decision is recorded under its buffer's lock, before the buffer is closed and
+ * removed, so a span ending concurrently either lands in the buffer or sees the decision.
+ * Decisions are kept for DECISION_TTL_NANOS and at most maxTraces of them; beyond that the
+ * oldest are forgotten first.
+ *
+ * The head sampler must record every span (parentBased(alwaysOn)) for this to see them.
+ */
+public final class TailSamplingSpanProcessor implements SpanProcessor {
+
+    static final String ERROR = "error";
+    static final String SLOW = "slow";
+    static final String BASELINE = "baseline";
+    static final String DROPPED = "dropped";
+    static final String INCOMPLETE = "incomplete";
+
+    // Late spans end within moments of their root; decisions need not outlive that.
+    static final long DECISION_TTL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    static final long SWEEP_INTERVAL_SECONDS = 5;
+
+    private static final ScheduledExecutorService SWEEPER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "tail-sampling-sweeper");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private static final Attributes KEPT_ERROR = decision(ERROR);
+    private static final Attributes KEPT_SLOW = decision(SLOW);
+    private static final Attributes KEPT_BASELINE = decision(BASELINE);
+    private static final Attributes NOT_KEPT = decision(DROPPED);
+    private static final Attributes NOT_KEPT_INCOMPLETE = decision(INCOMPLETE);
+    private static final Attributes BUFFER_FULL = Attributes.of(stringKey("reason"), "buffer_full");
+    private static final Attributes TRACE_FULL = Attributes.of(stringKey("reason"), "trace_full");
+
+    private final SpanProcessor downstream;
+    private final long slowThresholdNanos;
+    private final long maxTraceAgeNanos;
+    private final int maxTraces;
+    private final int maxSpansPerTrace;
+    private final LongSupplier nanoClock;
+    private final ScheduledFuture<?> sweeping;
+
+    // trace ID -> spans ended so far, until the root ends
+    private final ConcurrentHashMap<String, PendingTrace> pending = new ConcurrentHashMap<>();
+    // trace ID -> decision, for spans that end after their root
+    private final ConcurrentHashMap<String, Decision> decided = new ConcurrentHashMap<>();
+    // decisions in the order they were made, for oldest-first eviction
+    private final ConcurrentLinkedQueue<Decision> decisionOrder = new ConcurrentLinkedQueue<>();
+
+    // Baseline token bucket; the burst is one second's worth, at least one trace unless the rate is 0.
+    private final double baselinePerNano;
+    private final double baselineBurst;
+    private double baselineTokens;
+    private long baselineRefillNanos;
+
+    public TailSamplingSpanProcessor(SpanProcessor downstream, TailSampling settings) {
+        this(downstream, settings, System::nanoTime);
+    }
+
+    TailSamplingSpanProcessor(SpanProcessor downstream, TailSampling settings, LongSupplier nanoClock) {
+        this.downstream = downstream;
+        this.slowThresholdNanos = settings.slowThreshold().toNanos();
+        this.maxTraceAgeNanos = settings.maxTraceAge().toNanos();
+        this.maxTraces = settings.maxTraces();
+        this.maxSpansPerTrace = settings.maxSpansPerTrace();
+        this.nanoClock = nanoClock;
+        this.baselinePerNano = settings.baselinePerSecond() / 1_000_000_000.0;
+        this.baselineBurst = settings.baselinePerSecond() == 0 ? 0 : Math.max(1.0, settings.baselinePerSecond());
+        this.baselineTokens = baselineBurst;
+        this.baselineRefillNanos = nanoClock.getAsLong();
+        this.sweeping = SWEEPER.scheduleWithFixedDelay(() -> sweep(nanoClock.getAsLong()),
+                SWEEP_INTERVAL_SECONDS, SWEEP_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+        downstream.onStart(parentContext, span);
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return downstream.isStartRequired();
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        String traceId = span.getSpanContext().getTraceId();
+        Decision decision = decided.get(traceId);
+        if (decision != null) {
+            if (decision.keep()) {
+                downstream.onEnd(span);
+            }
+            return;
+        }
+
+        long now = nanoClock.getAsLong();
+        if (isLocalRoot(span)) {
+            decide(traceId, pending.get(traceId), span, now);
+            return;
+        }
+
+        PendingTrace trace = pending.get(traceId);
+        if (trace == null) {
+            if (pending.size() >= maxTraces) {
+                sweep(now);
+                if (pending.size() >= maxTraces) {
+                    AgentMetrics.TRACE_SPANS_DROPPED.add(1, BUFFER_FULL);
+                    return;
+                }
+            }
+            trace = pending.computeIfAbsent(traceId, id -> new PendingTrace(now));
+        }
+        if (trace.add(span, maxSpansPerTrace)) {
+            Decision late = decided.get(traceId);
+            if (late != null && pending.remove(traceId, trace)) {
+                // Decided after our lookup, and the decision did not collect this buffer;
+                // close() is empty if it already took the span.
+                List<ReadableSpan> spans = trace.close();
+                if (late.keep()) {
+                    spans.forEach(downstream::onEnd);
+                }
+            }
+        } else {
+            if (trace.isClosed()) {
+                // The root ended meanwhile; the decision was recorded before the trace closed.
+                Decision late = decided.get(traceId);
+                if (late != null && late.keep()) {
+                    downstream.onEnd(span);
+                }
+            } else {
+                AgentMetrics.TRACE_SPANS_DROPPED.add(1, TRACE_FULL);
+            }
+        }
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        sweeping.cancel(false);
+        pending.clear();
+        decided.clear();
+        decisionOrder.clear();
+        return downstream.shutdown();
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return downstream.forceFlush();
+    }
+
+    int pendingTraces() {
+        return pending.size();
+    }
+
+    private void decide(String traceId, PendingTrace trace, ReadableSpan root, long now) {
+        Attributes reason;
+        List<ReadableSpan> spans = new ArrayList<>();
+        if (trace == null) {
+            reason = reason(root, false, now);
+            remember(traceId, reason != NOT_KEPT, now);
+        } else {
+            synchronized (trace) {
+                // A closed buffer was swept meanwhile; its spans already followed that decision.
+                reason = reason(root, !trace.isClosed() && trace.hasError(), now);
+                remember(traceId, reason != NOT_KEPT, now);
+                spans.addAll(trace.close());
+            }
+        }
+        // Removes this trace's buffer, or one a child created before seeing the decision.
+        PendingTrace straggler = pending.remove(traceId);
+        if (straggler != null) {
+            spans.addAll(straggler.close());
+        }
+        if (reason != NOT_KEPT) {
+            spans.forEach(downstream::onEnd);
+            downstream.onEnd(root);
+        }
+        AgentMetrics.TRACES_TAIL_SAMPLED.add(1, reason);
+    }
+
+    private Attributes reason(ReadableSpan root, boolean childFailed, long now) {
+        if (childFailed || isError(root)) {
+            return KEPT_ERROR;
+        }
+        if (root.getLatencyNanos() >= slowThresholdNanos) {
+            return KEPT_SLOW;
+        }
+        return tryAcquireBaseline(now) ? KEPT_BASELINE : NOT_KEPT;
+    }
+
+    // Records a decision, forgetting expired and then the oldest ones to stay under maxTraces.
+    private void remember(String traceId, boolean keep, long now) {
+        if (decided.size() >= maxTraces) {
+            forgetDecisions(now);
+            while (decided.size() >= maxTraces) {
+                Decision oldest = decisionOrder.poll();
+                if (oldest == null) {
+                    break;
+                }
+                decided.remove(oldest.traceId(), oldest);
+            }
+        }
+        Decision decision = new Decision(traceId, keep, now);
+        decided.put(traceId, decision);
+        decisionOrder.add(decision);
+    }
+
+    private void forgetDecisions(long now) {
+        Decision oldest;
+        while ((oldest = decisionOrder.peek()) != null && now - oldest.atNanos() > DECISION_TTL_NANOS) {
+            if (decisionOrder.remove(oldest)) {
+                decided.remove(oldest.traceId(), oldest);
+            }
+        }
+    }
+
+    // Gives up on traces whose root never ended here and forgets old decisions.
+    void sweep(long now) {
+        for (Map.Entry<String, PendingTrace> entry : pending.entrySet()) {
+            PendingTrace trace = entry.getValue();
+            if (now - trace.startNanos <= maxTraceAgeNanos) {
+                continue;
+            }
+            boolean keep;
+            List<ReadableSpan> spans;
+            synchronized (trace) {
+                if (trace.isClosed()) {
+                    continue; // decided by its root meanwhile
+                }
+                keep = trace.hasError();
+                remember(entry.getKey(), keep, now);
+                spans = trace.close();
+            }
+            pending.remove(entry.getKey(), trace);
+            if (keep) {
+                spans.forEach(downstream::onEnd);
+            }
+            AgentMetrics.TRACES_TAIL_SAMPLED.add(1, keep ? KEPT_ERROR : NOT_KEPT_INCOMPLETE);
+        }
+        forgetDecisions(now);
+    }
+
+    private synchronized boolean tryAcquireBaseline(long now) {
+        baselineTokens = Math.min(baselineBurst, baselineTokens + (now - baselineRefillNanos) * baselinePerNano);
+        baselineRefillNanos = now;
+        if (baselineTokens < 1.0) {
+            return false;
+        }
+        baselineTokens -= 1.0;
+        return true;
+    }
+
+    private static boolean isLocalRoot(ReadableSpan span) {
+        SpanContext parent = span.getParentSpanContext();
+        return !parent.isValid() || parent.isRemote();
+    }
+
+    private static boolean isError(ReadableSpan span) {
+        return span.toSpanData().getStatus().getStatusCode() == StatusCode.ERROR;
+    }
+
+    private static Attributes decision(String decision) {
+        return Attributes.of(stringKey("decision"), decision);
+    }
+
+    private record Decision(String traceId, boolean keep, long atNanos) {}
+
+    private static final class PendingTrace {
+        final long startNanos;
+        private final List<ReadableSpan> spans = new ArrayList<>();
+        private boolean error;
+        private boolean closed;
+
+        PendingTrace(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        // False when the span was not buffered: the trace is full or already decided.
+        synchronized boolean add(ReadableSpan span, int maxSpans) {
+            if (closed || spans.size() >= maxSpans) {
+                error |= !closed && isError(span);
+                return false;
+            }
+            error |= isError(span);
+            spans.add(span);
+            return true;
+        }
+
+        synchronized boolean hasError() {
+            return error;
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+
+        // Returns the buffered spans; empty if the trace was already closed.
+        synchronized List<ReadableSpan> close() {
+            if (closed) {
+                return List.of();
+            }
+            closed = true;
+            return new ArrayList<>(spans);
+        }
+    }
+}
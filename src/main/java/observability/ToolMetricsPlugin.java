@@ -0,0 +1,157 @@
+package observability;
+
+import com.google.adk.plugins.BasePlugin;
+import com.google.adk.tools.BaseTool;
+import com.google.adk.tools.ToolContext;
+import io.opentelemetry.api.common.Attributes;
+import io.reactivex.rxjava3.core.Maybe;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+/**
+ * ADK plugin that records latency, outcome and payload size of every tool call.
+ *
+ * Per call it records tool_call_latency_ms and tool_calls_total by tool and outcome, and
+ * the approximate JSON size of the arguments and the response (tool_call_args_bytes,
+ * tool_call_response_bytes). The outcome is "ok", "not_found" (the repository tools'
+ * status for a missing record) or "error"; errors are also counted in tool_errors_total by
+ * kind ("exception", or "status" for any other non-ok status in the response).
+ *
+ * Cheap enough to leave on: sizes are estimated by walking the argument and response maps
+ * instead of serializing them, and attribute sets are built once per tool. Only the first
+ * MAX_TOOL_NAMES distinct tool names get their own series; later ones are reported as
+ * "other", so a misbehaving caller cannot blow up metric cardinality.
+ *
+ * Tool calls made by agents.ToolLoaderAgent go through the same plugin callbacks as those
+ * made by LlmAgents, so the loaders are measured too.
+ */
+public final class ToolMetricsPlugin extends BasePlugin {
+
+    static final int MAX_TOOL_NAMES = 64;
+    static final String OTHER_TOOL = "other";
+    static final long STALE_AFTER_NANOS = TimeUnit.MINUTES.toNanos(10);
+    static final int SWEEP_THRESHOLD = 1_000;
+
+    private static final String OUTCOME_OK = "ok";
+    private static final String OUTCOME_NOT_FOUND = "not_found";
+    private static final String OUTCOME_ERROR = "error";
+
+    // invocation + function call ID -> start nanos; cancelled calls are swept once stale.
+    private final ConcurrentHashMap<String, Long> started = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ToolAttributes> attributes = new ConcurrentHashMap<>();
+
+    public ToolMetricsPlugin() {
+        super("tool_metrics");
+    }
+
+    /**
+     * The plugin unless AP_TOOL_METRICS is "off".
+     */
+    public static Optional<ToolMetricsPlugin> fromEnvironment() {
+        String value = System.getenv("AP_TOOL_METRICS");
+        return value != null && "off".equalsIgnoreCase(value.trim())
+                ? Optional.empty()
+                : Optional.of(new ToolMetricsPlugin());
+    }
+
+    @Override
+    public Maybe<Map<String, Object>> beforeToolCallback(BaseTool tool, Map<String, Object> toolArgs,
+                                                         ToolContext toolContext) {
+        long now = System.nanoTime();
+        if (started.size() >= SWEEP_THRESHOLD) {
+            started.values().removeIf(startNanos -> now - startNanos > STALE_AFTER_NANOS);
+        }
+        started.put(callKey(tool, toolContext), now);
+        attributes(tool.name()).argsBytes(JsonSizes.approximate(toolArgs));
+        return Maybe.empty();
+    }
+
+    @Override
+    public Maybe<Map<String, Object>> afterToolCallback(BaseTool tool, Map<String, Object> toolArgs,
+                                                        ToolContext toolContext, Map<String, Object> result) {
+        Object status = result == null ? null : result.get("status");
+        String outcome = status == null || OUTCOME_OK.equals(status) ? OUTCOME_OK
+                : OUTCOME_NOT_FOUND.equals(status) ? OUTCOME_NOT_FOUND
+                : OUTCOME_ERROR;
+
+        ToolAttributes attrs = attributes(tool.name());
+        finish(tool, toolContext, attrs, outcome);
+        attrs.responseBytes(JsonSizes.approximate(result));
+        if (outcome.equals(OUTCOME_ERROR)) {
+            AgentMetrics.TOOL_ERRORS.add(1, attrs.statusError);
+        }
+        return Maybe.empty();
+    }
+
+    @Override
+    public Maybe<Map<String, Object>> onToolErrorCallback(BaseTool tool, Map<String, Object> toolArgs,
+                                                          ToolContext toolContext, Throwable error) {
+        ToolAttributes attrs = attributes(tool.name());
+        finish(tool, toolContext, attrs, OUTCOME_ERROR);
+        AgentMetrics.TOOL_ERRORS.add(1, attrs.exception);
+        return Maybe.empty();
+    }
+
+    private void finish(BaseTool tool, ToolContext toolContext, ToolAttributes attrs, String outcome) {
+        Attributes outcomeAttrs = attrs.outcome(outcome);
+        AgentMetrics.TOOL_CALLS.add(1, outcomeAttrs);
+        Long startNanos = started.remove(callKey(tool, toolContext));
+        if (startNanos != null) {
+            AgentMetrics.TOOL_LATENCY_MS.record((System.nanoTime() - startNanos) / 1_000_000.0, outcomeAttrs);
+        }
+    }
+
+    private ToolAttributes attributes(String toolName) {
+        ToolAttributes attrs = attributes.get(toolName);
+        if (attrs != null) {
+            return attrs;
+        }
+        // Racing first calls may exceed the cap by a few names; that is harmless.
+        return attributes.computeIfAbsent(
+                attributes.size() < MAX_TOOL_NAMES ? toolName : OTHER_TOOL, ToolAttributes::new);
+    }
+
+    // Parallel loaders share an invocation; the function call ID tells their calls apart.
+    private static String callKey(BaseTool tool, ToolContext toolContext) {
+        return toolContext.invocationId() + "/" + toolContext.functionCallId().orElse(tool.name());
+    }
+
+    private static final class ToolAttributes {
+        final Attributes tool;
+        final Attributes ok;
+        final Attributes notFound;
+        final Attributes error;
+        final Attributes exception;
+        final Attributes statusError;
+
+        ToolAttributes(String toolName) {
+            this.tool = Attributes.of(stringKey("tool.name"), toolName);
+            this.ok = Attributes.of(stringKey("tool.name"), toolName, stringKey("outcome"), OUTCOME_OK);
+            this.notFound = Attributes.of(stringKey("tool.name"), toolName, stringKey("outcome"), OUTCOME_NOT_FOUND);
+            this.error = Attributes.of(stringKey("tool.name"), toolName, stringKey("outcome"), OUTCOME_ERROR);
+            this.exception = Attributes.of(stringKey("tool.name"), toolName, stringKey("kind"), "exception");
+            this.statusError = Attributes.of(stringKey("tool.name"), toolName, stringKey("kind"), "status");
+        }
+
+        Attributes outcome(String outcome) {
+            return switch (outcome) {
+                case OUTCOME_OK -> ok;
+                case OUTCOME_NOT_FOUND -> notFound;
+                default -> error;
+            };
+        }
+
+        void argsBytes(long bytes) {
+            AgentMetrics.TOOL_ARGS_BYTES.record(bytes, tool);
+        }
+
+        void responseBytes(long bytes) {
+            AgentMetrics.TOOL_RESPONSE_BYTES.record(bytes, tool);
+        }
+    }
+}
@@ -3,45 +3,135 @@ package orchestrator;
 import com.google.adk.agents.BaseAgent;
 import com.google.adk.agents.ConfigAgentUtils;
 import com.google.adk.memory.InMemoryMemoryService;
-import com.google.adk.plugins.LoggingPlugin;
+import com.google.adk.plugins.BasePlugin;
 import com.google.adk.runner.Runner;
-import com.google.adk.sessions.InMemorySessionService;
+import com.google.adk.sessions.BaseSessionService;
 import com.google.adk.sessions.Session;
-import com.google.adk.tools.FunctionTool;
-import com.google.adk.utils.ComponentRegistry;
+import cache.LlmResponseCachePlugin;
 import config.RegistrationService;
+import observability.EventJournalPlugin;
+import observability.ModelMetricsPlugin;
+import observability.StageTimingCallbacks;
+import observability.ToolMetricsPlugin;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sessions.BoundedSessionService;
+import sessions.ChronicleSessionService;
+import tools.InvoiceRepoTool;
 import userinterface.ChatUI;
+import userinterface.TriageHttpServer;
 
-import java.awt.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 
 public class AppOrchestrator {
 
+    private static final Logger LOG = LoggerFactory.getLogger(AppOrchestrator.class);
+
     public String appName = "APTriageGuard";
     public String userId = "APUser";
 
+    private static final String PIPELINE_CONFIG = "src/main/resources/agents/invoice/ap-invoice-pipeline.yaml";
+
     public void runApp() throws ConfigAgentUtils.ConfigurationException {
+        runApp(null);
+    }
+
+    /**
+     * Interactive chat. With a persistent session store (AP_SESSION_STORE=chronicle), an
+     * existing sessionId resumes that conversation; otherwise a new session is started.
+     */
+    public void runApp(String resumeSessionId) throws ConfigAgentUtils.ConfigurationException {
+
+        Runner runner = buildRunner();
+
+        Session apSession = null;
+        if (resumeSessionId != null) {
+            apSession = runner.sessionService()
+                    .getSession(appName, userId, resumeSessionId, Optional.empty())
+                    .blockingGet();
+            if (apSession == null) {
+                System.out.println("No stored session " + resumeSessionId + "; starting a new one.");
+            }
+        }
+        if (apSession == null) {
+            var sessionId = resumeSessionId != null ? resumeSessionId : UUID.randomUUID().toString();
+            ConcurrentHashMap<String, Object> initialState = new ConcurrentHashMap<>();
+            apSession = runner.sessionService().createSession(appName, userId, initialState, sessionId).blockingGet();
+        }
+        System.out.println("Session: " + apSession.id());
+
+        ChatUI chatUI = new ChatUI(appName);
+        chatUI.chat(runner, apSession);
+    }
 
-        var sessionId = UUID.randomUUID().toString();
+    /**
+     * Triage every invoice ID / query in the input file concurrently and stream decisions
+     * to the output file as JSON lines.
+     */
+    public BatchTriage.Summary runBatch(Path input, Path output, int maxConcurrency)
+            throws ConfigAgentUtils.ConfigurationException, IOException, InterruptedException {
 
-        InMemorySessionService sessionService = new InMemorySessionService();
+        BatchTriage batch = new BatchTriage(buildRunner(), userId, maxConcurrency);
+        return batch.run(input, output);
+    }
+
+    /**
+     * Serve triage over HTTP (POST /triage, Server-Sent Events) until the JVM is stopped.
+     */
+    public void runServer(int port) throws ConfigAgentUtils.ConfigurationException, IOException {
+        TriageHttpServer server = new TriageHttpServer(buildRunner(), userId, port);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        server.start();
+    }
+
+    private Runner buildRunner() throws ConfigAgentUtils.ConfigurationException {
+        // Opens AP_INVOICE_STORE_FILE now, so a bad store stops startup instead of the first lookup.
+        InvoiceRepoTool.store();
+        BaseSessionService sessionService = buildSessionService();
         InMemoryMemoryService memoryService = new InMemoryMemoryService();
-        ConcurrentHashMap<String, Object> initialState = new ConcurrentHashMap<>();
 
-        Session apSession = sessionService.createSession(appName, userId, initialState, sessionId).blockingGet();
+        long startNanos = System.nanoTime();
+        BaseAgent rootAgent = ConfigAgentUtils.fromConfig(PIPELINE_CONFIG);
+        LOG.info("Built agent tree from {} in {} ms ({} indexed components created)",
+                PIPELINE_CONFIG, (System.nanoTime() - startNanos) / 1_000_000,
+                RegistrationService.createdComponentCount());
+        StageTimingCallbacks.indexParents(rootAgent);
 
-        BaseAgent rootAgent = ConfigAgentUtils.fromConfig(
-                "src/main/resources/agents/invoice/ap-invoice-pipeline.yaml");
+        List<BasePlugin> plugins = new ArrayList<>();
 
-        Runner runner =
-                new Runner(rootAgent, appName, null, sessionService, memoryService,
-                        List.of(new LoggingPlugin()));
+        // Binary event journal instead of text LoggingPlugin output; read it with observability.EventJournalCli.
+        EventJournalPlugin journal = EventJournalPlugin.fromEnvironment();
+        Runtime.getRuntime().addShutdownHook(new Thread(journal::close));
+        plugins.add(journal);
 
-        ChatUI chatUI = new ChatUI(appName);
-        chatUI.chat(runner, apSession);
+        LlmResponseCachePlugin.fromEnvironment().ifPresent(plugins::add);
+        // After the cache, so only calls that reach the model are measured.
+        ModelMetricsPlugin.fromEnvironment().ifPresent(plugins::add);
+        ToolMetricsPlugin.fromEnvironment().ifPresent(plugins::add);
+
+        return new Runner(rootAgent, appName, null, sessionService, memoryService, plugins);
+    }
+
+    // AP_SESSION_STORE: "memory" (bounded, lost on restart; the default) or "chronicle" (durable).
+    private static BaseSessionService buildSessionService() {
+        String store = System.getenv("AP_SESSION_STORE");
+        if (store != null && "chronicle".equalsIgnoreCase(store.trim())) {
+            ChronicleSessionService chronicle = ChronicleSessionService.fromEnvironment();
+            // Closing writes the head-index checkpoint that makes the next start fast.
+            Runtime.getRuntime().addShutdownHook(new Thread(chronicle::close));
+            return chronicle;
+        }
+        if (store != null && !store.isBlank() && !"memory".equalsIgnoreCase(store.trim())) {
+            throw new IllegalStateException("Unknown AP_SESSION_STORE: " + store + " (expected memory or chronicle)");
+        }
+        return BoundedSessionService.fromEnvironment();
     }
 
 
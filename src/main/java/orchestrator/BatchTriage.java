@@ -0,0 +1,267 @@
+package orchestrator;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.adk.agents.RunConfig;
+import com.google.adk.events.Event;
+import com.google.adk.runner.Runner;
+import com.google.adk.sessions.Session;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import constants.FinalResponseAgentName;
+import observability.MetricsHelper;
+import observability.RunRecorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Runs the AP pipeline over a file of invoice IDs or free-text queries.
+ *
+ * Each input line becomes one triage in its own session, executed on a virtual thread.
+ * At most maxConcurrency triages are in flight; the reader blocks until a slot frees up,
+ * so memory stays flat regardless of input size. Results are appended to the output
+ * file as JSON lines in completion order, and a throughput / latency summary is
+ * returned at the end.
+ *
+ * Input format: one item per line. Blank lines and lines starting with '#' are skipped.
+ * A line that is a bare invoice ID (e.g. INV-1001) is expanded into a standard
+ * "please check" request; any other line is sent as-is. Items about the same invoice that
+ * are in flight together share one pipeline run (see TriageCoalescer).
+ */
+public final class BatchTriage {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BatchTriage.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern BARE_INVOICE_ID = Pattern.compile("^[A-Za-z]{2,5}-?\\d+$");
+
+    private final Runner runner;
+    private final TriageCoalescer coalescer;
+    private final String userId;
+    private final int maxConcurrency;
+    private final RunRecorder runRecorder = new RunRecorder();
+
+    public BatchTriage(Runner runner, String userId, int maxConcurrency) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency must be > 0");
+        }
+        this.runner = runner;
+        this.coalescer = new TriageCoalescer(runner);
+        this.userId = userId;
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public Summary run(Path input, Path output) throws IOException, InterruptedException {
+        Semaphore slots = new Semaphore(maxConcurrency);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        LatencyLog latencies = new LatencyLog();
+
+        long startNanos = System.nanoTime();
+
+        try (BufferedWriter writer = Files.newBufferedWriter(output, StandardCharsets.UTF_8);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             var lines = Files.lines(input, StandardCharsets.UTF_8)) {
+
+            for (String raw : (Iterable<String>) lines::iterator) {
+                String item = raw.trim();
+                if (item.isEmpty() || item.startsWith("#")) {
+                    continue;
+                }
+
+                slots.acquire();
+                executor.execute(() -> {
+                    try {
+                        boolean ok = process(item, writer, latencies);
+                        (ok ? succeeded : failed).incrementAndGet();
+                    } finally {
+                        slots.release();
+                    }
+                });
+            }
+            // Closing the executor waits for all submitted triages to finish.
+        }
+
+        long wallMs = MetricsHelper.computeLatencyMs(startNanos);
+        return latencies.summarize(succeeded.get(), failed.get(), wallMs);
+    }
+
+    // Triages one item and writes its result line. Never throws: any failure is written as an
+    // error line (when the output is still writable) and reported as not ok.
+    private boolean process(String item, BufferedWriter writer, LatencyLog latencies) {
+        long startNanos = System.nanoTime();
+        Map<String, Object> result;
+        try {
+            result = triage(item);
+        } catch (RuntimeException e) {
+            LOG.warn("Batch triage failed for '{}'", item, e);
+            result = new LinkedHashMap<>();
+            result.put("input", item);
+            result.put("error", String.valueOf(e.getMessage()));
+            result.put("status", "error");
+            result.put("latency_ms", MetricsHelper.computeLatencyMs(startNanos));
+        }
+        latencies.add((long) result.get("latency_ms"));
+
+        try {
+            writeLine(writer, result);
+        } catch (RuntimeException e) {
+            LOG.error("Failed to write the batch result for '{}'", item, e);
+            return false;
+        }
+        return "ok".equals(result.get("status"));
+    }
+
+    private Map<String, Object> triage(String item) {
+        long startNanos = System.nanoTime();
+        String status = "ok";
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("input", item);
+
+        Session session = null;
+        try {
+            session = runner.sessionService()
+                    .createSession(runner.appName(), userId)
+                    .blockingGet();
+
+            Content userMsg = Content.fromParts(Part.fromText(toRequest(item)));
+            AtomicReference<String> reply = new AtomicReference<>();
+            Map<String, Object> state = new LinkedHashMap<>();
+
+            coalescer.runAsync(session, userMsg, RunConfig.builder().build()).blockingForEach(event -> {
+                collectState(event, state);
+                if (event.finalResponse() && FinalResponseAgentName.VALUE.equals(event.author())) {
+                    reply.set(event.stringifyContent());
+                }
+            });
+
+            result.put("invoice_id", state.get("invoice_id"));
+            result.put("ap_decision_json", state.get("ap_decision_json"));
+            result.put("reply", reply.get());
+        } catch (Exception e) {
+            status = "error";
+            result.put("error", String.valueOf(e.getMessage()));
+            LOG.warn("Batch triage failed for '{}'", item, e);
+        } finally {
+            if (session != null) {
+                // Batch sessions are single-use; drop them so the session store does not grow with the batch.
+                runner.sessionService()
+                        .deleteSession(runner.appName(), session.userId(), session.id())
+                        .onErrorComplete()
+                        .blockingAwait();
+            }
+        }
+
+        long latencyMs = MetricsHelper.computeLatencyMs(startNanos);
+        runRecorder.recordAgentRun(runner.appName(), latencyMs, status);
+
+        result.put("status", status);
+        result.put("latency_ms", latencyMs);
+        return result;
+    }
+
+    private static void collectState(Event event, Map<String, Object> state) {
+        if (event.actions() != null && event.actions().stateDelta() != null) {
+            state.putAll(event.actions().stateDelta());
+        }
+    }
+
+    private static String toRequest(String item) {
+        if (BARE_INVOICE_ID.matcher(item).matches()) {
+            return "Please check invoice " + item + " and tell me if it is OK to pay.";
+        }
+        return item;
+    }
+
+    private static void writeLine(BufferedWriter writer, Map<String, Object> result) {
+        try {
+            String json = MAPPER.writeValueAsString(result);
+            synchronized (writer) {
+                writer.write(json);
+                writer.newLine();
+                writer.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Outcome of a batch run. Latency percentiles are per-item end-to-end times.
+     */
+    public record Summary(
+            int succeeded,
+            int failed,
+            long wallMs,
+            double throughputPerSecond,
+            long p50Ms,
+            long p90Ms,
+            long p99Ms,
+            long maxMs
+    ) {
+        public int total() {
+            return succeeded + failed;
+        }
+
+        public List<String> describe() {
+            return List.of(
+                    "Triaged " + total() + " items (" + succeeded + " ok, " + failed + " failed) in " + wallMs + " ms",
+                    String.format(Locale.ROOT, "Throughput: %.2f items/s", throughputPerSecond),
+                    "Latency ms: p50=" + p50Ms + " p90=" + p90Ms + " p99=" + p99Ms + " max=" + maxMs
+            );
+        }
+    }
+
+    // Collects per-item latencies from many virtual threads.
+    private static final class LatencyLog {
+        private long[] values = new long[1024];
+        private int size;
+
+        synchronized void add(long latencyMs) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = latencyMs;
+        }
+
+        synchronized Summary summarize(int succeeded, int failed, long wallMs) {
+            long[] sorted = Arrays.copyOf(values, size);
+            Arrays.sort(sorted);
+            double throughput = wallMs > 0 ? (succeeded + failed) * 1000.0 / wallMs : 0.0;
+            return new Summary(
+                    succeeded,
+                    failed,
+                    wallMs,
+                    throughput,
+                    percentile(sorted, 0.50),
+                    percentile(sorted, 0.90),
+                    percentile(sorted, 0.99),
+                    sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+}
@@ -1,26 +1,64 @@
 package orchestrator;
 
-import com.google.adk.agents.ConfigAgentUtils;
 import config.OpenTelemetryBootstrap;
 import config.RegistrationService;
 
+import java.nio.file.Path;
+
 //TIP To <b>Run</b> code, press <shortcut actionId="Run"/> or
 // click the <icon src="AllIcons.Actions.Execute"/> icon in the gutter.
 public class Main {
-    static void main() throws ConfigAgentUtils.ConfigurationException {
+
+    private static final int DEFAULT_BATCH_CONCURRENCY = 64;
+    private static final int DEFAULT_SERVER_PORT = 8080;
+
+    // No arguments: interactive chat.
+    // --session <id>: interactive chat, resuming the stored session <id> (AP_SESSION_STORE=chronicle).
+    // --batch <input> <output> [maxConcurrency]: bulk triage of a file of invoice IDs or queries.
+    // --serve [port]: HTTP/SSE triage server.
+    static void main(String[] args) throws Exception {
 
         // loggingExporter -> True: Use the local logging exporter. False: Use the otlp exporter.
         var loggingExporter = false;
         OpenTelemetryBootstrap.init(loggingExporter);
 
-        // Register wrappers and tools to enable YAML configuration
+        // Register wrappers, tools and (for AP_LLM_MODE record/replay) models to enable YAML configuration
         var registrationService = new RegistrationService();
         registrationService.registerWorkflowWrappers();
         registrationService.registerFunctionTools();
+        registrationService.registerModels();
 
-        // Run the app
         var appOrchestrator = new AppOrchestrator();
+
+        if (args.length > 0 && "--batch".equals(args[0])) {
+            if (args.length < 3) {
+                System.err.println("Usage: Main --batch <input> <output> [maxConcurrency]");
+                System.exit(1);
+            }
+            int maxConcurrency = args.length >= 4 ? Integer.parseInt(args[3]) : DEFAULT_BATCH_CONCURRENCY;
+
+            BatchTriage.Summary summary =
+                    appOrchestrator.runBatch(Path.of(args[1]), Path.of(args[2]), maxConcurrency);
+            summary.describe().forEach(System.out::println);
+            return;
+        }
+
+        if (args.length > 0 && "--serve".equals(args[0])) {
+            int port = args.length >= 2 ? Integer.parseInt(args[1]) : DEFAULT_SERVER_PORT;
+            appOrchestrator.runServer(port);
+            return;
+        }
+
+        if (args.length > 0 && "--session".equals(args[0])) {
+            if (args.length < 2) {
+                System.err.println("Usage: Main --session <sessionId>");
+                System.exit(1);
+            }
+            appOrchestrator.runApp(args[1]);
+            return;
+        }
+
+        // Run the app
         appOrchestrator.runApp();
         }
     }
-
@@ -0,0 +1,155 @@
+package orchestrator;
+
+import com.google.adk.agents.RunConfig;
+import com.google.adk.events.Event;
+import com.google.adk.runner.Runner;
+import com.google.adk.sessions.Session;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import helpers.InvoiceIdExtractor;
+import io.opentelemetry.api.common.Attributes;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import observability.AgentMetrics;
+import tools.DataVersions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+/**
+ * Single-flight layer in front of the Runner for one-shot triage requests.
+ *
+ * A request whose message names exactly one invoice ID, arriving in a fresh session, is
+ * keyed by the normalized ID plus the invoice store, PO repository and policy versions, so
+ * several clerks asking about one invoice share a run. The coalescer serves one Runner, and
+ * so one app; isolating tenants means one coalescer per tenant, not per-user keys.
+ * While a pipeline run for that key is in flight, further requests with the same key do not
+ * start their own: they subscribe to the running one and receive all of its events,
+ * including those emitted before they joined. Only one set of model and tool calls is paid.
+ *
+ * Each follower's session gets the result too: its user message and a copy of every
+ * complete (non-partial) event of the shared run are appended to it once the run completes,
+ * off the shared stream, so its state holds invoice_id, ap_decision_json and the reply just
+ * as if it had run the pipeline itself.
+ *
+ * The shared run keeps going when the request that started it goes away, as long as others
+ * wait on it; when the last one goes away it is cancelled. Completed runs are not cached: a
+ * request arriving after the run finished, or was cancelled, starts a new one. Requests naming no or several invoice IDs, or continuing a session
+ * with history, run directly, since their answer depends on more than the invoice.
+ */
+public final class TriageCoalescer {
+
+    private final Runner runner;
+    private final ConcurrentHashMap<String, Flowable<Event>> inFlight = new ConcurrentHashMap<>();
+
+    public TriageCoalescer(Runner runner) {
+        this.runner = runner;
+    }
+
+    public Runner runner() {
+        return runner;
+    }
+
+    /**
+     * Like Runner.runAsync, sharing the run with concurrent requests for the same invoice.
+     */
+    public Flowable<Event> runAsync(Session session, Content userMsg, RunConfig runConfig) {
+        return Flowable.defer(() -> {
+            String key = key(session, userMsg);
+            if (key == null) {
+                return runner.runAsync(session.userId(), session.id(), userMsg, runConfig);
+            }
+
+            boolean[] leader = {false};
+            Flowable<Event> shared = inFlight.computeIfAbsent(key, k -> {
+                leader[0] = true;
+                AtomicReference<Flowable<Event>> self = new AtomicReference<>();
+                AtomicBoolean started = new AtomicBoolean();
+                Flowable<Event> run = Flowable.defer(() -> started.compareAndSet(false, true)
+                                ? runner.runAsync(session.userId(), session.id(), userMsg, runConfig)
+                                : Flowable.<Event>error(new RunFinished()))
+                        // Only this run's entry: a newer run under the same key must stay joinable.
+                        .doFinally(() -> inFlight.remove(k, self.get()))
+                        // Buffers the run's events for late joiners; connects on first subscriber
+                        // and cancels the run when the last one unsubscribes.
+                        .replay()
+                        .refCount();
+                self.set(run);
+                return run;
+            });
+
+            AgentMetrics.TRIAGE_COALESCING.add(1, Attributes.of(stringKey("role"), leader[0] ? "leader" : "follower"));
+            Flowable<Event> events = shared;
+            if (!leader[0]) {
+                List<Event> complete = new ArrayList<>();
+                events = shared
+                        .doOnNext(event -> {
+                            if (!event.partial().orElse(false)) {
+                                complete.add(event);
+                            }
+                        })
+                        .concatWith(Completable.defer(() -> appendToFollower(session, userMsg, complete))
+                                .subscribeOn(Schedulers.io()));
+            }
+            // Joined a run that ended before this subscription reached it: run on our own.
+            return events.onErrorResumeNext(e -> e instanceof RunFinished
+                    ? runner.runAsync(session.userId(), session.id(), userMsg, runConfig)
+                    : Flowable.error(e));
+        });
+    }
+
+    private Completable appendToFollower(Session session, Content userMsg, List<Event> events) {
+        return Flowable.fromIterable(events)
+                .map(event -> event.toBuilder().id(Event.generateEventId()).build())
+                .startWithItem(userEvent(userMsg))
+                .concatMapCompletable(event -> runner.sessionService().appendEvent(session, event).ignoreElement());
+    }
+
+    private static Event userEvent(Content userMsg) {
+        return Event.builder()
+                .id(Event.generateEventId())
+                .invocationId("coalesced-" + Event.generateEventId())
+                .author("user")
+                .content(userMsg)
+                .build();
+    }
+
+    int inFlightRuns() {
+        return inFlight.size();
+    }
+
+    // Null when the request must not be shared.
+    static String key(Session session, Content userMsg) {
+        if (session.events() != null && !session.events().isEmpty()) {
+            return null;
+        }
+        List<String> ids = InvoiceIdExtractor.all(text(userMsg));
+        if (ids.size() != 1) {
+            return null;
+        }
+        return ids.get(0) + "|" + DataVersions.current();
+    }
+
+    private static String text(Content content) {
+        StringBuilder sb = new StringBuilder();
+        content.parts().ifPresent(parts -> {
+            for (Part part : parts) {
+                part.text().ifPresent(text -> sb.append(text).append('\n'));
+            }
+        });
+        return sb.toString();
+    }
+
+    // Signals a subscription to a shared run that has already ended; never reaches callers.
+    private static final class RunFinished extends RuntimeException {
+        RunFinished() {
+            super("shared run already ended", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package sessions;
+
+import com.google.adk.events.Event;
+import com.google.adk.sessions.BaseSessionService;
+import com.google.adk.sessions.GetSessionConfig;
+import com.google.adk.sessions.ListEventsResponse;
+import com.google.adk.sessions.ListSessionsResponse;
+import com.google.adk.sessions.Session;
+import io.opentelemetry.api.common.Attributes;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Single;
+import com.google.genai.types.Part;
+import observability.AgentMetrics;
+import observability.JsonSizes;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+
+/**
+ * In-memory session service with a hard upper bound on what it retains.
+ *
+ * - At most maxSessions sessions are kept; creating one more evicts the least recently
+ *   used session.
+ * - Sessions not read or written for idleTtl are evicted by a background sweep (and
+ *   lazily on access).
+ * - Each session keeps at most maxEventsPerSession events; older events are dropped.
+ *   State is unaffected, since every event's state delta has already been applied.
+ *
+ * Evicted sessions behave like deleted ones: getSession returns empty. The live session
+ * count, approximate retained bytes and evicted bytes are exported through AgentMetrics;
+ * each event's size is estimated once, from its text, tool payloads and state delta, and
+ * kept alongside it so trimming does not measure it again.
+ *
+ * getSession returns a copy, so callers never observe eviction or trimming mid-run.
+ * State keys prefixed with "temp:" are applied to the caller's session but not retained.
+ */
+public final class BoundedSessionService implements BaseSessionService, AutoCloseable {
+
+    public static final int DEFAULT_MAX_SESSIONS = 10_000;
+    public static final Duration DEFAULT_IDLE_TTL = Duration.ofMinutes(30);
+    public static final int DEFAULT_MAX_EVENTS_PER_SESSION = 200;
+
+    private static final String REASON_CAPACITY = "capacity";
+    private static final String REASON_IDLE = "idle";
+    private static final String REASON_EVENT_CAP = "event_cap";
+    // Ids, invocation id, timestamp and field names of a serialized event.
+    private static final long EVENT_OVERHEAD_BYTES = 200;
+
+    private final int maxSessions;
+    private final long idleTtlNanos;
+    private final int maxEventsPerSession;
+    // Access-ordered: iteration starts at the least recently used session.
+    private final LinkedHashMap<String, Entry> sessions = new LinkedHashMap<>(16, 0.75f, true);
+    private final ScheduledExecutorService sweeper;
+
+    public BoundedSessionService(int maxSessions, Duration idleTtl, int maxEventsPerSession) {
+        if (maxSessions <= 0 || maxEventsPerSession <= 0 || idleTtl.isNegative() || idleTtl.isZero()) {
+            throw new IllegalArgumentException("Session limits must be > 0");
+        }
+        this.maxSessions = maxSessions;
+        this.idleTtlNanos = idleTtl.toNanos();
+        this.maxEventsPerSession = maxEventsPerSession;
+
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-idle-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        long sweepMillis = Math.max(1_000, Math.min(idleTtl.toMillis() / 4, 60_000));
+        sweeper.scheduleWithFixedDelay(this::evictIdle, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Limits from AP_SESSION_MAX, AP_SESSION_IDLE_TTL_MINUTES and AP_SESSION_MAX_EVENTS.
+     */
+    public static BoundedSessionService fromEnvironment() {
+        return new BoundedSessionService(
+                Integer.parseInt(env("AP_SESSION_MAX", String.valueOf(DEFAULT_MAX_SESSIONS))),
+                Duration.ofMinutes(Long.parseLong(
+                        env("AP_SESSION_IDLE_TTL_MINUTES", String.valueOf(DEFAULT_IDLE_TTL.toMinutes())))),
+                Integer.parseInt(env("AP_SESSION_MAX_EVENTS", String.valueOf(DEFAULT_MAX_EVENTS_PER_SESSION))));
+    }
+
+    @Override
+    public Single<Session> createSession(String appName, String userId,
+                                         ConcurrentMap<String, Object> state, String sessionId) {
+        return Single.fromCallable(() -> {
+            String id = sessionId == null || sessionId.isBlank() ? UUID.randomUUID().toString() : sessionId.trim();
+            Session stored = StoredSessions.newSession(appName, userId, id, state, Instant.now());
+            Entry entry = new Entry(stored);
+
+            List<Entry> evicted = new ArrayList<>();
+            synchronized (sessions) {
+                String key = StoredSessions.key(appName, userId, id);
+                if (sessions.containsKey(key)) {
+                    throw new IllegalStateException("Session already exists: " + id);
+                }
+                sessions.put(key, entry);
+                Iterator<Entry> lru = sessions.values().iterator();
+                while (sessions.size() > maxSessions && lru.hasNext()) {
+                    evicted.add(lru.next());
+                    lru.remove();
+                }
+            }
+            AgentMetrics.SESSIONS_LIVE.add(1);
+            evicted.forEach(e -> recordEviction(e, REASON_CAPACITY));
+            return StoredSessions.copy(stored, Optional.empty());
+        });
+    }
+
+    @Override
+    public Maybe<Session> getSession(String appName, String userId, String sessionId,
+                                     Optional<GetSessionConfig> config) {
+        return Maybe.fromCallable(() -> {
+            Entry entry = live(StoredSessions.key(appName, userId, sessionId));
+            if (entry == null) {
+                return null;
+            }
+            synchronized (entry) {
+                return StoredSessions.copy(entry.session, config);
+            }
+        });
+    }
+
+    @Override
+    public Single<ListSessionsResponse> listSessions(String appName, String userId) {
+        return Single.fromCallable(() -> {
+            List<Session> result = new ArrayList<>();
+            synchronized (sessions) {
+                for (Entry entry : sessions.values()) {
+                    Session s = entry.session;
+                    if (s.appName().equals(appName) && s.userId().equals(userId)) {
+                        // Listing returns metadata only, like the ADK in-memory service.
+                        result.add(StoredSessions.metadata(s));
+                    }
+                }
+            }
+            return ListSessionsResponse.builder().sessions(result).build();
+        });
+    }
+
+    @Override
+    public Completable deleteSession(String appName, String userId, String sessionId) {
+        return Completable.fromAction(() -> {
+            Entry removed;
+            synchronized (sessions) {
+                removed = sessions.remove(StoredSessions.key(appName, userId, sessionId));
+            }
+            if (removed != null) {
+                AgentMetrics.SESSIONS_LIVE.add(-1);
+                AgentMetrics.SESSION_LIVE_BYTES.add(-removed.markRemoved());
+            }
+        });
+    }
+
+    @Override
+    public Single<ListEventsResponse> listEvents(String appName, String userId, String sessionId) {
+        return Single.fromCallable(() -> {
+            Entry entry = live(StoredSessions.key(appName, userId, sessionId));
+            if (entry == null) {
+                return ListEventsResponse.builder().events(List.of()).build();
+            }
+            synchronized (entry) {
+                return ListEventsResponse.builder().events(List.copyOf(entry.session.events())).build();
+            }
+        });
+    }
+
+    @Override
+    public Single<Event> appendEvent(Session session, Event event) {
+        // Applies the state delta to, and appends the event on, the caller's copy.
+        return BaseSessionService.super.appendEvent(session, event).doOnSuccess(appended -> {
+            if (appended.partial().orElse(false)) {
+                return;
+            }
+            Entry entry = live(StoredSessions.key(session.appName(), session.userId(), session.id()));
+            if (entry != null) {
+                entry.append(appended);
+            }
+        });
+    }
+
+    private Entry live(String key) {
+        Entry entry;
+        synchronized (sessions) {
+            entry = sessions.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.lastAccessNanos < idleTtlNanos) {
+                entry.lastAccessNanos = System.nanoTime();
+                return entry;
+            }
+            sessions.remove(key);
+        }
+        recordEviction(entry, REASON_IDLE);
+        return null;
+    }
+
+    private void evictIdle() {
+        List<Entry> evicted = new ArrayList<>();
+        long now = System.nanoTime();
+        synchronized (sessions) {
+            // LRU order: stop at the first session that is still fresh.
+            Iterator<Entry> lru = sessions.values().iterator();
+            while (lru.hasNext()) {
+                Entry entry = lru.next();
+                if (now - entry.lastAccessNanos < idleTtlNanos) {
+                    break;
+                }
+                evicted.add(entry);
+                lru.remove();
+            }
+        }
+        evicted.forEach(e -> recordEviction(e, REASON_IDLE));
+    }
+
+    private static void recordEviction(Entry entry, String reason) {
+        Attributes attrs = Attributes.of(stringKey("reason"), reason);
+        long bytes = entry.markRemoved();
+        AgentMetrics.SESSIONS_LIVE.add(-1);
+        AgentMetrics.SESSION_LIVE_BYTES.add(-bytes);
+        AgentMetrics.SESSIONS_EVICTED.add(1, attrs);
+        AgentMetrics.SESSION_EVICTED_BYTES.add(bytes, attrs);
+    }
+
+    // Estimated serialized size of an event, without serializing it.
+    static long approxBytes(Event event) {
+        long bytes = EVENT_OVERHEAD_BYTES + (event.author() == null ? 0 : event.author().length());
+        if (event.content().isPresent()) {
+            for (Part part : event.content().get().parts().orElse(List.of())) {
+                bytes += part.text().map(String::length).orElse(0);
+                if (part.functionCall().isPresent()) {
+                    bytes += JsonSizes.approximate(part.functionCall().get().args().orElse(null));
+                }
+                if (part.functionResponse().isPresent()) {
+                    bytes += JsonSizes.approximate(part.functionResponse().get().response().orElse(null));
+                }
+            }
+        }
+        if (event.actions() != null && event.actions().stateDelta() != null) {
+            bytes += JsonSizes.approximate(event.actions().stateDelta());
+        }
+        return bytes;
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isBlank() ? defaultValue : value.trim();
+    }
+
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+    }
+
+    private final class Entry {
+        final Session session;
+        // Estimated size of each retained event, in the same order as session.events().
+        final ArrayDeque<Long> eventBytes = new ArrayDeque<>();
+        volatile long lastAccessNanos = System.nanoTime();
+        long approxBytes;
+        boolean removed;
+
+        Entry(Session session) {
+            this.session = session;
+        }
+
+        // Called once the entry has left the map; later appends (from a run that was
+        // already in flight) are ignored so the byte gauges stay balanced.
+        synchronized long markRemoved() {
+            removed = true;
+            return approxBytes;
+        }
+
+        synchronized void append(Event event) {
+            if (removed) {
+                return;
+            }
+            StoredSessions.apply(session, event);
+            List<Event> events = session.events();
+            long added = approxBytes(event);
+            eventBytes.addLast(added);
+            approxBytes += added;
+            AgentMetrics.SESSION_LIVE_BYTES.add(added);
+
+            int excess = events.size() - maxEventsPerSession;
+            if (excess > 0) {
+                long dropped = 0;
+                for (int i = 0; i < excess; i++) {
+                    dropped += eventBytes.removeFirst();
+                }
+                events.subList(0, excess).clear();
+                approxBytes -= dropped;
+                AgentMetrics.SESSION_LIVE_BYTES.add(-dropped);
+                AgentMetrics.SESSION_EVICTED_BYTES.add(dropped, Attributes.of(stringKey("reason"), REASON_EVENT_CAP));
+            }
+        }
+    }
+}
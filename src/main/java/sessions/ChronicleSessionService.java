@@ -0,0 +1,412 @@
+package sessions;
+
+import cache.BoundedTtlCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.adk.events.Event;
+import com.google.adk.sessions.BaseSessionService;
+import com.google.adk.sessions.GetSessionConfig;
+import com.google.adk.sessions.ListEventsResponse;
+import com.google.adk.sessions.ListSessionsResponse;
+import com.google.adk.sessions.Session;
+import helpers.ChronicleWriter;
+import io.reactivex.rxjava3.core.Completable;
+import io.reactivex.rxjava3.core.Maybe;
+import io.reactivex.rxjava3.core.Single;
+import net.openhft.chronicle.queue.ChronicleQueue;
+import net.openhft.chronicle.queue.ExcerptTailer;
+import net.openhft.chronicle.wire.DocumentContext;
+import net.openhft.chronicle.wire.Wire;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Session service that persists sessions in a memory-mapped Chronicle Queue, so triage
+ * conversations survive a restart.
+ *
+ * Writes are append-only. Every change is one excerpt: "create" (initial state), "event"
+ * (the Event as JSON, whose state delta is re-applied on load) or "delete". Each excerpt
+ * carries the queue index of the previous excerpt of the same session, so a session is
+ * loaded by walking its own chain backwards from the head, never by replaying the queue.
+ *
+ * The only heap-resident index is session key -> head index (plus last update time). It is
+ * checkpointed to a file on close; at startup the checkpoint is read and only excerpts
+ * appended after it are scanned, so opening a store takes milliseconds regardless of how
+ * many sessions it holds. Without a checkpoint (first start, or after a crash) the whole
+ * queue is scanned once, reading headers only.
+ *
+ * Loaded sessions are kept in a small LRU so consecutive turns do not re-read the chain;
+ * getSession returns copies. Partial (streaming) events are not persisted.
+ *
+ * All excerpts are written by one ChronicleWriter thread, the queue's only appender; a
+ * writer hands over its excerpt and waits for its index. Writes to one session are
+ * serialized by updating its head with heads.compute, which keeps the prev chain intact;
+ * writes to different sessions only share the writer thread. Writers share the read side
+ * of checkpointLock, so the checkpoint sees a head for every index it claims to cover.
+ */
+public final class ChronicleSessionService implements BaseSessionService, AutoCloseable {
+
+    public static final String DEFAULT_DIR = "data/sessions";
+    public static final int DEFAULT_CACHED_SESSIONS = 1_000;
+    public static final Duration DEFAULT_CACHE_TTL = Duration.ofMinutes(30);
+
+    private static final Logger LOG = LoggerFactory.getLogger(ChronicleSessionService.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final TypeReference<Map<String, Object>> STATE_TYPE = new TypeReference<>() {};
+
+    private static final String QUEUE_DIR = "queue";
+    private static final String CHECKPOINT_FILE = "heads.idx";
+    private static final int CHECKPOINT_VERSION = 1;
+
+    private static final String TYPE_CREATE = "create";
+    private static final String TYPE_EVENT = "event";
+    private static final String TYPE_DELETE = "delete";
+    private static final long NO_INDEX = -1;
+    private static final int PENDING_WRITES = 1_024;
+
+    private final Path checkpoint;
+    private final ChronicleQueue queue;
+    private final ChronicleWriter writer;
+    // Session key -> newest excerpt of that session. A session's excerpts are only written
+    // inside heads.compute for its key.
+    private final ConcurrentHashMap<String, Head> heads = new ConcurrentHashMap<>();
+    private final BoundedTtlCache<String, Session> loaded;
+    private final AtomicLong lastIndex = new AtomicLong(NO_INDEX);
+    private final ReadWriteLock checkpointLock = new ReentrantReadWriteLock();
+
+    public ChronicleSessionService(Path directory, int cachedSessions, Duration cacheTtl) {
+        this.checkpoint = directory.resolve(CHECKPOINT_FILE);
+        this.queue = ChronicleQueue.singleBuilder(directory.resolve(QUEUE_DIR).toFile()).build();
+        this.writer = new ChronicleWriter(queue, "session-store-writer", PENDING_WRITES);
+        this.loaded = new BoundedTtlCache<>(cachedSessions, cacheTtl);
+
+        long startNanos = System.nanoTime();
+        long fromIndex = readCheckpoint();
+        int scanned = scanFrom(fromIndex);
+        LOG.info("Opened session store {} ({} sessions, {} excerpts scanned) in {} ms",
+                directory, heads.size(), scanned, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    /**
+     * Store in AP_SESSION_STORE_DIR, or data/sessions if unset.
+     */
+    public static ChronicleSessionService fromEnvironment() {
+        String dir = System.getenv("AP_SESSION_STORE_DIR");
+        return new ChronicleSessionService(
+                Path.of(dir == null || dir.isBlank() ? DEFAULT_DIR : dir.trim()),
+                DEFAULT_CACHED_SESSIONS, DEFAULT_CACHE_TTL);
+    }
+
+    @Override
+    public Single<Session> createSession(String appName, String userId,
+                                         ConcurrentMap<String, Object> state, String sessionId) {
+        return Single.fromCallable(() -> {
+            String id = sessionId == null || sessionId.isBlank() ? UUID.randomUUID().toString() : sessionId.trim();
+            String key = StoredSessions.key(appName, userId, id);
+            Session stored = StoredSessions.newSession(appName, userId, id, state, Instant.now());
+            String payload = MAPPER.writeValueAsString(stored.state());
+
+            writing(() -> heads.compute(key, (k, head) -> {
+                if (head != null) {
+                    throw new IllegalStateException("Session already exists: " + id);
+                }
+                Head created = write(TYPE_CREATE, k, NO_INDEX, stored.lastUpdateTime().toEpochMilli(), payload);
+                loaded.put(k, stored);
+                return created;
+            }));
+            return StoredSessions.copy(stored, Optional.empty());
+        });
+    }
+
+    @Override
+    public Maybe<Session> getSession(String appName, String userId, String sessionId,
+                                     Optional<GetSessionConfig> config) {
+        return Maybe.fromCallable(() -> {
+            Session stored = load(StoredSessions.key(appName, userId, sessionId));
+            if (stored == null) {
+                return null;
+            }
+            synchronized (stored) {
+                return StoredSessions.copy(stored, config);
+            }
+        });
+    }
+
+    @Override
+    public Single<ListSessionsResponse> listSessions(String appName, String userId) {
+        return Single.fromCallable(() -> {
+            String prefix = StoredSessions.key(appName, userId, "");
+            List<Session> result = new ArrayList<>();
+            heads.forEach((key, head) -> {
+                if (key.startsWith(prefix)) {
+                    // Metadata only, straight from the index; no excerpt is read.
+                    result.add(StoredSessions.newSession(appName, userId, key.substring(prefix.length()),
+                            null, Instant.ofEpochMilli(head.lastUpdateMillis())));
+                }
+            });
+            return ListSessionsResponse.builder().sessions(result).build();
+        });
+    }
+
+    @Override
+    public Completable deleteSession(String appName, String userId, String sessionId) {
+        return Completable.fromAction(() -> {
+            String key = StoredSessions.key(appName, userId, sessionId);
+            writing(() -> heads.computeIfPresent(key, (k, head) -> {
+                write(TYPE_DELETE, k, head.index(), System.currentTimeMillis(), null);
+                loaded.invalidate(k);
+                return null;
+            }));
+        });
+    }
+
+    @Override
+    public Single<ListEventsResponse> listEvents(String appName, String userId, String sessionId) {
+        return Single.fromCallable(() -> {
+            Session stored = load(StoredSessions.key(appName, userId, sessionId));
+            if (stored == null) {
+                return ListEventsResponse.builder().events(List.of()).build();
+            }
+            synchronized (stored) {
+                return ListEventsResponse.builder().events(List.copyOf(stored.events())).build();
+            }
+        });
+    }
+
+    @Override
+    public Single<Event> appendEvent(Session session, Event event) {
+        // Applies the state delta to, and appends the event on, the caller's copy.
+        return BaseSessionService.super.appendEvent(session, event).doOnSuccess(appended -> {
+            if (appended.partial().orElse(false)) {
+                return;
+            }
+            String key = StoredSessions.key(session.appName(), session.userId(), session.id());
+            String payload = appended.toJson();
+            // Absent if the session was deleted while the run was in flight.
+            writing(() -> heads.computeIfPresent(key, (k, head) -> {
+                Head next = write(TYPE_EVENT, k, head.index(), appended.timestamp(), payload);
+                Session cached = loaded.get(k);
+                if (cached != null) {
+                    synchronized (cached) {
+                        StoredSessions.apply(cached, appended);
+                    }
+                }
+                return next;
+            }));
+        });
+    }
+
+    private void writing(Runnable update) {
+        checkpointLock.readLock().lock();
+        try {
+            update.run();
+        } finally {
+            checkpointLock.readLock().unlock();
+        }
+    }
+
+    // Called inside heads.compute for key; returns the session's new head.
+    private Head write(String type, String key, long prev, long ts, String payload) {
+        long index = writer.append(w -> w
+                .write("type").text(type)
+                .write("key").text(key)
+                .write("prev").int64(prev)
+                .write("ts").int64(ts)
+                .write("payload").text(payload)).join();
+        lastIndex.accumulateAndGet(index, Math::max);
+        return new Head(index, ts);
+    }
+
+    private Session load(String key) {
+        Session cached = loaded.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        Head head = heads.get(key);
+        if (head == null) {
+            return null;
+        }
+
+        // Walk this session's chain back to its create excerpt, then replay it forwards.
+        Deque<Excerpt> chain = new ArrayDeque<>();
+        try (ExcerptTailer tailer = queue.createTailer()) {
+            long index = head.index();
+            while (index != NO_INDEX) {
+                if (!tailer.moveToIndex(index)) {
+                    throw new IllegalStateException("Session store is missing excerpt " + index + " of " + key);
+                }
+                Excerpt excerpt;
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    excerpt = readExcerpt(dc.wire());
+                }
+                chain.push(excerpt);
+                index = TYPE_CREATE.equals(excerpt.type()) ? NO_INDEX : excerpt.prev();
+            }
+        }
+
+        Session stored = replay(key, chain);
+        AtomicReference<Session> published = new AtomicReference<>(stored);
+        heads.computeIfPresent(key, (k, current) -> {
+            // Only publish if nothing was appended meanwhile; otherwise the next read reloads.
+            if (current == head) {
+                Session raced = loaded.get(k);
+                if (raced != null) {
+                    published.set(raced);
+                } else {
+                    loaded.put(k, stored);
+                }
+            }
+            return current;
+        });
+        return published.get();
+    }
+
+    private static Session replay(String key, Deque<Excerpt> chain) {
+        Excerpt create = chain.pop();
+        if (!TYPE_CREATE.equals(create.type())) {
+            throw new IllegalStateException("Session chain of " + key + " does not start with a create excerpt");
+        }
+        String[] parts = key.split(Pattern.quote(StoredSessions.KEY_SEPARATOR), 3);
+        ConcurrentMap<String, Object> state = new ConcurrentHashMap<>();
+        try {
+            state.putAll(MAPPER.readValue(create.payload(), STATE_TYPE));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unreadable initial state for session " + key, e);
+        }
+        Session stored = StoredSessions.newSession(parts[0], parts[1], parts[2], state,
+                Instant.ofEpochMilli(create.ts()));
+        for (Excerpt excerpt : chain) {
+            StoredSessions.apply(stored, Event.fromJson(excerpt.payload()));
+        }
+        return stored;
+    }
+
+    // Rebuilds the head index from every excerpt after fromIndex (or from the start).
+    private int scanFrom(long fromIndex) {
+        int scanned = 0;
+        try (ExcerptTailer tailer = queue.createTailer()) {
+            if (fromIndex != NO_INDEX) {
+                if (!tailer.moveToIndex(fromIndex)) {
+                    LOG.warn("Session checkpoint is ahead of the queue; rescanning from the start");
+                    heads.clear();
+                    tailer.toStart();
+                } else {
+                    // The checkpoint already covers fromIndex itself.
+                    try (DocumentContext dc = tailer.readingDocument()) {
+                        lastIndex.set(dc.index());
+                    }
+                }
+            }
+            while (true) {
+                try (DocumentContext dc = tailer.readingDocument()) {
+                    if (!dc.isPresent()) {
+                        break;
+                    }
+                    Excerpt excerpt = readExcerpt(dc.wire());
+                    lastIndex.set(dc.index());
+                    if (TYPE_DELETE.equals(excerpt.type())) {
+                        heads.remove(excerpt.key());
+                    } else {
+                        heads.put(excerpt.key(), new Head(dc.index(), excerpt.ts()));
+                    }
+                    scanned++;
+                }
+            }
+        }
+        return scanned;
+    }
+
+    private static Excerpt readExcerpt(Wire wire) {
+        return new Excerpt(
+                wire.read("type").text(),
+                wire.read("key").text(),
+                wire.read("prev").int64(),
+                wire.read("ts").int64(),
+                wire.read("payload").text());
+    }
+
+    // Returns the last queue index the checkpoint covers, or NO_INDEX to scan everything.
+    private long readCheckpoint() {
+        if (!Files.exists(checkpoint)) {
+            return NO_INDEX;
+        }
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(checkpoint))) {
+            if (in.readInt() != CHECKPOINT_VERSION) {
+                return NO_INDEX;
+            }
+            long coveredIndex = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                heads.put(in.readUTF(), new Head(in.readLong(), in.readLong()));
+            }
+            return coveredIndex;
+        } catch (IOException e) {
+            LOG.warn("Ignoring unreadable session checkpoint {}", checkpoint, e);
+            heads.clear();
+            return NO_INDEX;
+        }
+    }
+
+    private void writeCheckpoint() {
+        Path tmp = checkpoint.resolveSibling(CHECKPOINT_FILE + ".tmp");
+        checkpointLock.writeLock().lock();
+        try {
+            try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+                out.writeInt(CHECKPOINT_VERSION);
+                out.writeLong(lastIndex.get());
+                out.writeInt(heads.size());
+                for (Map.Entry<String, Head> entry : heads.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(entry.getValue().index());
+                    out.writeLong(entry.getValue().lastUpdateMillis());
+                }
+            }
+            Files.move(tmp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write session checkpoint " + checkpoint, e);
+        } finally {
+            checkpointLock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            writer.close();
+            if (lastIndex.get() != NO_INDEX) {
+                writeCheckpoint();
+            }
+        } finally {
+            queue.close();
+        }
+    }
+
+    private record Head(long index, long lastUpdateMillis) {}
+
+    private record Excerpt(String type, String key, long prev, long ts, String payload) {}
+}
@@ -0,0 +1,97 @@
+package sessions;
+
+import com.google.adk.events.Event;
+import com.google.adk.sessions.GetSessionConfig;
+import com.google.adk.sessions.Session;
+import com.google.adk.sessions.State;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Helpers shared by the session services for the copy of a session they keep themselves.
+ */
+final class StoredSessions {
+
+    // Session-scoped scratch state that ADK does not persist.
+    private static final String TEMP_PREFIX = "temp:";
+
+    static final String KEY_SEPARATOR = "\u001f";
+
+    private StoredSessions() {}
+
+    static Session newSession(String appName, String userId, String sessionId,
+                              ConcurrentMap<String, Object> state, Instant lastUpdateTime) {
+        ConcurrentMap<String, Object> initialState = new ConcurrentHashMap<>();
+        if (state != null) {
+            initialState.putAll(state);
+        }
+        return Session.builder(sessionId)
+                .appName(appName)
+                .userId(userId)
+                .state(initialState)
+                .events(new ArrayList<>())
+                .lastUpdateTime(lastUpdateTime)
+                .build();
+    }
+
+    /**
+     * Applies the event's state delta to the stored session and appends the event.
+     */
+    static void apply(Session stored, Event event) {
+        if (event.actions() != null && event.actions().stateDelta() != null) {
+            for (Map.Entry<String, Object> delta : event.actions().stateDelta().entrySet()) {
+                if (delta.getKey().startsWith(TEMP_PREFIX)) {
+                    continue;
+                }
+                if (delta.getValue() == State.REMOVED) {
+                    stored.state().remove(delta.getKey());
+                } else {
+                    stored.state().put(delta.getKey(), delta.getValue());
+                }
+            }
+        }
+        stored.events().add(event);
+        stored.lastUpdateTime(Instant.ofEpochMilli(event.timestamp()));
+    }
+
+    /**
+     * Independent copy for callers, honoring numRecentEvents / afterTimestamp.
+     */
+    static Session copy(Session stored, Optional<GetSessionConfig> config) {
+        List<Event> events = stored.events();
+        if (config.isPresent()) {
+            GetSessionConfig c = config.get();
+            if (c.afterTimestamp().isPresent()) {
+                long after = c.afterTimestamp().get().toEpochMilli();
+                events = events.stream().filter(e -> e.timestamp() > after).toList();
+            }
+            if (c.numRecentEvents().isPresent() && events.size() > c.numRecentEvents().get()) {
+                events = events.subList(events.size() - c.numRecentEvents().get(), events.size());
+            }
+        }
+        return Session.builder(stored.id())
+                .appName(stored.appName())
+                .userId(stored.userId())
+                .state(new ConcurrentHashMap<>(stored.state()))
+                .events(new ArrayList<>(events))
+                .lastUpdateTime(stored.lastUpdateTime())
+                .build();
+    }
+
+    /**
+     * State-less, event-less copy, as returned by listSessions.
+     */
+    static Session metadata(Session stored) {
+        return newSession(stored.appName(), stored.userId(), stored.id(), null, stored.lastUpdateTime());
+    }
+
+    static String key(String appName, String userId, String sessionId) {
+        return appName + KEY_SEPARATOR + userId + KEY_SEPARATOR + sessionId;
+    }
+}
@@ -0,0 +1,17 @@
+package tools;
+
+/**
+ * Combined version of the data the AP tools read: the invoice store, the PO repository and
+ * the policy snapshot. It changes whenever any of them is replaced or reloaded, so results
+ * derived from that data (cached tool results, coalesced runs) can be keyed by it.
+ */
+public final class DataVersions {
+
+    private DataVersions() {}
+
+    public static String current() {
+        return "invoices=" + InvoiceRepoTool.storeVersion()
+                + "|pos=" + PoRepoTool.repositoryVersion()
+                + "|policy=" + PolicyThresholdsTool.snapshot().version();
+    }
+}
@@ -0,0 +1,86 @@
+package tools;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Invoice store over a fixed in-memory map.
+ *
+ * Used for the capstone demo dataset and in tests. Production deployments
+ * should point AP_INVOICE_STORE_FILE at a MappedInvoiceStore file instead.
+ */
+public final class InMemoryInvoiceStore implements InvoiceStore {
+
+    // Fake invoice data keyed by invoice ID
+    private static final Map<String, Map<String, Object>> DEMO_INVOICES =
+        Map.of(
+            "INV-1001",
+            Map.of(
+                "invoice_id", "INV-1001",
+                "vendor", "Acme Supplies",
+                "po_number", "PO-2001",
+                "currency", "USD",
+                "total", 1200.0,
+                "lines",
+                    List.of(
+                        Map.of(
+                            "line_number", 1,
+                            "description", "Office chairs",
+                            "quantity", 10,
+                            "unit_price", 100.0
+                        ),
+                        Map.of(
+                            "line_number", 2,
+                            "description", "Delivery",
+                            "quantity", 1,
+                            "unit_price", 200.0
+                        )
+                    )
+            ),
+            "INV-2001",
+            Map.of(
+                "invoice_id", "INV-2001",
+                "vendor", "Acme Supplies",
+                "po_number", "PO-2001",
+                "currency", "USD",
+                "total", 1500.0, // deliberately higher total for REVIEW scenario
+                "lines",
+                    List.of(
+                        Map.of(
+                            "line_number", 1,
+                            "description", "Office chairs",
+                            "quantity", 10,
+                            "unit_price", 120.0
+                        ),
+                        Map.of(
+                            "line_number", 2,
+                            "description", "Delivery",
+                            "quantity", 1,
+                            "unit_price", 300.0
+                        )
+                    )
+            )
+        );
+
+    private final Map<String, Map<String, Object>> invoices;
+
+    public InMemoryInvoiceStore(Map<String, Map<String, Object>> invoices) {
+        this.invoices = Map.copyOf(invoices);
+    }
+
+    /**
+     * Store holding the two demo invoices (INV-1001 OK_TO_PAY, INV-2001 REVIEW).
+     */
+    public static InMemoryInvoiceStore demo() {
+        return new InMemoryInvoiceStore(DEMO_INVOICES);
+    }
+
+    public Map<String, Map<String, Object>> invoices() {
+        return invoices;
+    }
+
+    @Override
+    public Map<String, Object> findInvoice(String invoiceId) {
+        return invoiceId == null ? null : invoices.get(invoiceId);
+    }
+}
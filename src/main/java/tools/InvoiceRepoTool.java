@@ -2,70 +2,76 @@ package tools;
 
 import com.google.adk.tools.Annotations;
 
-import java.util.List;
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Simple in-memory repository of invoices.
+ * Repository of invoices exposed to agents as a tool.
  *
- * For the capstone, we hard-code a tiny dataset.
- * A production program would call an ERP / finance system instead.
+ * Lookups are served by a pluggable InvoiceStore. By default this is the tiny
+ * hard-coded capstone dataset; setting AP_INVOICE_STORE_FILE to a file written by
+ * MappedInvoiceStore#write serves invoices from a memory-mapped, indexed store instead.
+ * A production program could also plug in a store that calls an ERP / finance system.
+ *
+ * The default store is opened on first use, not when the class is initialized, so a
+ * missing or corrupt store file fails every lookup with an IllegalStateException naming
+ * the file instead of leaving the class unusable. AppOrchestrator opens it while building
+ * the runner, so a bad file stops the app at startup.
  */
 public final class InvoiceRepoTool {
 
-    // Fake invoice data keyed by invoice ID
-    private static final Map<String, Map<String, Object>> INVOICES =
-        Map.of(
-            "INV-1001",
-            Map.of(
-                "invoice_id", "INV-1001",
-                "vendor", "Acme Supplies",
-                "po_number", "PO-2001",
-                "currency", "USD",
-                "total", 1200.0,
-                "lines",
-                    List.of(
-                        Map.of(
-                            "line_number", 1,
-                            "description", "Office chairs",
-                            "quantity", 10,
-                            "unit_price", 100.0
-                        ),
-                        Map.of(
-                            "line_number", 2,
-                            "description", "Delivery",
-                            "quantity", 1,
-                            "unit_price", 200.0
-                        )
-                    )
-            ),
-            "INV-2001",
-            Map.of(
-                "invoice_id", "INV-2001",
-                "vendor", "Acme Supplies",
-                "po_number", "PO-2001",
-                "currency", "USD",
-                "total", 1500.0, // deliberately higher total for REVIEW scenario
-                "lines",
-                    List.of(
-                        Map.of(
-                            "line_number", 1,
-                            "description", "Office chairs",
-                            "quantity", 10,
-                            "unit_price", 120.0
-                        ),
-                        Map.of(
-                            "line_number", 2,
-                            "description", "Delivery",
-                            "quantity", 1,
-                            "unit_price", 300.0
-                        )
-                    )
-            )
-        );
+    // null until first use or useStore
+    private static volatile InvoiceStore store;
+    private static final AtomicLong storeVersion = new AtomicLong();
 
     private InvoiceRepoTool() {}
 
+    /**
+     * Replaces the store used by getInvoice (e.g. for tests or a custom ERP-backed store).
+     */
+    public static synchronized void useStore(InvoiceStore invoiceStore) {
+        store = Objects.requireNonNull(invoiceStore, "invoiceStore");
+        storeVersion.incrementAndGet();
+    }
+
+    /**
+     * The current store, opening the default one on first use.
+     *
+     * @throws IllegalStateException if AP_INVOICE_STORE_FILE is set and cannot be opened
+     */
+    public static InvoiceStore store() {
+        InvoiceStore current = store;
+        return current != null ? current : openDefaultStore();
+    }
+
+    /**
+     * Incremented whenever the store is replaced, so results derived from it can be keyed by it.
+     */
+    public static long storeVersion() {
+        return storeVersion.get();
+    }
+
+    private static synchronized InvoiceStore openDefaultStore() {
+        if (store == null) {
+            store = defaultStore();
+        }
+        return store;
+    }
+
+    private static InvoiceStore defaultStore() {
+        String file = System.getenv("AP_INVOICE_STORE_FILE");
+        if (file == null || file.isBlank()) {
+            return InMemoryInvoiceStore.demo();
+        }
+        try {
+            return MappedInvoiceStore.open(Path.of(file.trim()));
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("Cannot open the invoice store in AP_INVOICE_STORE_FILE (" + file.trim() + ")", e);
+        }
+    }
+
     /**
      * Tool entrypoint: returns invoice details for a given invoice ID.
      */
@@ -75,7 +81,7 @@ public final class InvoiceRepoTool {
                     description = "The invoice ID to look up."
             )
             String invoiceId) {
-        Map<String, Object> invoice = INVOICES.get(invoiceId);
+        Map<String, Object> invoice = store().findInvoice(invoiceId);
         if (invoice == null) {
             return Map.of(
                 "status", "not_found",
@@ -0,0 +1,39 @@
+package tools;
+
+import java.util.Map;
+
+/**
+ * Read-only lookup of invoices by invoice ID.
+ *
+ * Implementations back InvoiceRepoTool#getInvoice. The returned map must use the
+ * same shape as the tool's "invoice" payload (invoice_id, vendor, po_number,
+ * currency, total, lines).
+ */
+public interface InvoiceStore {
+
+    /**
+     * Returns the invoice for the given ID, or null if the store has no such invoice.
+     */
+    Map<String, Object> findInvoice(String invoiceId);
+
+    /**
+     * Returns the vendor, currency and total of the given invoice, or null if the store has
+     * no such invoice. Stores that can read these fields without decoding the whole invoice
+     * (lines included) override this.
+     */
+    default PolicyInputs findPolicyInputs(String invoiceId) {
+        Map<String, Object> invoice = findInvoice(invoiceId);
+        if (invoice == null) {
+            return null;
+        }
+        return new PolicyInputs(
+                invoice.get("vendor") instanceof String vendor ? vendor : null,
+                invoice.get("currency") instanceof String currency ? currency : null,
+                invoice.get("total") instanceof Number total ? total.doubleValue() : Double.NaN);
+    }
+
+    /**
+     * The invoice fields that select its policy thresholds (see PolicySnapshot#thresholdsFor).
+     */
+    record PolicyInputs(String vendor, String currency, double total) {}
+}
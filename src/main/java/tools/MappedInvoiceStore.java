@@ -0,0 +1,428 @@
+package tools;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Invoice store backed by a memory-mapped, fixed-layout file with an open-addressing
+ * hash index on invoice_id.
+ *
+ * Opening the store only maps the file and validates the header, so startup cost does
+ * not depend on the number of invoices, and no per-invoice objects live on the heap.
+ * A lookup hashes the ID, probes the index and decodes the single matching record into
+ * the same Map shape InMemoryInvoiceStore returns; findPolicyInputs reads only the vendor,
+ * currency and total of the record.
+ *
+ * File layout (little-endian):
+ * <pre>
+ *   header   64 bytes      magic, version, recordCount, slotCount, maxLines, recordSize,
+ *                          indexOffset, recordsOffset
+ *   index    slotCount * 4 record number + 1 per slot (0 = empty), linear probing
+ *   records  recordCount * recordSize
+ * </pre>
+ * Text fields are stored as a 2-byte UTF-8 length followed by a fixed-capacity byte area.
+ * Files are produced with {@link #write(Path, Collection, int)}.
+ */
+public final class MappedInvoiceStore implements InvoiceStore, AutoCloseable {
+
+    static final int MAGIC = 0x41504956; // "APIV"
+    static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+
+    // Text field capacities in bytes (excluding the 2-byte length prefix)
+    private static final int ID_CAPACITY = 32;
+    private static final int VENDOR_CAPACITY = 96;
+    private static final int PO_NUMBER_CAPACITY = 32;
+    private static final int CURRENCY_CAPACITY = 8;
+    private static final int DESCRIPTION_CAPACITY = 64;
+
+    // Record field offsets
+    private static final int OFF_ID = 0;
+    private static final int OFF_VENDOR = OFF_ID + 2 + ID_CAPACITY;
+    private static final int OFF_PO_NUMBER = OFF_VENDOR + 2 + VENDOR_CAPACITY;
+    private static final int OFF_CURRENCY = OFF_PO_NUMBER + 2 + PO_NUMBER_CAPACITY;
+    private static final int OFF_TOTAL = OFF_CURRENCY + 2 + CURRENCY_CAPACITY;
+    private static final int OFF_LINE_COUNT = OFF_TOTAL + 8;
+    private static final int OFF_LINES = OFF_LINE_COUNT + 4;
+
+    // Line field offsets, relative to the start of each line
+    private static final int LINE_OFF_NUMBER = 0;
+    private static final int LINE_OFF_QUANTITY = 4;
+    private static final int LINE_OFF_UNIT_PRICE = 12;
+    private static final int LINE_OFF_DESCRIPTION = 20;
+    private static final int LINE_SIZE = LINE_OFF_DESCRIPTION + 2 + DESCRIPTION_CAPACITY;
+
+    private static final ValueLayout.OfInt INT =
+            ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong LONG =
+            ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfDouble DOUBLE =
+            ValueLayout.JAVA_DOUBLE_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfShort SHORT =
+            ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final Arena arena;
+    private final MemorySegment segment;
+    private final int recordCount;
+    private final int slotMask;
+    private final int maxLines;
+    private final int recordSize;
+    private final long indexOffset;
+    private final long recordsOffset;
+
+    private MappedInvoiceStore(Arena arena, MemorySegment segment, Path file) {
+        this.arena = arena;
+        this.segment = segment;
+
+        if (segment.byteSize() < HEADER_SIZE || segment.get(INT, 0) != MAGIC) {
+            throw new IllegalStateException("Not an invoice store file: " + file);
+        }
+        int version = segment.get(INT, 4);
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported invoice store version " + version + " in " + file);
+        }
+
+        this.recordCount = segment.get(INT, 8);
+        int slotCount = segment.get(INT, 12);
+        this.maxLines = segment.get(INT, 16);
+        this.recordSize = segment.get(INT, 20);
+        this.indexOffset = segment.get(LONG, 24);
+        this.recordsOffset = segment.get(LONG, 32);
+
+        if (Integer.bitCount(slotCount) != 1 || recordSize != recordSize(maxLines)
+                || recordsOffset + (long) recordCount * recordSize > segment.byteSize()) {
+            throw new IllegalStateException("Corrupt invoice store header in " + file);
+        }
+        this.slotMask = slotCount - 1;
+    }
+
+    /**
+     * Maps an existing store file read-only.
+     */
+    public static MappedInvoiceStore open(Path file) {
+        Arena arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MemorySegment segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            return new MappedInvoiceStore(arena, segment, file);
+        } catch (IOException e) {
+            arena.close();
+            throw new IllegalStateException("Failed to map invoice store " + file, e);
+        } catch (RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    public int size() {
+        return recordCount;
+    }
+
+    @Override
+    public Map<String, Object> findInvoice(String invoiceId) {
+        if (invoiceId == null) {
+            return null;
+        }
+        long record = locate(invoiceId);
+        return record < 0 ? null : decodeInvoice(record);
+    }
+
+    @Override
+    public PolicyInputs findPolicyInputs(String invoiceId) {
+        if (invoiceId == null) {
+            return null;
+        }
+        long record = locate(invoiceId);
+        if (record < 0) {
+            return null;
+        }
+        return new PolicyInputs(
+                readText(record + OFF_VENDOR),
+                readText(record + OFF_CURRENCY),
+                segment.get(DOUBLE, record + OFF_TOTAL));
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    // Returns the byte offset of the matching record, or -1.
+    private long locate(String invoiceId) {
+        byte[] nonAscii = isAscii(invoiceId) ? null : invoiceId.getBytes(StandardCharsets.UTF_8);
+        int hash = nonAscii == null ? hashAscii(invoiceId) : hash(nonAscii);
+
+        for (int probe = 0; probe <= slotMask; probe++) {
+            int slot = (hash + probe) & slotMask;
+            int entry = segment.get(INT, indexOffset + (long) slot * 4);
+            if (entry == 0) {
+                return -1;
+            }
+            long record = recordsOffset + (long) (entry - 1) * recordSize;
+            boolean match = nonAscii == null
+                    ? textEqualsAscii(record + OFF_ID, invoiceId)
+                    : textEquals(record + OFF_ID, nonAscii);
+            if (match) {
+                return record;
+            }
+        }
+        return -1;
+    }
+
+    private Map<String, Object> decodeInvoice(long record) {
+        int lineCount = segment.get(INT, record + OFF_LINE_COUNT);
+        List<Map<String, Object>> lines = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            long line = record + OFF_LINES + (long) i * LINE_SIZE;
+            lines.add(Map.of(
+                    "line_number", segment.get(INT, line + LINE_OFF_NUMBER),
+                    "description", readText(line + LINE_OFF_DESCRIPTION),
+                    "quantity", quantityValue(segment.get(DOUBLE, line + LINE_OFF_QUANTITY)),
+                    "unit_price", segment.get(DOUBLE, line + LINE_OFF_UNIT_PRICE)
+            ));
+        }
+
+        return Map.of(
+                "invoice_id", readText(record + OFF_ID),
+                "vendor", readText(record + OFF_VENDOR),
+                "po_number", readText(record + OFF_PO_NUMBER),
+                "currency", readText(record + OFF_CURRENCY),
+                "total", segment.get(DOUBLE, record + OFF_TOTAL),
+                "lines", List.copyOf(lines)
+        );
+    }
+
+    private String readText(long offset) {
+        int length = Short.toUnsignedInt(segment.get(SHORT, offset));
+        byte[] bytes = new byte[length];
+        MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, offset + 2, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean textEqualsAscii(long offset, String value) {
+        if (Short.toUnsignedInt(segment.get(SHORT, offset)) != value.length()) {
+            return false;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            if (segment.get(ValueLayout.JAVA_BYTE, offset + 2 + i) != (byte) value.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean textEquals(long offset, byte[] value) {
+        if (Short.toUnsignedInt(segment.get(SHORT, offset)) != value.length) {
+            return false;
+        }
+        for (int i = 0; i < value.length; i++) {
+            if (segment.get(ValueLayout.JAVA_BYTE, offset + 2 + i) != value[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Quantities are stored as doubles; whole quantities are returned as Integer so the
+    // payload matches the in-memory store.
+    private static Object quantityValue(double quantity) {
+        if (quantity == Math.rint(quantity) && Math.abs(quantity) <= Integer.MAX_VALUE) {
+            return (int) quantity;
+        }
+        return quantity;
+    }
+
+    // ---- Writing ----
+
+    /**
+     * Writes the given invoices to a new store file, replacing any existing file.
+     *
+     * The store is written to a temporary file in the same directory and moved into place,
+     * so a crash mid-write or a reader that has the old file mapped never sees a partial store.
+     *
+     * @param invoices invoice maps in the InvoiceRepoTool payload shape
+     * @param maxLines maximum number of lines any invoice may have
+     */
+    public static void write(Path file, Collection<? extends Map<String, ?>> invoices, int maxLines)
+            throws IOException {
+        if (maxLines <= 0) {
+            throw new IllegalArgumentException("maxLines must be > 0");
+        }
+
+        int recordCount = invoices.size();
+        int slotCount = Integer.highestOneBit(Math.max(2, recordCount * 2 - 1)) << 1;
+        int recordSize = recordSize(maxLines);
+        long indexOffset = HEADER_SIZE;
+        long recordsOffset = indexOffset + (long) slotCount * 4;
+        long fileSize = recordsOffset + (long) recordCount * recordSize;
+
+        Path directory = file.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            writeStore(temp, invoices, maxLines, recordCount, slotCount, recordSize, indexOffset, recordsOffset, fileSize);
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeStore(Path file, Collection<? extends Map<String, ?>> invoices, int maxLines,
+                                   int recordCount, int slotCount, int recordSize, long indexOffset,
+                                   long recordsOffset, long fileSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             Arena arena = Arena.ofConfined()) {
+
+            MemorySegment out = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize, arena);
+
+            out.set(INT, 0, MAGIC);
+            out.set(INT, 4, VERSION);
+            out.set(INT, 8, recordCount);
+            out.set(INT, 12, slotCount);
+            out.set(INT, 16, maxLines);
+            out.set(INT, 20, recordSize);
+            out.set(LONG, 24, indexOffset);
+            out.set(LONG, 32, recordsOffset);
+
+            int recordNumber = 0;
+            for (Map<String, ?> invoice : invoices) {
+                String invoiceId = requiredText(invoice, "invoice_id");
+                byte[] idBytes = invoiceId.getBytes(StandardCharsets.UTF_8);
+
+                long record = recordsOffset + (long) recordNumber * recordSize;
+                writeRecord(out, record, invoice, idBytes, maxLines);
+
+                int slot = hash(idBytes) & (slotCount - 1);
+                while (out.get(INT, indexOffset + (long) slot * 4) != 0) {
+                    long existing = recordsOffset + (long) (out.get(INT, indexOffset + (long) slot * 4) - 1) * recordSize;
+                    if (Short.toUnsignedInt(out.get(SHORT, existing + OFF_ID)) == idBytes.length
+                            && MemorySegment.mismatch(out, existing + OFF_ID + 2, existing + OFF_ID + 2 + idBytes.length,
+                                    MemorySegment.ofArray(idBytes), 0, idBytes.length) == -1) {
+                        throw new IllegalArgumentException("Duplicate invoice_id: " + invoiceId);
+                    }
+                    slot = (slot + 1) & (slotCount - 1);
+                }
+                out.set(INT, indexOffset + (long) slot * 4, recordNumber + 1);
+                recordNumber++;
+            }
+
+            out.force();
+        }
+    }
+
+    private static void writeRecord(MemorySegment out, long record, Map<String, ?> invoice,
+                                     byte[] idBytes, int maxLines) {
+        writeText(out, record + OFF_ID, idBytes, ID_CAPACITY, "invoice_id");
+        writeText(out, record + OFF_VENDOR, optionalText(invoice, "vendor"), VENDOR_CAPACITY, "vendor");
+        writeText(out, record + OFF_PO_NUMBER, optionalText(invoice, "po_number"), PO_NUMBER_CAPACITY, "po_number");
+        writeText(out, record + OFF_CURRENCY, optionalText(invoice, "currency"), CURRENCY_CAPACITY, "currency");
+        out.set(DOUBLE, record + OFF_TOTAL, number(invoice.get("total"), "total"));
+
+        Object rawLines = invoice.get("lines");
+        List<?> lines = rawLines instanceof List<?> l ? l : List.of();
+        if (lines.size() > maxLines) {
+            throw new IllegalArgumentException(
+                    "Invoice " + new String(idBytes, StandardCharsets.UTF_8) + " has " + lines.size()
+                            + " lines; store allows " + maxLines);
+        }
+        out.set(INT, record + OFF_LINE_COUNT, lines.size());
+
+        for (int i = 0; i < lines.size(); i++) {
+            if (!(lines.get(i) instanceof Map<?, ?> line)) {
+                throw new IllegalArgumentException("Each invoice line must be a Map");
+            }
+            long lineOffset = record + OFF_LINES + (long) i * LINE_SIZE;
+            out.set(INT, lineOffset + LINE_OFF_NUMBER, (int) number(line.get("line_number"), "line_number"));
+            out.set(DOUBLE, lineOffset + LINE_OFF_QUANTITY, number(line.get("quantity"), "quantity"));
+            out.set(DOUBLE, lineOffset + LINE_OFF_UNIT_PRICE, number(line.get("unit_price"), "unit_price"));
+            Object description = line.get("description");
+            writeText(out, lineOffset + LINE_OFF_DESCRIPTION,
+                    (description == null ? "" : description.toString()).getBytes(StandardCharsets.UTF_8),
+                    DESCRIPTION_CAPACITY, "description");
+        }
+    }
+
+    private static void writeText(MemorySegment out, long offset, byte[] bytes, int capacity, String field) {
+        if (bytes.length > capacity) {
+            throw new IllegalArgumentException(field + " exceeds " + capacity + " bytes");
+        }
+        out.set(SHORT, offset, (short) bytes.length);
+        MemorySegment.copy(bytes, 0, out, ValueLayout.JAVA_BYTE, offset + 2, bytes.length);
+    }
+
+    private static String requiredText(Map<String, ?> invoice, String field) {
+        Object value = invoice.get(field);
+        if (value == null || value.toString().isBlank()) {
+            throw new IllegalArgumentException("Invoice is missing " + field);
+        }
+        return value.toString();
+    }
+
+    private static byte[] optionalText(Map<String, ?> invoice, String field) {
+        Object value = invoice.get(field);
+        return (value == null ? "" : value.toString()).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static double number(Object value, String field) {
+        if (value instanceof Number n) {
+            return n.doubleValue();
+        }
+        throw new IllegalArgumentException(field + " must be numeric");
+    }
+
+    private static int recordSize(int maxLines) {
+        return OFF_LINES + maxLines * LINE_SIZE;
+    }
+
+    // ---- Hashing (FNV-1a over the UTF-8 bytes of the invoice ID) ----
+
+    private static int hash(byte[] bytes) {
+        int h = 0x811C9DC5;
+        for (byte b : bytes) {
+            h ^= (b & 0xFF);
+            h *= 0x01000193;
+        }
+        return mix(h);
+    }
+
+    private static int hashAscii(String value) {
+        int h = 0x811C9DC5;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x01000193;
+        }
+        return mix(h);
+    }
+
+    // Spread low-entropy FNV results before masking to the slot count.
+    private static int mix(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -2,64 +2,40 @@ package tools;
 
 import com.google.adk.tools.Annotations;
 
-import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
- // Simple in-memory repository of purchase orders keyed by invoice ID.
- // In a real system this would be keyed by PO number and queried via an ERP API.
+ // Repository of purchase orders exposed to agents as tools.
+ // POs are held once per po_number in a PoRepository; invoices are resolved to their PO
+ // through a secondary invoice ID -> po_number index. In a real system the repository
+ // would be populated from an ERP API.
 public final class PoRepoTool {
 
-    // Map invoice ID -> PO data
-    private static final Map<String, Map<String, Object>> PO_BY_INVOICE_ID =
-        Map.of(
-            "INV-1001",
-            Map.of(
-                "po_number", "PO-2001",
-                "vendor", "Acme Supplies",
-                "currency", "USD",
-                "max_total", 1200.0,
-                "lines",
-                    List.of(
-                        Map.of(
-                            "line_number", 1,
-                            "description", "Office chairs",
-                            "quantity", 10,
-                            "unit_price", 100.0
-                        ),
-                        Map.of(
-                            "line_number", 2,
-                            "description", "Delivery",
-                            "quantity", 1,
-                            "unit_price", 200.0
-                        )
-                    )
-            ),
-            "INV-2001",
-            Map.of(
-                "po_number", "PO-2001",
-                "vendor", "Acme Supplies",
-                "currency", "USD",
-                "max_total", 1200.0,
-                "lines",
-                    List.of(
-                        Map.of(
-                            "line_number", 1,
-                            "description", "Office chairs",
-                            "quantity", 10,
-                            "unit_price", 100.0
-                        ),
-                        Map.of(
-                            "line_number", 2,
-                            "description", "Delivery",
-                            "quantity", 1,
-                            "unit_price", 200.0
-                        )
-                    )
-            )
-        );
+    private static volatile PoRepository repository = PoRepository.demo();
+    private static final AtomicLong repositoryVersion = new AtomicLong();
 
     private PoRepoTool() {}
 
+    /**
+     * Replaces the repository used by the tool entrypoints (e.g. for tests or an ERP export).
+     */
+    public static void useRepository(PoRepository poRepository) {
+        repository = Objects.requireNonNull(poRepository, "poRepository");
+        repositoryVersion.incrementAndGet();
+    }
+
+    public static PoRepository repository() {
+        return repository;
+    }
+
+    /**
+     * Incremented whenever the repository is replaced, so results derived from it can be keyed by it.
+     */
+    public static long repositoryVersion() {
+        return repositoryVersion.get();
+    }
+
     /**
      * Tool entrypoint: returns PO details for a given invoice ID.
      */
@@ -69,7 +45,7 @@ public final class PoRepoTool {
                     description = "The invoice ID whose PO should be loaded."
             )
             String invoiceId) {
-        Map<String, Object> po = PO_BY_INVOICE_ID.get(invoiceId);
+        Map<String, Object> po = repository.findPoForInvoice(invoiceId);
         if (po == null) {
             return Map.of(
                 "status", "not_found",
@@ -81,4 +57,26 @@ public final class PoRepoTool {
             "po", po
         );
     }
+
+    /**
+     * Tool entrypoint: returns PO details for a given PO number.
+     */
+    public static Map<String, Object> getPo(
+            @Annotations.Schema(
+                    name = "poNumber",
+                    description = "The purchase order number to look up, e.g. PO-2001."
+            )
+            String poNumber) {
+        Map<String, Object> po = repository.findPo(poNumber);
+        if (po == null) {
+            return Map.of(
+                "status", "not_found",
+                "po_number", poNumber
+            );
+        }
+        return Map.of(
+            "status", "ok",
+            "po", po
+        );
+    }
 }
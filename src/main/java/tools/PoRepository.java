@@ -0,0 +1,125 @@
+package tools;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable purchase order repository keyed by po_number, with a secondary index
+ * from invoice ID to po_number.
+ *
+ * Each PO is stored exactly once no matter how many invoices bill against it. The
+ * secondary index only holds references to the canonical po_number keys, so memory
+ * scales with the number of POs plus one small entry per invoice.
+ */
+public final class PoRepository {
+
+    private final Map<String, Map<String, Object>> posByNumber;
+    private final Map<String, String> poNumberByInvoiceId;
+
+    private PoRepository(Map<String, Map<String, Object>> posByNumber,
+                         Map<String, String> poNumberByInvoiceId) {
+        this.posByNumber = Map.copyOf(posByNumber);
+        this.poNumberByInvoiceId = Map.copyOf(poNumberByInvoiceId);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Repository holding the capstone demo PO (PO-2001), referenced by INV-1001 and INV-2001.
+     */
+    public static PoRepository demo() {
+        return builder()
+                .addPo(Map.of(
+                        "po_number", "PO-2001",
+                        "vendor", "Acme Supplies",
+                        "currency", "USD",
+                        "max_total", 1200.0,
+                        "lines",
+                            List.of(
+                                Map.of(
+                                    "line_number", 1,
+                                    "description", "Office chairs",
+                                    "quantity", 10,
+                                    "unit_price", 100.0
+                                ),
+                                Map.of(
+                                    "line_number", 2,
+                                    "description", "Delivery",
+                                    "quantity", 1,
+                                    "unit_price", 200.0
+                                )
+                            )))
+                .linkInvoice("INV-1001", "PO-2001")
+                .linkInvoice("INV-2001", "PO-2001")
+                .build();
+    }
+
+    /**
+     * Returns the PO with the given number, or null if unknown.
+     */
+    public Map<String, Object> findPo(String poNumber) {
+        return poNumber == null ? null : posByNumber.get(poNumber);
+    }
+
+    /**
+     * Returns the PO the given invoice bills against, or null if the invoice is not linked.
+     */
+    public Map<String, Object> findPoForInvoice(String invoiceId) {
+        if (invoiceId == null) {
+            return null;
+        }
+        String poNumber = poNumberByInvoiceId.get(invoiceId);
+        return poNumber == null ? null : posByNumber.get(poNumber);
+    }
+
+    public int poCount() {
+        return posByNumber.size();
+    }
+
+    public int linkedInvoiceCount() {
+        return poNumberByInvoiceId.size();
+    }
+
+    public static final class Builder {
+
+        private final Map<String, Map<String, Object>> posByNumber = new HashMap<>();
+        private final Map<String, String> poNumberByInvoiceId = new HashMap<>();
+
+        private Builder() {}
+
+        /**
+         * Adds (or replaces) a PO. The map must contain a non-blank po_number.
+         */
+        public Builder addPo(Map<String, Object> po) {
+            Object poNumber = po.get("po_number");
+            if (!(poNumber instanceof String number) || number.isBlank()) {
+                throw new IllegalArgumentException("PO is missing po_number");
+            }
+            posByNumber.put(number, Map.copyOf(po));
+            return this;
+        }
+
+        /**
+         * Links an invoice to an already added PO.
+         */
+        public Builder linkInvoice(String invoiceId, String poNumber) {
+            Objects.requireNonNull(invoiceId, "invoiceId");
+            Map<String, Object> po = posByNumber.get(poNumber);
+            if (po == null) {
+                throw new IllegalArgumentException(
+                        "Invoice " + invoiceId + " references unknown PO " + poNumber);
+            }
+            // Store the PO's own po_number instance so the index shares strings with the PO map.
+            poNumberByInvoiceId.put(invoiceId, (String) po.get("po_number"));
+            return this;
+        }
+
+        public PoRepository build() {
+            return new PoRepository(posByNumber, poNumberByInvoiceId);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package tools;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Loads a policy file into PolicySnapshots and reloads it whenever the file changes.
+ *
+ * The watcher listens on the file's directory (so editors that replace the file with a
+ * rename are picked up too) on a daemon thread. Each successful reload hands a new
+ * snapshot to the consumer; a file that fails to parse is logged and ignored, so the
+ * previous snapshot keeps serving.
+ */
+public final class PolicyFileWatcher implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PolicyFileWatcher.class);
+    private static final ObjectMapper YAML = new ObjectMapper(new YAMLFactory());
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final Path file;
+    private final Consumer<PolicySnapshot> onReload;
+    private final WatchService watchService;
+    private final Thread thread;
+
+    private PolicyFileWatcher(Path file, Consumer<PolicySnapshot> onReload) throws IOException {
+        this.file = file.toAbsolutePath();
+        this.onReload = onReload;
+        this.watchService = this.file.getFileSystem().newWatchService();
+        this.file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::watch, "policy-file-watcher");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching file and publishes every successful reload to onReload.
+     * The initial load is not published; use load(Path) for that.
+     */
+    public static PolicyFileWatcher start(Path file, Consumer<PolicySnapshot> onReload) {
+        try {
+            PolicyFileWatcher watcher = new PolicyFileWatcher(file, onReload);
+            watcher.thread.start();
+            return watcher;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to watch policy file " + file, e);
+        }
+    }
+
+    /**
+     * Parses the policy file into a snapshot with a fresh version number.
+     *
+     * @throws UncheckedIOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a valid policy document
+     */
+    public static PolicySnapshot load(Path file) {
+        Object document;
+        try {
+            document = YAML.readValue(file.toFile(), Object.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read policy file " + file, e);
+        }
+        if (!(document instanceof Map<?, ?> map)) {
+            throw new IllegalArgumentException("Policy file " + file + " must contain a mapping");
+        }
+        return PolicySnapshot.fromMap(map, VERSIONS.incrementAndGet());
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                            || file.getFileName().equals(event.context())) {
+                        changed = true;
+                    }
+                }
+                key.reset();
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Closed
+        }
+    }
+
+    private void reload() {
+        try {
+            PolicySnapshot snapshot = load(file);
+            onReload.accept(snapshot);
+            LOG.info("Reloaded AP policy from {} (version {})", file, snapshot.version());
+        } catch (RuntimeException e) {
+            // Half-written or invalid file: keep serving the previous snapshot.
+            LOG.warn("Ignoring invalid AP policy file {}: {}", file, e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            LOG.warn("Failed to close policy file watcher for {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package tools;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable AP policy thresholds, indexed by vendor, currency and invoice amount band.
+ *
+ * A snapshot is built once from a parsed policy document and never changes, so any number
+ * of threads can read it without locking. Lookups return pre-built, unmodifiable threshold
+ * maps (already carrying status "ok") and do not allocate: vendor and currency keys live
+ * in case-insensitive TreeMaps and amount bands are found by binary search over a sorted
+ * array of lower bounds.
+ *
+ * Policy document layout (YAML or JSON):
+ *
+ *   defaults:
+ *     max_line_variance_percent: 2.0
+ *     max_invoice_variance_percent: 1.0
+ *     auto_approval_max_amount: 1300.0
+ *   rules:
+ *     - vendor: "Acme Supplies"     # optional, omitted or "*" matches any vendor
+ *       currency: USD               # optional, omitted or "*" matches any currency
+ *       min_amount: 10000           # optional lower bound of the amount band, default 0
+ *       auto_approval_max_amount: 5000.0
+ *
+ * Fields a rule does not set are inherited from defaults. The most specific rule wins:
+ * vendor + currency, then vendor only, then currency only, then wildcard rules, then
+ * defaults. Within one vendor / currency pair the band with the highest min_amount not
+ * above the invoice amount applies.
+ */
+public final class PolicySnapshot {
+
+    public static final String MAX_LINE_VARIANCE_PERCENT = "max_line_variance_percent";
+    public static final String MAX_INVOICE_VARIANCE_PERCENT = "max_invoice_variance_percent";
+    public static final String AUTO_APPROVAL_MAX_AMOUNT = "auto_approval_max_amount";
+
+    static final String ANY = "*";
+
+    private static final List<String> FIELDS =
+            List.of(MAX_LINE_VARIANCE_PERCENT, MAX_INVOICE_VARIANCE_PERCENT, AUTO_APPROVAL_MAX_AMOUNT);
+
+    private final long version;
+    private final Map<String, Object> defaults;
+    // vendor -> currency -> amount bands; ANY is a regular key in both levels.
+    private final TreeMap<String, TreeMap<String, Bands>> index;
+
+    private PolicySnapshot(long version, Map<String, Object> defaults,
+                           TreeMap<String, TreeMap<String, Bands>> index) {
+        this.version = version;
+        this.defaults = defaults;
+        this.index = index;
+    }
+
+    /**
+     * Snapshot with only the built-in global thresholds (the original capstone values).
+     */
+    public static PolicySnapshot builtIn() {
+        return fromMap(Map.of("defaults", Map.of(
+                MAX_LINE_VARIANCE_PERCENT, 2.0,
+                MAX_INVOICE_VARIANCE_PERCENT, 1.0,
+                AUTO_APPROVAL_MAX_AMOUNT, 1300.0)), 0L);
+    }
+
+    /**
+     * Builds a snapshot from a parsed policy document.
+     *
+     * @throws IllegalArgumentException if the document is malformed
+     */
+    public static PolicySnapshot fromMap(Map<?, ?> document, long version) {
+        Map<?, ?> rawDefaults = asMap(document.get("defaults"), "defaults");
+        Map<String, Object> defaults = thresholds(rawDefaults, null, "defaults");
+
+        Map<String, Map<String, List<Band>>> grouped = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        Object rawRules = document.get("rules");
+        if (rawRules != null) {
+            if (!(rawRules instanceof List<?> rules)) {
+                throw new IllegalArgumentException("rules must be a list");
+            }
+            for (int i = 0; i < rules.size(); i++) {
+                String where = "rules[" + i + "]";
+                Map<?, ?> rule = asMap(rules.get(i), where);
+                String vendor = key(rule.get("vendor"));
+                String currency = key(rule.get("currency"));
+                double minAmount = rule.get("min_amount") == null ? 0.0 : number(rule.get("min_amount"), where + ".min_amount");
+                grouped.computeIfAbsent(vendor, v -> new TreeMap<>(String.CASE_INSENSITIVE_ORDER))
+                        .computeIfAbsent(currency, c -> new ArrayList<>())
+                        .add(new Band(minAmount, thresholds(rule, defaults, where)));
+            }
+        }
+
+        TreeMap<String, TreeMap<String, Bands>> index = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        grouped.forEach((vendor, byCurrency) -> {
+            TreeMap<String, Bands> currencies = index.computeIfAbsent(
+                    vendor, v -> new TreeMap<>(String.CASE_INSENSITIVE_ORDER));
+            byCurrency.forEach((currency, bands) -> currencies.put(currency, Bands.of(vendor, currency, bands)));
+        });
+
+        return new PolicySnapshot(version, defaults, index);
+    }
+
+    /**
+     * Thresholds for an invoice, most specific rule first. Never null.
+     *
+     * @param amount invoice total; NaN (unknown) is treated as 0
+     */
+    public Map<String, Object> thresholdsFor(String vendor, String currency, double amount) {
+        Map<String, Object> match;
+        if ((match = lookup(vendor, currency, amount)) != null
+                || (match = lookup(vendor, ANY, amount)) != null
+                || (match = lookup(ANY, currency, amount)) != null
+                || (match = lookup(ANY, ANY, amount)) != null) {
+            return match;
+        }
+        return defaults;
+    }
+
+    /**
+     * Global thresholds from the defaults section.
+     */
+    public Map<String, Object> defaults() {
+        return defaults;
+    }
+
+    /**
+     * Monotonic version assigned by the loader; changes whenever the policy is reloaded.
+     */
+    public long version() {
+        return version;
+    }
+
+    private Map<String, Object> lookup(String vendor, String currency, double amount) {
+        if (vendor == null || currency == null) {
+            return null;
+        }
+        TreeMap<String, Bands> byCurrency = index.get(vendor);
+        if (byCurrency == null) {
+            return null;
+        }
+        Bands bands = byCurrency.get(currency);
+        return bands == null ? null : bands.find(amount);
+    }
+
+    private static Map<String, Object> thresholds(Map<?, ?> source, Map<String, Object> inherited, String where) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("status", "ok");
+        for (String field : FIELDS) {
+            Object raw = source.get(field);
+            if (raw != null) {
+                result.put(field, number(raw, where + "." + field));
+            } else if (inherited != null) {
+                result.put(field, inherited.get(field));
+            } else {
+                throw new IllegalArgumentException(where + "." + field + " is required");
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static String key(Object raw) {
+        if (raw == null) {
+            return ANY;
+        }
+        String s = raw.toString().trim();
+        return s.isEmpty() ? ANY : s;
+    }
+
+    private static Map<?, ?> asMap(Object raw, String where) {
+        if (!(raw instanceof Map<?, ?> map)) {
+            throw new IllegalArgumentException(where + " must be a mapping");
+        }
+        return map;
+    }
+
+    private static double number(Object raw, String where) {
+        if (raw instanceof Number n) {
+            return n.doubleValue();
+        }
+        if (raw instanceof String s) {
+            try {
+                return Double.parseDouble(s.trim());
+            } catch (NumberFormatException e) {
+                // fall through
+            }
+        }
+        throw new IllegalArgumentException(where + " must be a number");
+    }
+
+    private record Band(double minAmount, Map<String, Object> thresholds) {}
+
+    // Bands of one vendor / currency pair, sorted by lower bound.
+    private static final class Bands {
+        private final double[] lowerBounds;
+        private final Map<String, Object>[] thresholds;
+
+        @SuppressWarnings("unchecked")
+        private Bands(List<Band> sorted) {
+            this.lowerBounds = new double[sorted.size()];
+            this.thresholds = new Map[sorted.size()];
+            for (int i = 0; i < sorted.size(); i++) {
+                lowerBounds[i] = sorted.get(i).minAmount();
+                thresholds[i] = sorted.get(i).thresholds();
+            }
+        }
+
+        static Bands of(String vendor, String currency, List<Band> bands) {
+            List<Band> sorted = new ArrayList<>(bands);
+            sorted.sort(Comparator.comparingDouble(Band::minAmount));
+            for (int i = 1; i < sorted.size(); i++) {
+                if (sorted.get(i).minAmount() == sorted.get(i - 1).minAmount()) {
+                    throw new IllegalArgumentException("Duplicate rule for vendor '" + vendor + "', currency '"
+                            + currency + "', min_amount " + sorted.get(i).minAmount());
+                }
+            }
+            return new Bands(sorted);
+        }
+
+        Map<String, Object> find(double amount) {
+            int i = Arrays.binarySearch(lowerBounds, Double.isNaN(amount) ? 0.0 : amount);
+            // Exact hit, or the band whose lower bound precedes the insertion point.
+            // Below the first band, no rule of this pair applies.
+            int band = i >= 0 ? i : -i - 2;
+            return band < 0 ? null : thresholds[band];
+        }
+    }
+}
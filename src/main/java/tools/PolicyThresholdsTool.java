@@ -1,30 +1,68 @@
 package tools;
 
+import com.google.adk.tools.Annotations;
+
+import java.nio.file.Path;
 import java.util.Map;
+import java.util.Objects;
 
 /**
- * Simple AP policy thresholds for variance and auto-approval.
+ * AP policy thresholds for variance and auto-approval.
  *
- * This is a "quick win" missing the capability to have a configurable policy
- * layer the agent can consult instead of hard-coding logic in prompts.
+ * Thresholds come from an immutable PolicySnapshot. By default this holds the original
+ * global values; setting AP_POLICY_FILE loads per-vendor / per-currency / per-amount-band
+ * rules from that file and reloads them whenever it changes, without a restart. Readers
+ * always see a complete snapshot: a reload builds a new one and swaps the reference.
  */
 public final class PolicyThresholdsTool {
 
+    private static volatile PolicySnapshot snapshot = PolicySnapshot.builtIn();
+
+    static {
+        String file = System.getenv("AP_POLICY_FILE");
+        if (file != null && !file.isBlank()) {
+            Path path = Path.of(file.trim());
+            snapshot = PolicyFileWatcher.load(path);
+            PolicyFileWatcher.start(path, PolicyThresholdsTool::useSnapshot);
+        }
+    }
+
     private PolicyThresholdsTool() {}
 
     /**
-     * Returns thresholds used to decide whether an invoice is OK_TO_PAY vs REVIEW.
+     * Replaces the snapshot served by the tool entrypoints (e.g. for tests).
+     */
+    public static void useSnapshot(PolicySnapshot policySnapshot) {
+        snapshot = Objects.requireNonNull(policySnapshot, "policySnapshot");
+    }
+
+    public static PolicySnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the global thresholds used to decide whether an invoice is OK_TO_PAY vs REVIEW.
      */
     public static Map<String, Object> getThresholds() {
-        return Map.of(
-            "status", "ok",
-            // max allowed line-level variance (percent) for quantity or unit price
-            "max_line_variance_percent", 2.0,
-            // max allowed invoice total variance vs PO max_total (percent)
-            "max_invoice_variance_percent", 1.0,
-            // max invoice amount that can be auto-approved
-            "auto_approval_max_amount", 1300.0
-        );
+        return snapshot.defaults();
     }
-}
 
+    /**
+     * Tool entrypoint: returns the thresholds that apply to a given invoice, based on its
+     * vendor, currency and total. Unknown invoices get the global thresholds.
+     */
+    public static Map<String, Object> getThresholdsForInvoice(
+            @Annotations.Schema(
+                    name = "invoiceId",
+                    description = "The invoice ID whose policy thresholds should be loaded."
+            )
+            String invoiceId) {
+        PolicySnapshot current = snapshot;
+        // Only the fields that select the thresholds; the invoice lines are not decoded.
+        InvoiceStore.PolicyInputs invoice = InvoiceRepoTool.store().findPolicyInputs(invoiceId);
+        if (invoice == null) {
+            return current.defaults();
+        }
+        return current.thresholdsFor(invoice.vendor(), invoice.currency(), invoice.total());
+    }
+}
@@ -1,5 +1,6 @@
 package userinterface;
 
+import com.google.adk.agents.RunConfig;
 import com.google.adk.events.Event;
 import com.google.adk.runner.Runner;
 import com.google.adk.sessions.Session;
@@ -13,6 +14,7 @@ import observability.RunRecorder;
 
 import java.util.Objects;
 import java.util.Scanner;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 
@@ -24,12 +26,24 @@ public class ChatUI {
     // so it shows up as a metric attribute.
     private final String agentName;
 
+    // Streaming: the formatter's reply is printed token by token as the model produces it,
+    // instead of once the whole pipeline has finished.
+    private final RunConfig runConfig;
+
     public ChatUI() {
         this("HelpfulAgent"); // default
     }
 
+    // Streams unless AP_CHAT_STREAMING=false.
     public ChatUI(String agentName) {
+        this(agentName, !"false".equalsIgnoreCase(Objects.requireNonNullElse(System.getenv("AP_CHAT_STREAMING"), "").trim()));
+    }
+
+    public ChatUI(String agentName, boolean streaming) {
         this.agentName = agentName;
+        this.runConfig = RunConfig.builder()
+                .setStreamingMode(streaming ? RunConfig.StreamingMode.SSE : RunConfig.StreamingMode.NONE)
+                .build();
     }
 
     public void chat(Runner runner, Session session)
@@ -51,13 +65,31 @@ public class ChatUI {
                 long startNanos = System.nanoTime();
                 String status = "ok";
 
+                // Set once the first reply text is on screen (time-to-first-token).
+                AtomicBoolean firstToken = new AtomicBoolean();
+
                 try{
-                    Flowable<Event> events = runner.runAsync(session.userId(), session.id(), userMsg);
+                    Flowable<Event> events = runner.runAsync(session.userId(), session.id(), userMsg, runConfig);
 
                     System.out.print("\nAgent >");
                     events.blockingForEach(event -> {
-                        if (event.finalResponse() && Objects.equals(event.author(), FinalResponseAgentName.VALUE)) {
-                            System.out.println(event.stringifyContent());
+                        if (!Objects.equals(event.author(), FinalResponseAgentName.VALUE)) {
+                            return;
+                        }
+                        if (event.partial().orElse(false)) {
+                            // Streaming chunk: only the newly generated text.
+                            String delta = event.stringifyContent();
+                            if (!delta.isEmpty()) {
+                                recordFirstToken(firstToken, startNanos);
+                                System.out.print(delta);
+                                System.out.flush();
+                            }
+                        } else if (event.finalResponse()) {
+                            // The final event repeats the full reply; print it only if nothing streamed.
+                            if (recordFirstToken(firstToken, startNanos)) {
+                                System.out.print(event.stringifyContent());
+                            }
+                            System.out.println();
                         }
                     });
                 } catch (Exception e) {
@@ -74,4 +106,15 @@ public class ChatUI {
             }
         }
     }
+
+    // Returns true if this call recorded the first token of the run.
+    private boolean recordFirstToken(AtomicBoolean firstToken, long startNanos)
+    {
+        if (!firstToken.compareAndSet(false, true))
+        {
+            return false;
+        }
+        runRecorder.recordTimeToFirstToken(agentName, MetricsHelper.computeLatencyMs(startNanos));
+        return true;
+    }
 }
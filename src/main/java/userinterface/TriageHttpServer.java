@@ -0,0 +1,273 @@
+package userinterface;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.adk.agents.RunConfig;
+import com.google.adk.events.Event;
+import com.google.adk.runner.Runner;
+import com.google.adk.sessions.Session;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import constants.FinalResponseAgentName;
+import observability.MetricsHelper;
+import orchestrator.TriageCoalescer;
+import observability.RunRecorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * HTTP front end for the AP pipeline, streaming each triage back as Server-Sent Events.
+ *
+ * Every exchange is handled on its own virtual thread, so a client waiting on the model
+ * costs a parked virtual thread rather than a platform thread. Each request runs in a
+ * fresh session that is deleted when the stream ends. Concurrent requests about the same
+ * invoice share one pipeline run (see orchestrator.TriageCoalescer).
+ *
+ * Endpoints:
+ *   POST /triage   body: plain text, or JSON {"message": "..."}, at most 64 KiB (else 413);
+ *                  optional X-User-Id header.
+ *                  Responds with text/event-stream:
+ *                    event: session   {"session_id": "..."}
+ *                    event: decision  ap_decision_json, once the comparison stage has run
+ *                    event: delta     partial ap_reply_formatter text, as it is generated
+ *                    event: reply     the complete ap_reply_formatter text
+ *                    event: error     message, if the run failed
+ *                    event: done
+ *   GET  /health   200 "ok"
+ *
+ * The server has no authentication, so it listens on the loopback interface unless
+ * AP_HTTP_BIND names another address (e.g. 0.0.0.0); only do that behind an
+ * authenticating proxy.
+ */
+public final class TriageHttpServer implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TriageHttpServer.class);
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int MAX_BODY_BYTES = 64 * 1024;
+    private static final int BACKLOG = 1024;
+    private static final String DECISION_KEY = "ap_decision_json";
+
+    private final Runner runner;
+    private final TriageCoalescer coalescer;
+    private final String defaultUserId;
+    private final RunConfig runConfig;
+    private final RunRecorder runRecorder = new RunRecorder();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final HttpServer server;
+
+    public TriageHttpServer(Runner runner, String defaultUserId, int port) throws IOException {
+        this(runner, defaultUserId, bindAddress(System.getenv("AP_HTTP_BIND"), port));
+    }
+
+    public TriageHttpServer(Runner runner, String defaultUserId, InetSocketAddress address) throws IOException {
+        this.runner = runner;
+        this.coalescer = new TriageCoalescer(runner);
+        this.defaultUserId = defaultUserId;
+        // SSE streaming so formatter tokens reach the client as the model produces them.
+        this.runConfig = RunConfig.builder().setStreamingMode(RunConfig.StreamingMode.SSE).build();
+        this.server = HttpServer.create(address, BACKLOG);
+        this.server.setExecutor(executor);
+        this.server.createContext("/triage", this::handleTriage);
+        this.server.createContext("/health", this::handleHealth);
+    }
+
+    /**
+     * The loopback address, or the host named by bindHost (AP_HTTP_BIND) when set.
+     */
+    static InetSocketAddress bindAddress(String bindHost, int port) {
+        if (bindHost == null || bindHost.isBlank()) {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        }
+        return new InetSocketAddress(bindHost.trim(), port);
+    }
+
+    public void start() {
+        server.start();
+        InetSocketAddress address = server.getAddress();
+        if (address.getAddress().isLoopbackAddress()) {
+            LOG.info("Triage server listening on {}", address);
+        } else {
+            LOG.warn("Triage server listening on {} without authentication", address);
+        }
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public InetSocketAddress address() {
+        return server.getAddress();
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            sendPlain(exchange, 200, "ok");
+        }
+    }
+
+    private void handleTriage(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                sendPlain(exchange, 405, "POST required");
+                return;
+            }
+
+            byte[] body = readBody(exchange);
+            if (body == null) {
+                sendPlain(exchange, 413, "Request body exceeds " + MAX_BODY_BYTES + " bytes");
+                return;
+            }
+            String message = parseMessage(exchange, body);
+            if (message == null || message.isBlank()) {
+                sendPlain(exchange, 400, "Request body must be text or JSON {\"message\": \"...\"}");
+                return;
+            }
+
+            String userId = exchange.getRequestHeaders().getFirst("X-User-Id");
+            if (userId == null || userId.isBlank()) {
+                userId = defaultUserId;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream; charset=utf-8");
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+
+            stream(exchange.getResponseBody(), userId, message);
+        }
+    }
+
+    private void stream(OutputStream out, String userId, String message) throws IOException {
+        long startNanos = System.nanoTime();
+        String status = "ok";
+        boolean[] firstToken = {false};
+
+        Session session = runner.sessionService().createSession(runner.appName(), userId).blockingGet();
+        try {
+            writeEvent(out, "session", MAPPER.writeValueAsString(Map.of("session_id", session.id())));
+
+            Content userMsg = Content.fromParts(Part.fromText(message));
+            coalescer.runAsync(session, userMsg, runConfig).blockingForEach(event -> {
+                Object decision = decision(event);
+                if (decision != null) {
+                    writeEvent(out, "decision", String.valueOf(decision));
+                }
+                if (FinalResponseAgentName.VALUE.equals(event.author())) {
+                    if (!firstToken[0] && (event.partial().orElse(false) || event.finalResponse())) {
+                        firstToken[0] = true;
+                        runRecorder.recordTimeToFirstToken(runner.appName(), MetricsHelper.computeLatencyMs(startNanos));
+                    }
+                    if (event.partial().orElse(false)) {
+                        writeEvent(out, "delta", event.stringifyContent());
+                    } else if (event.finalResponse()) {
+                        writeEvent(out, "reply", event.stringifyContent());
+                    }
+                }
+            });
+            writeEvent(out, "done", "");
+        } catch (ClientDisconnectedException e) {
+            // Client went away; blockingForEach has already cancelled the run.
+            status = "error";
+            LOG.debug("Client disconnected from session {}", session.id());
+        } catch (RuntimeException e) {
+            status = "error";
+            LOG.warn("Triage failed for session {}", session.id(), e);
+            writeEvent(out, "error", String.valueOf(e.getMessage()));
+            writeEvent(out, "done", "");
+        } finally {
+            runner.sessionService()
+                    .deleteSession(runner.appName(), session.userId(), session.id())
+                    .onErrorComplete()
+                    .blockingAwait();
+            runRecorder.recordAgentRun(runner.appName(), MetricsHelper.computeLatencyMs(startNanos), status);
+        }
+    }
+
+    private static Object decision(Event event) {
+        if (event.actions() == null || event.actions().stateDelta() == null) {
+            return null;
+        }
+        return event.actions().stateDelta().get(DECISION_KEY);
+    }
+
+    // The request body, or null if it is longer than MAX_BODY_BYTES.
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        String declared = exchange.getRequestHeaders().getFirst("Content-Length");
+        if (declared != null) {
+            try {
+                if (Long.parseLong(declared.trim()) > MAX_BODY_BYTES) {
+                    return null;
+                }
+            } catch (NumberFormatException e) {
+                // Let the read below decide.
+            }
+        }
+        byte[] body;
+        try (InputStream in = exchange.getRequestBody()) {
+            body = in.readNBytes(MAX_BODY_BYTES + 1);
+        }
+        return body.length > MAX_BODY_BYTES ? null : body;
+    }
+
+    private static String parseMessage(HttpExchange exchange, byte[] body) {
+        String text = new String(body, StandardCharsets.UTF_8).trim();
+
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        if (contentType != null && contentType.contains("json")) {
+            try {
+                Object message = MAPPER.readValue(text, Map.class).get("message");
+                return message instanceof String s ? s : null;
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        return text;
+    }
+
+    // One SSE event; multi-line data is split across data: fields as the spec requires.
+    private static void writeEvent(OutputStream out, String event, String data) {
+        StringBuilder sb = new StringBuilder("event: ").append(event).append('\n');
+        for (String line : data.split("\n", -1)) {
+            sb.append("data: ").append(line).append('\n');
+        }
+        sb.append('\n');
+        try {
+            out.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+            out.flush();
+        } catch (IOException e) {
+            throw new ClientDisconnectedException(e);
+        }
+    }
+
+    private static void sendPlain(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+    }
+
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.close();
+    }
+
+    // Thrown by writeEvent only, so other I/O failures of a run are not mistaken for a disconnect.
+    private static final class ClientDisconnectedException extends UncheckedIOException {
+        ClientDisconnectedException(IOException cause) {
+            super(cause);
+        }
+    }
+}
@@ -22,12 +22,16 @@ import java.util.concurrent.ConcurrentHashMap;
 /**
  * Small helper for constructing minimal InvocationContext instances for tests.
  */
-final class InvocationContextTestUtils {
+public final class InvocationContextTestUtils {
 
     private InvocationContextTestUtils() {
     }
 
-    static InvocationContext createMinimalInvocationContext(com.google.adk.agents.BaseAgent agent) {
+    public static InvocationContext createMinimalInvocationContext(com.google.adk.agents.BaseAgent agent) {
+        return createMinimalInvocationContext(agent, "callback test");
+    }
+
+    public static InvocationContext createMinimalInvocationContext(com.google.adk.agents.BaseAgent agent, String userText) {
         BaseSessionService sessionService = new InMemorySessionService();
         BaseArtifactService artifactService = new InMemoryArtifactService();
         BaseMemoryService memoryService = new InMemoryMemoryService();
@@ -49,7 +53,7 @@ final class InvocationContextTestUtils {
                 .setMaxLlmCalls(100)
                 .build();
 
-        Content userContent = Content.fromParts(Part.fromText("callback test"));
+        Content userContent = Content.fromParts(Part.fromText(userText));
 
         return InvocationContext.create(
                 sessionService,
@@ -0,0 +1,103 @@
+package agents;
+
+import cache.CachingTool;
+import com.google.adk.agents.BaseAgent;
+import com.google.adk.agents.InvocationContext;
+import com.google.adk.events.Event;
+import com.google.adk.tools.BaseTool;
+import com.google.adk.tools.ToolContext;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.core.Single;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SpeculativePrefetchAgentTest {
+
+    @Test
+    public void runAsync_loaderReusesPrefetchAndWrongGuessIsNotCached() throws Exception {
+        InvoiceTool delegate = new InvoiceTool(2);
+        CachingTool tool = CachingTool.wrap(delegate, Duration.ofMinutes(1), 10);
+        LoaderAgent loader = new LoaderAgent(tool, delegate.completed);
+        SpeculativePrefetchAgent agent = new SpeculativePrefetchAgent(
+                "SpeculativeIntake", "test", "invoice_id", 2,
+                List.of(new SpeculativePrefetchAgent.Prefetch(tool, Map.of("invoiceId", "{invoice_id}"))),
+                List.of(loader), null, null);
+        InvocationContext ctx = InvocationContextTestUtils.createMinimalInvocationContext(
+                agent, "Is INV-1001 a duplicate of INV-9999?");
+
+        agent.runAsync(ctx).toList().blockingGet();
+
+        // Both guesses were prefetched once; the loader's call was served from the cache.
+        assertEquals("ok", loader.result.get().get("status"));
+        assertEquals(1, delegate.loads("INV-1001"));
+        assertEquals(1, delegate.loads("INV-9999"));
+
+        // The wrong guess resolved not_found, which must not be served from the cache.
+        tool.runAsync(Map.of("invoiceId", "INV-9999"), null).blockingGet();
+        assertEquals(2, delegate.loads("INV-9999"));
+    }
+
+    // Knows INV-1001 only; counts loads per invoice.
+    private static final class InvoiceTool extends BaseTool {
+        final ConcurrentHashMap<String, AtomicInteger> loads = new ConcurrentHashMap<>();
+        final CountDownLatch completed;
+
+        InvoiceTool(int expectedPrefetches) {
+            super("getInvoice", "test tool");
+            this.completed = new CountDownLatch(expectedPrefetches);
+        }
+
+        int loads(String invoiceId) {
+            AtomicInteger count = loads.get(invoiceId);
+            return count == null ? 0 : count.get();
+        }
+
+        @Override
+        public Single<Map<String, Object>> runAsync(Map<String, Object> args, ToolContext toolContext) {
+            String invoiceId = String.valueOf(args.get("invoiceId"));
+            loads.computeIfAbsent(invoiceId, k -> new AtomicInteger()).incrementAndGet();
+            Map<String, Object> result = "INV-1001".equals(invoiceId)
+                    ? Map.of("status", "ok", "invoice_id", invoiceId)
+                    : Map.of("status", "not_found");
+            return Single.just(result).doOnSuccess(r -> completed.countDown());
+        }
+    }
+
+    // Stands in for intake plus the data loader: waits for the prefetches, then loads the real ID.
+    private static final class LoaderAgent extends BaseAgent {
+        final AtomicReference<Map<String, Object>> result = new AtomicReference<>();
+        private final CachingTool tool;
+        private final CountDownLatch prefetched;
+
+        LoaderAgent(CachingTool tool, CountDownLatch prefetched) {
+            super("Loader", "Test-only loader.", List.of(), null, null);
+            this.tool = tool;
+            this.prefetched = prefetched;
+        }
+
+        @Override
+        protected Flowable<Event> runAsyncImpl(InvocationContext ctx) {
+            return Flowable.defer(() -> {
+                assertTrue(prefetched.await(5, TimeUnit.SECONDS));
+                result.set(tool.runAsync(Map.of("invoiceId", "INV-1001"), ToolContext.builder(ctx).build()).blockingGet());
+                return Flowable.just(Event.builder().author(name()).build());
+            });
+        }
+
+        @Override
+        protected Flowable<Event> runLiveImpl(InvocationContext ctx) {
+            return runAsyncImpl(ctx);
+        }
+    }
+}
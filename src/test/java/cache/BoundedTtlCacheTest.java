@@ -0,0 +1,40 @@
+package cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class BoundedTtlCacheTest {
+
+    @Test
+    public void put_evictsLeastRecentlyUsedBeyondMaxEntries() {
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(2, Duration.ofMinutes(1));
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.get("a");
+        cache.put("c", "3");
+
+        assertEquals("1", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals("3", cache.get("c"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void get_dropsEntriesOlderThanTtl() {
+        AtomicLong now = new AtomicLong();
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10, Duration.ofSeconds(5), now::get);
+        cache.put("a", "1");
+
+        now.set(Duration.ofSeconds(4).toNanos());
+        assertEquals("1", cache.get("a"));
+
+        now.set(Duration.ofSeconds(5).toNanos());
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,118 @@
+package cache;
+
+import com.google.adk.tools.BaseTool;
+import com.google.adk.tools.ToolContext;
+import io.reactivex.rxjava3.core.Single;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class CachingToolTest {
+
+    // Completes each load only when the test releases it.
+    private static final class GatedTool extends BaseTool {
+        final AtomicInteger loads = new AtomicInteger();
+        final CompletableFuture<Void> gate = new CompletableFuture<>();
+
+        GatedTool() {
+            super("getInvoice", "test tool");
+        }
+
+        @Override
+        public Single<Map<String, Object>> runAsync(Map<String, Object> args, ToolContext toolContext) {
+            loads.incrementAndGet();
+            return Single.fromCompletionStage(gate.thenApply(v -> Map.<String, Object>of("status", "ok", "args", args)));
+        }
+    }
+
+    @Test
+    public void runAsync_concurrentMissesShareOneLoad() {
+        GatedTool delegate = new GatedTool();
+        CachingTool tool = CachingTool.wrap(delegate, Duration.ofMinutes(1), 10);
+
+        Single<Map<String, Object>> first = tool.runAsync(Map.of("invoiceId", "INV-1001"), null).cache();
+        Single<Map<String, Object>> second = tool.runAsync(Map.of("invoiceId", "INV-1001"), null).cache();
+        first.subscribe();
+        second.subscribe();
+        delegate.gate.complete(null);
+
+        assertSame(first.blockingGet(), second.blockingGet());
+        assertEquals(1, delegate.loads.get());
+    }
+
+    @Test
+    public void runAsync_newDataVersionMissesOldResults() {
+        GatedTool delegate = new GatedTool();
+        delegate.gate.complete(null);
+        AtomicInteger version = new AtomicInteger();
+        CachingTool tool = CachingTool.wrap(delegate, Duration.ofMinutes(1), 10, () -> "v" + version.get());
+
+        tool.runAsync(Map.of("invoiceId", "INV-1001"), null).blockingGet();
+        tool.runAsync(Map.of("invoiceId", "INV-1001"), null).blockingGet();
+        version.incrementAndGet();
+        tool.runAsync(Map.of("invoiceId", "INV-1001"), null).blockingGet();
+
+        assertEquals(2, delegate.loads.get());
+    }
+
+    @Test
+    public void invalidate_forcesReloadForThoseArgumentsOnly() {
+        GatedTool delegate = new GatedTool();
+        delegate.gate.complete(null);
+        CachingTool tool = CachingTool.wrap(delegate, Duration.ofMinutes(1), 10);
+
+        tool.runAsync(Map.of("invoiceId", "INV-1001"), null).blockingGet();
+        tool.runAsync(Map.of("invoiceId", "INV-2001"), null).blockingGet();
+        tool.invalidate(Map.of("invoiceId", "INV-1001"));
+        tool.runAsync(Map.of("invoiceId", "INV-1001"), null).blockingGet();
+        tool.runAsync(Map.of("invoiceId", "INV-2001"), null).blockingGet();
+
+        assertEquals(3, delegate.loads.get());
+    }
+
+    @Test
+    public void runAsync_synchronousDelegateFailureIsNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        BaseTool delegate = new BaseTool("getInvoice", "test tool") {
+            @Override
+            public Single<Map<String, Object>> runAsync(Map<String, Object> args, ToolContext toolContext) {
+                if (loads.incrementAndGet() == 1) {
+                    throw new IllegalArgumentException("bad arguments");
+                }
+                return Single.just(Map.of("status", "ok"));
+            }
+        };
+        CachingTool tool = CachingTool.wrap(delegate, Duration.ofMinutes(1), 10);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> tool.runAsync(Map.of("invoiceId", "INV-1001"), null).blockingGet());
+        assertEquals(Map.of("status", "ok"), tool.runAsync(Map.of("invoiceId", "INV-1001"), null).blockingGet());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void runAsync_notFoundResultsAreNotCached() {
+        AtomicInteger loads = new AtomicInteger();
+        BaseTool delegate = new BaseTool("getInvoice", "test tool") {
+            @Override
+            public Single<Map<String, Object>> runAsync(Map<String, Object> args, ToolContext toolContext) {
+                return Single.just(loads.incrementAndGet() == 1
+                        ? Map.of("status", "not_found")
+                        : Map.of("status", "ok"));
+            }
+        };
+        CachingTool tool = CachingTool.wrap(delegate, Duration.ofMinutes(1), 10);
+
+        assertEquals("not_found", tool.runAsync(Map.of("invoiceId", "INV-3001"), null).blockingGet().get("status"));
+        assertEquals("ok", tool.runAsync(Map.of("invoiceId", "INV-3001"), null).blockingGet().get("status"));
+        assertEquals("ok", tool.runAsync(Map.of("invoiceId", "INV-3001"), null).blockingGet().get("status"));
+        assertEquals(2, loads.get());
+    }
+}
@@ -0,0 +1,68 @@
+package cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DiskCacheTierTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void put_evictsOldestEntriesOverTheCap() throws Exception {
+        DiskCacheTier tier = new DiskCacheTier(tempDir, Duration.ofHours(1), 250);
+        String value = "x".repeat(100);
+
+        tier.put(key(1), value);
+        ageEntry(key(1), 60);
+        tier.put(key(2), value);
+        ageEntry(key(2), 30);
+        tier.put(key(3), value);
+
+        assertNull(tier.get(key(1)));
+        assertEquals(value, tier.get(key(2)));
+        assertEquals(value, tier.get(key(3)));
+        assertEquals(200, tier.totalBytes());
+    }
+
+    @Test
+    public void open_countsExistingEntriesAndRemovesTempFiles() throws Exception {
+        new DiskCacheTier(tempDir, Duration.ofHours(1), 1_000).put(key(1), "x".repeat(100));
+        Path leftover = Files.writeString(tempDir.resolve(key(2) + "123.tmp"), "partial");
+
+        DiskCacheTier reopened = new DiskCacheTier(tempDir, Duration.ofHours(1), 1_000);
+
+        assertEquals(100, reopened.totalBytes());
+        assertFalse(Files.exists(leftover));
+        assertTrue(Files.exists(tempDir.resolve(key(1) + ".json")));
+    }
+
+    @Test
+    public void put_skipsValuesLargerThanTheCap() {
+        DiskCacheTier tier = new DiskCacheTier(tempDir, Duration.ofHours(1), 10);
+
+        tier.put(key(1), "x".repeat(11));
+
+        assertNull(tier.get(key(1)));
+        assertEquals(0, tier.totalBytes());
+    }
+
+    private void ageEntry(String key, int minutes) throws Exception {
+        Path file = tempDir.resolve(key + ".json");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis() - minutes * 60_000L));
+    }
+
+    private static String key(int n) {
+        return String.format("%016x", n);
+    }
+}
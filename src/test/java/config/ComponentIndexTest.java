@@ -0,0 +1,111 @@
+package config;
+
+import com.google.adk.agents.BaseAgent;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ComponentIndexTest {
+
+    @Test
+    public void index_agentClassesExist() throws Exception {
+        ComponentIndex index = ComponentIndex.load();
+
+        assertFalse(index.agents().isEmpty());
+        for (Map.Entry<String, String> agent : index.agents().entrySet()) {
+            // Resolve without initializing: the index must not need the class to be usable.
+            Class<?> type = Class.forName(agent.getValue(), false, getClass().getClassLoader());
+            assertEquals(agent.getKey(), type.getName(), "agentClass names match their class");
+        }
+    }
+
+    @Test
+    public void index_toolMethodsArePublicStatic() throws Exception {
+        ComponentIndex index = ComponentIndex.load();
+
+        assertFalse(index.tools().isEmpty());
+        for (String tool : index.tools().keySet()) {
+            Class<?> type = Class.forName(ComponentIndex.toolClass(tool), false, getClass().getClassLoader());
+            String method = ComponentIndex.toolMethod(tool);
+            Method found = Arrays.stream(type.getMethods())
+                    .filter(m -> m.getName().equals(method))
+                    .findFirst()
+                    .orElseThrow(() -> new AssertionError("No public method " + tool));
+            assertTrue(Modifier.isStatic(found.getModifiers()), tool + " must be static");
+        }
+    }
+
+    @Test
+    public void index_callbackFactoriesArePublicStaticWithoutArguments() throws Exception {
+        ComponentIndex index = ComponentIndex.load();
+
+        assertFalse(index.callbacks().isEmpty());
+        for (String factory : index.callbacks().values()) {
+            Class<?> type = Class.forName(ComponentIndex.toolClass(factory), false, getClass().getClassLoader());
+            Method method = type.getMethod(ComponentIndex.toolMethod(factory));
+            assertTrue(Modifier.isStatic(method.getModifiers()), factory + " must be static");
+        }
+    }
+
+    @Test
+    public void index_listsEveryAgentClass() throws Exception {
+        ComponentIndex index = ComponentIndex.load();
+
+        for (Class<?> type : classesIn("agents")) {
+            if (BaseAgent.class.isAssignableFrom(type) && Modifier.isPublic(type.getModifiers())
+                    && !Modifier.isAbstract(type.getModifiers())) {
+                assertTrue(index.agents().containsKey(type.getName()),
+                        type.getName() + " is missing from " + ComponentIndex.RESOURCE);
+            }
+        }
+    }
+
+    @Test
+    public void index_listsEveryToolMethod() throws Exception {
+        ComponentIndex index = ComponentIndex.load();
+
+        // Tool entrypoints are the public static Map-returning methods of tools.*Tool classes.
+        for (Class<?> type : classesIn("tools")) {
+            if (!type.getSimpleName().endsWith("Tool")) {
+                continue;
+            }
+            for (Method method : type.getDeclaredMethods()) {
+                if (Modifier.isPublic(method.getModifiers()) && Modifier.isStatic(method.getModifiers())
+                        && Map.class.isAssignableFrom(method.getReturnType())) {
+                    String tool = type.getName() + "#" + method.getName();
+                    assertTrue(index.tools().containsKey(tool), tool + " is missing from " + ComponentIndex.RESOURCE);
+                }
+            }
+        }
+    }
+
+    // Top-level main classes of a package (test classes share package names), not initialized.
+    private List<Class<?>> classesIn(String packageName) throws Exception {
+        Path mainClasses = Path.of(ComponentIndex.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        Path directory = mainClasses.resolve(packageName.replace('.', '/'));
+        assertTrue(Files.isDirectory(directory), "package " + packageName + " not found in " + mainClasses);
+        List<Class<?>> classes = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".class") && !name.contains("$")) {
+                    String className = packageName + "." + name.substring(0, name.length() - ".class".length());
+                    classes.add(Class.forName(className, false, getClass().getClassLoader()));
+                }
+            }
+        }
+        return classes;
+    }
+}
@@ -0,0 +1,50 @@
+package config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class YamlConfigCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void root_parsesOncePerFileVersion() throws Exception {
+        Path file = dir.resolve("agent.yaml");
+        Files.writeString(file, "name: first\nmaxIterations: 3\n");
+
+        Map<String, Object> first = YamlConfigCache.root(file.toString());
+        assertEquals("first", first.get("name"));
+        assertSame(first, YamlConfigCache.root(dir.resolve(".").resolve("agent.yaml").toString()));
+
+        Files.writeString(file, "name: second\nmaxIterations: 3\n");
+        Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 2_000));
+
+        assertEquals("second", YamlConfigCache.root(file.toString()).get("name"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void root_isUnmodifiableAllTheWayDown() throws Exception {
+        Path file = dir.resolve("callbacks.yaml");
+        Files.writeString(file, "beforeAgentCallbacks:\n  - name: a\n");
+
+        Map<String, Object> root = YamlConfigCache.root(file.toString());
+        List<Object> callbacks = (List<Object>) root.get("beforeAgentCallbacks");
+
+        assertThrows(UnsupportedOperationException.class, () -> root.put("x", 1));
+        assertThrows(UnsupportedOperationException.class, () -> callbacks.add(Map.of()));
+        assertThrows(UnsupportedOperationException.class,
+                () -> ((Map<String, Object>) callbacks.get(0)).put("name", "b"));
+    }
+}
@@ -0,0 +1,120 @@
+package decision;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ApDecisionEngineTest {
+
+    private static final String THRESHOLDS = """
+            {"max_line_variance_percent": 2.0,
+             "max_invoice_variance_percent": 1.0,
+             "auto_approval_max_amount": 1300.0}
+            """;
+
+    private static final String PO = """
+            {"po_number": "PO-2001", "vendor": "Acme Supplies", "currency": "USD", "max_total": 1200.0,
+             "lines": [
+               {"line_number": 1, "description": "Office chairs", "quantity": 10, "unit_price": 100.0},
+               {"line_number": 2, "description": "Delivery", "quantity": 1, "unit_price": 200.0}]}
+            """;
+
+    @Test
+    public void matchingInvoice_isOkToPay() {
+        String invoice = invoice("Acme Supplies", "USD", 1200.0, 100.0, 200.0);
+
+        ApDecision decision = ApDecisionEngine.decide(invoice, PO, THRESHOLDS).orElseThrow();
+
+        assertEquals(ApDecision.OK_TO_PAY, decision.decision());
+        assertTrue(decision.discrepancies().isEmpty());
+    }
+
+    @Test
+    public void priceAndTotalVariance_isReview() {
+        String invoice = invoice("Acme Supplies", "USD", 1500.0, 120.0, 300.0);
+
+        ApDecision decision = ApDecisionEngine.decide(invoice, PO, THRESHOLDS).orElseThrow();
+
+        assertEquals(ApDecision.REVIEW, decision.decision());
+        // two unit prices, total variance and auto-approval limit
+        assertEquals(4, decision.discrepancies().size());
+    }
+
+    @Test
+    public void currencyMismatch_isDoNotPay() {
+        String invoice = invoice("Acme Supplies", "EUR", 1200.0, 100.0, 200.0);
+
+        ApDecision decision = ApDecisionEngine.decide(invoice, PO, THRESHOLDS).orElseThrow();
+
+        assertEquals(ApDecision.DO_NOT_PAY, decision.decision());
+    }
+
+    @Test
+    public void vendorTypo_fallsThroughButUnrelatedVendor_isDoNotPay() {
+        assertTrue(ApDecisionEngine.decide(
+                invoice("Acme Suplies", "USD", 1200.0, 100.0, 200.0), PO, THRESHOLDS).isEmpty());
+        assertTrue(ApDecisionEngine.decide(
+                invoice("Acme Supply Co", "USD", 1200.0, 100.0, 200.0), PO, THRESHOLDS).isEmpty());
+
+        ApDecision decision = ApDecisionEngine.decide(
+                invoice("Globex Corporation", "USD", 1200.0, 100.0, 200.0), PO, THRESHOLDS).orElseThrow();
+        assertEquals(ApDecision.DO_NOT_PAY, decision.decision());
+    }
+
+    @Test
+    public void loaderErrors_areDecidedWithoutComparison() {
+        assertEquals(ApDecision.DO_NOT_PAY, ApDecisionEngine.decide(
+                "{\"error\": \"INVOICE_NOT_FOUND\", \"invoice_id\": \"INV-9\"}", PO, THRESHOLDS)
+                .orElseThrow().decision());
+        assertEquals(ApDecision.REVIEW, ApDecisionEngine.decide(
+                invoice("Acme Supplies", "USD", 1200.0, 100.0, 200.0),
+                "{\"error\": \"PO_NOT_FOUND\", \"invoice_id\": \"INV-1001\"}", THRESHOLDS)
+                .orElseThrow().decision());
+    }
+
+    @Test
+    public void ambiguousInputs_fallThrough() {
+        // Near-miss vendor name is left to the model
+        assertTrue(ApDecisionEngine.decide(
+                invoice("Acme Supplies, Inc.", "USD", 1200.0, 100.0, 200.0), PO, THRESHOLDS).isEmpty());
+        // Unparseable loader output
+        assertTrue(ApDecisionEngine.decide("not json", PO, THRESHOLDS).isEmpty());
+        // Missing thresholds
+        assertTrue(ApDecisionEngine.decide(
+                invoice("Acme Supplies", "USD", 1200.0, 100.0, 200.0), PO, "{}").isEmpty());
+    }
+
+    @Test
+    public void fencedJsonAndParsedMaps_areAccepted() {
+        String fenced = "```json\n" + invoice("Acme Supplies", "USD", 1200.0, 100.0, 200.0) + "\n```";
+        Optional<ApDecision> decision = ApDecisionEngine.decide(fenced, PO, Map.of(
+                "max_line_variance_percent", 2.0,
+                "max_invoice_variance_percent", 1.0,
+                "auto_approval_max_amount", 1300.0));
+
+        assertEquals(ApDecision.OK_TO_PAY, decision.orElseThrow().decision());
+    }
+
+    @Test
+    public void toJson_matchesPromptContract() {
+        String json = ApDecisionEngine.toJson(
+                new ApDecision(ApDecision.REVIEW, "Needs review.", List.of("Total too high.")));
+
+        assertEquals("{\"decision\":\"REVIEW\",\"summary\":\"Needs review.\",\"discrepancies\":[\"Total too high.\"]}",
+                json);
+    }
+
+    private static String invoice(String vendor, String currency, double total, double price1, double price2) {
+        return """
+                {"invoice_id": "INV-1", "vendor": "%s", "po_number": "PO-2001", "currency": "%s", "total": %s,
+                 "lines": [
+                   {"line_number": 1, "description": "Office chairs", "quantity": 10, "unit_price": %s},
+                   {"line_number": 2, "description": "Delivery", "quantity": 1, "unit_price": %s}]}
+                """.formatted(vendor, currency, total, price1, price2);
+    }
+}
@@ -33,6 +33,7 @@ public class AgentEvaluationTest {
         RegistrationService registrationService = new RegistrationService();
         registrationService.registerWorkflowWrappers();
         registrationService.registerFunctionTools();
+        registrationService.registerModels();
     }
 
     @Test
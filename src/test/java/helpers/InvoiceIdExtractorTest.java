@@ -0,0 +1,49 @@
+package helpers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InvoiceIdExtractorTest {
+
+    @Test
+    public void first_normalizesCaseAndSeparator() {
+        assertEquals(Optional.of("INV-1001"), InvoiceIdExtractor.first("Can you check invoice INV-1001 for me?"));
+        assertEquals(Optional.of("INV-1001"), InvoiceIdExtractor.first("please look at inv 1001."));
+        assertEquals(Optional.of("INV-2001"), InvoiceIdExtractor.first("Inv_2001 looks off"));
+        assertEquals(Optional.of("INV-2001"), InvoiceIdExtractor.first("(INV2001)"));
+    }
+
+    @Test
+    public void first_returnsEmptyWithoutInvoiceId() {
+        assertTrue(InvoiceIdExtractor.first("Is the Acme invoice OK to pay?").isEmpty());
+        assertTrue(InvoiceIdExtractor.first("invoice 1001").isEmpty());
+        assertTrue(InvoiceIdExtractor.first("PREINV-1001").isEmpty());
+        assertTrue(InvoiceIdExtractor.first(null).isEmpty());
+    }
+
+    @Test
+    public void first_rejectsIdsWithFurtherSegments() {
+        assertTrue(InvoiceIdExtractor.first("Please check INV-2024-001 today").isEmpty());
+        assertTrue(InvoiceIdExtractor.first("INV_2024_001").isEmpty());
+        assertTrue(InvoiceIdExtractor.first("INV-1001A").isEmpty());
+        assertTrue(InvoiceIdExtractor.normalize("INV-2024-001").isEmpty());
+        assertEquals(Optional.of("INV-1001"), InvoiceIdExtractor.first("INV-1001, then INV-2024-001."));
+    }
+
+    @Test
+    public void all_keepsOrderOfFirstMention() {
+        assertEquals(List.of("INV-2001", "INV-1001"),
+                InvoiceIdExtractor.all("Compare INV-2001 with inv-1001 and INV 2001 again"));
+    }
+
+    @Test
+    public void normalize_acceptsOnlyWholeIds() {
+        assertEquals(Optional.of("INV-1001"), InvoiceIdExtractor.normalize(" inv1001 "));
+        assertTrue(InvoiceIdExtractor.normalize("INV-1001 please").isEmpty());
+    }
+}
@@ -0,0 +1,37 @@
+package helpers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class StateTemplatesTest {
+
+    @Test
+    public void resolve_wholePlaceholderKeepsStateValueType() {
+        Map<String, Object> state = Map.of("invoice_id", "INV-1001", "limit", 1300.0);
+
+        Object resolved = StateTemplates.resolve(
+                Map.of("invoiceId", "{invoice_id}", "limit", "{limit}"), state);
+
+        assertEquals(Map.of("invoiceId", "INV-1001", "limit", 1300.0), resolved);
+    }
+
+    @Test
+    public void resolve_embeddedPlaceholdersAreStringified() {
+        Map<String, Object> state = Map.of("invoice_id", "INV-1001", "n", 2);
+
+        assertEquals("Invoice INV-1001 (2)", StateTemplates.resolve("Invoice {invoice_id} ({n})", state));
+        assertEquals(List.of("INV-1001", "plain"),
+                StateTemplates.resolve(List.of("{invoice_id}", "plain"), state));
+    }
+
+    @Test
+    public void resolve_failsOnMissingStateKey() {
+        assertThrows(IllegalStateException.class,
+                () -> StateTemplates.resolve("{invoice_id}", Map.of()));
+    }
+}
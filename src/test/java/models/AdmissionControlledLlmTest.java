@@ -0,0 +1,66 @@
+package models;
+
+import com.google.adk.models.BaseLlm;
+import com.google.adk.models.BaseLlmConnection;
+import com.google.adk.models.LlmRequest;
+import com.google.adk.models.LlmResponse;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.processors.PublishProcessor;
+import io.reactivex.rxjava3.subscribers.TestSubscriber;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class AdmissionControlledLlmTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(5);
+
+    @Test
+    public void generateContent_disposingAQueuedCallLeavesTheQueue() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter("m", 1_000, 100, 1, 1, 1, WAIT, 10);
+        HeldLlm delegate = new HeldLlm();
+        AdmissionControlledLlm llm = new AdmissionControlledLlm(delegate, limiter, WAIT);
+
+        TestSubscriber<LlmResponse> running = llm.generateContent(LlmRequest.builder().build(), false).test();
+        TestSubscriber<LlmResponse> queued = llm.generateContent(LlmRequest.builder().build(), false).test();
+        assertEquals(1, limiter.queueDepth());
+
+        queued.cancel();
+        assertEquals(0, limiter.queueDepth());
+
+        // The freed slot is not consumed by the abandoned call.
+        delegate.responses.onNext(LlmResponse.builder().content(Content.fromParts(Part.fromText("ok"))).build());
+        delegate.responses.onComplete();
+        running.await(1, TimeUnit.SECONDS);
+        running.assertComplete();
+        assertEquals(0, limiter.inFlight());
+        assertEquals(1, delegate.calls.get());
+    }
+
+    // Streams whatever the test pushes; counts calls that got past admission.
+    private static final class HeldLlm extends BaseLlm {
+        final PublishProcessor<LlmResponse> responses = PublishProcessor.create();
+        final AtomicInteger calls = new AtomicInteger();
+
+        HeldLlm() {
+            super("m");
+        }
+
+        @Override
+        public Flowable<LlmResponse> generateContent(LlmRequest llmRequest, boolean stream) {
+            calls.incrementAndGet();
+            return responses;
+        }
+
+        @Override
+        public BaseLlmConnection connect(LlmRequest llmRequest) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
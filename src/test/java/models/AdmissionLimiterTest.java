@@ -0,0 +1,85 @@
+package models;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdmissionLimiterTest {
+
+    private static final Duration WAIT = Duration.ofSeconds(5);
+
+    @Test
+    public void acquire_queuesBeyondTheConcurrencyLimitAndStartsOnRelease() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter("m", 1_000, 100, 2, 1, 2, WAIT, 10);
+
+        AdmissionLimiter.Permit first = limiter.acquire(WAIT).get();
+        limiter.acquire(WAIT).get();
+        CompletableFuture<AdmissionLimiter.Permit> third = limiter.acquire(WAIT);
+
+        assertFalse(third.isDone());
+        assertEquals(1, limiter.queueDepth());
+
+        first.release(AdmissionLimiter.Outcome.FAILED);
+        assertTrue(third.get(1, TimeUnit.SECONDS) != null);
+        assertEquals(0, limiter.queueDepth());
+        assertEquals(2, limiter.inFlight());
+    }
+
+    @Test
+    public void acquire_shedsImmediatelyWhenTheQueueIsFull() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter("m", 1_000, 100, 1, 1, 1, WAIT, 1);
+
+        limiter.acquire(WAIT).get();
+        limiter.acquire(WAIT);
+        CompletableFuture<AdmissionLimiter.Permit> shed = limiter.acquire(WAIT);
+
+        ExecutionException e = assertThrows(ExecutionException.class, shed::get);
+        assertEquals(ModelCallShedException.Reason.QUEUE_FULL,
+                assertInstanceOf(ModelCallShedException.class, e.getCause()).reason());
+    }
+
+    @Test
+    public void acquire_shedsAtTheDeadline() {
+        AdmissionLimiter limiter = new AdmissionLimiter("m", 1_000, 100, 1, 1, 1, WAIT, 10);
+
+        limiter.acquire(WAIT).join();
+        CompletableFuture<AdmissionLimiter.Permit> waiting = limiter.acquire(Duration.ofMillis(50));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> waiting.get(2, TimeUnit.SECONDS));
+        assertEquals(ModelCallShedException.Reason.DEADLINE,
+                assertInstanceOf(ModelCallShedException.class, e.getCause()).reason());
+        assertEquals(0, limiter.queueDepth());
+    }
+
+    @Test
+    public void acquire_waitsForTokensWhenTheRateIsExhausted() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter("m", 20, 1, 10, 1, 10, WAIT, 10);
+
+        limiter.acquire(WAIT).get();
+        long start = System.nanoTime();
+        limiter.acquire(WAIT).get(2, TimeUnit.SECONDS);
+
+        // One token per 50 ms after the burst of one.
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(30));
+    }
+
+    @Test
+    public void release_adaptsTheLimit() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter("m", 1_000, 100, 8, 1, 16, WAIT, 10);
+
+        limiter.acquire(WAIT).get().release(AdmissionLimiter.Outcome.RATE_LIMITED);
+        assertEquals(4.0, limiter.limit(), 1e-9);
+
+        limiter.acquire(WAIT).get().release(AdmissionLimiter.Outcome.SUCCESS);
+        assertEquals(4.25, limiter.limit(), 1e-9);
+    }
+}
@@ -0,0 +1,79 @@
+package models;
+
+import com.google.adk.models.LlmResponse;
+import com.google.genai.types.Content;
+import com.google.genai.types.GenerateContentResponseUsageMetadata;
+import com.google.genai.types.Part;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CassetteTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void record_isReplayedAfterReopening() {
+        Path file = tempDir.resolve("exchanges.jsonl");
+        List<LlmResponse> responses = List.of(
+                LlmResponse.builder().content(Content.fromParts(Part.fromText("OK_"))).partial(true).build(),
+                LlmResponse.builder().content(Content.fromParts(Part.fromText("OK_TO_PAY"))).partial(false).build());
+
+        try (Cassette cassette = Cassette.open(file)) {
+            cassette.record("abc123", "gemini-2.5-flash", responses);
+        }
+
+        try (Cassette reopened = Cassette.open(file)) {
+            List<LlmResponse> replayed = reopened.find("abc123");
+            assertEquals(2, replayed.size());
+            assertEquals(true, replayed.get(0).partial().orElse(false));
+            assertEquals("OK_TO_PAY", replayed.get(1).content().get().text());
+            assertNull(reopened.find("unknown"));
+        }
+    }
+
+    @Test
+    public void record_lastRecordingOfAKeyWins() {
+        Path file = tempDir.resolve("exchanges.jsonl");
+
+        try (Cassette cassette = Cassette.open(file)) {
+            cassette.record("k", "m", List.of(LlmResponse.builder().content(Content.fromParts(Part.fromText("old"))).build()));
+            cassette.record("k", "m", List.of(LlmResponse.builder().content(Content.fromParts(Part.fromText("new"))).build()));
+        }
+
+        try (Cassette reopened = Cassette.open(file)) {
+            assertEquals("new", reopened.find("k").get(0).content().get().text());
+        }
+    }
+
+    @Test
+    public void record_keepsUsageMetadataAndTurnCompletion() {
+        Path file = tempDir.resolve("exchanges.jsonl");
+        GenerateContentResponseUsageMetadata usage = GenerateContentResponseUsageMetadata.builder()
+                .promptTokenCount(120)
+                .candidatesTokenCount(8)
+                .totalTokenCount(128)
+                .build();
+
+        try (Cassette cassette = Cassette.open(file)) {
+            cassette.record("k", "m", List.of(LlmResponse.builder()
+                    .content(Content.fromParts(Part.fromText("OK_TO_PAY")))
+                    .usageMetadata(usage)
+                    .turnComplete(true)
+                    .build()));
+        }
+
+        try (Cassette reopened = Cassette.open(file)) {
+            LlmResponse replayed = reopened.find("k").get(0);
+            assertEquals(120, replayed.usageMetadata().get().promptTokenCount().get());
+            assertEquals(128, replayed.usageMetadata().get().totalTokenCount().get());
+            assertEquals(true, replayed.turnComplete().orElse(false));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package models;
+
+import cache.LlmResponseCachePlugin;
+import com.google.adk.models.BaseLlm;
+import com.google.adk.models.BaseLlmConnection;
+import com.google.adk.models.LlmRequest;
+import com.google.adk.models.LlmResponse;
+import com.google.genai.types.Content;
+import com.google.genai.types.FinishReason;
+import com.google.genai.types.Part;
+import io.reactivex.rxjava3.core.Flowable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RecordReplayLlmTest {
+
+    private static final String MODEL = "gemini-2.5-flash";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void replay_nonStreamingSkipsPartialResponses() {
+        LlmRequest request = request("Is INV-1001 OK to pay?");
+        List<LlmResponse> streamed = List.of(
+                LlmResponse.builder().content(Content.fromParts(Part.fromText("OK_"))).partial(true).build(),
+                LlmResponse.builder().content(Content.fromParts(Part.fromText("OK_TO_PAY"))).partial(false).build());
+        try (Cassette cassette = Cassette.open(tempDir.resolve("exchanges.jsonl"))) {
+            new RecordReplayLlm(MODEL, RecordReplayLlm.Mode.RECORD, cassette, new ScriptedLlm(streamed), Duration.ZERO)
+                    .generateContent(request, true).toList().blockingGet();
+
+            RecordReplayLlm replay = new RecordReplayLlm(MODEL, RecordReplayLlm.Mode.REPLAY, cassette, null, Duration.ZERO);
+
+            assertEquals(2, replay.generateContent(request, true).toList().blockingGet().size());
+            List<LlmResponse> complete = replay.generateContent(request, false).toList().blockingGet();
+            assertEquals(1, complete.size());
+            assertEquals("OK_TO_PAY", complete.get(0).content().get().text());
+        }
+    }
+
+    @Test
+    public void replay_unrecordedRequestFails() {
+        try (Cassette cassette = Cassette.open(tempDir.resolve("exchanges.jsonl"))) {
+            RecordReplayLlm replay = new RecordReplayLlm(MODEL, RecordReplayLlm.Mode.REPLAY, cassette, null, Duration.ZERO);
+
+            IllegalStateException error = assertThrows(IllegalStateException.class,
+                    () -> replay.generateContent(request("never recorded"), false).toList().blockingGet());
+
+            assertTrue(error.getMessage().contains("AP_LLM_MODE=record"), error.getMessage());
+        }
+    }
+
+    @Test
+    public void record_skipsExchangesThatEndedInAnError() {
+        LlmRequest request = request("Is INV-1001 OK to pay?");
+        List<LlmResponse> failed = List.of(LlmResponse.builder()
+                .errorCode(new FinishReason(FinishReason.Known.MALFORMED_FUNCTION_CALL))
+                .errorMessage("malformed function call")
+                .build());
+        try (Cassette cassette = Cassette.open(tempDir.resolve("exchanges.jsonl"))) {
+            new RecordReplayLlm(MODEL, RecordReplayLlm.Mode.RECORD, cassette, new ScriptedLlm(failed), Duration.ZERO)
+                    .generateContent(request, false).toList().blockingGet();
+
+            assertEquals(0, cassette.size());
+            assertNull(cassette.find(LlmResponseCachePlugin.key(request)));
+        }
+    }
+
+    private static LlmRequest request(String text) {
+        return LlmRequest.builder()
+                .model(MODEL)
+                .contents(List.of(Content.fromParts(Part.fromText(text))))
+                .build();
+    }
+
+    // Delegate that answers every request with the same responses.
+    private static final class ScriptedLlm extends BaseLlm {
+        private final List<LlmResponse> responses;
+
+        ScriptedLlm(List<LlmResponse> responses) {
+            super(MODEL);
+            this.responses = responses;
+        }
+
+        @Override
+        public Flowable<LlmResponse> generateContent(LlmRequest llmRequest, boolean stream) {
+            return Flowable.fromIterable(responses);
+        }
+
+        @Override
+        public BaseLlmConnection connect(LlmRequest llmRequest) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
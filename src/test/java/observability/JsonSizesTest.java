@@ -0,0 +1,33 @@
+package observability;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class JsonSizesTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    public void approximate_matchesCompactJsonForPlainPayloads() throws Exception {
+        Map<String, Object> invoice = new LinkedHashMap<>();
+        invoice.put("invoice_id", "INV-1001");
+        invoice.put("total", 1250.5);
+        invoice.put("lines", List.of(Map.of("sku", "A-1", "qty", 3), Map.of("sku", "B-2", "qty", 1)));
+        invoice.put("po_number", null);
+        Map<String, Object> response = Map.of("status", "ok", "invoice", invoice);
+
+        assertEquals(MAPPER.writeValueAsString(response).length(), JsonSizes.approximate(response));
+    }
+
+    @Test
+    public void approximate_ofEmptyContainers() {
+        assertEquals(2, JsonSizes.approximate(Map.of()));
+        assertEquals(2, JsonSizes.approximate(List.of()));
+    }
+}
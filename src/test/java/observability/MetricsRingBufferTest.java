@@ -0,0 +1,75 @@
+package observability;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MetricsRingBufferTest {
+
+    @Test
+    public void drain_deliversMeasurementsInOfferOrder() {
+        MetricsRingBuffer<String, String> buffer = new MetricsRingBuffer<>(4);
+        buffer.offer("runs", 1, "ok");
+        buffer.offer("latency", 12.5, "ok");
+
+        List<String> drained = new ArrayList<>();
+        int count = buffer.drain((target, value, attrs) -> drained.add(target + "=" + value + "/" + attrs));
+
+        assertEquals(2, count);
+        assertEquals(List.of("runs=1.0/ok", "latency=12.5/ok"), drained);
+        assertEquals(0, buffer.size());
+    }
+
+    @Test
+    public void offer_dropsWhenFullAndAcceptsAgainAfterDrain() {
+        MetricsRingBuffer<String, String> buffer = new MetricsRingBuffer<>(3);
+        assertEquals(4, buffer.capacity());
+
+        for (int i = 0; i < 4; i++) {
+            assertTrue(buffer.offer("t", i, "a"));
+        }
+        assertFalse(buffer.offer("t", 4, "a"));
+        assertEquals(1, buffer.dropped());
+
+        buffer.drain((target, value, attrs) -> {});
+        assertTrue(buffer.offer("t", 5, "a"));
+    }
+
+    @Test
+    public void offer_fromConcurrentProducers_losesNothingThatWasAccepted() throws Exception {
+        MetricsRingBuffer<String, String> buffer = new MetricsRingBuffer<>(256);
+        int producers = 4;
+        int perProducer = 50_000;
+        AtomicLong accepted = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(producers);
+
+        for (int p = 0; p < producers; p++) {
+            Thread producer = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    if (buffer.offer("t", 1, "a")) {
+                        accepted.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+            producer.start();
+        }
+
+        double[] sum = {0};
+        MetricsRingBuffer.Sink<String, String> sink = (target, value, attrs) -> sum[0] += value;
+        while (done.getCount() > 0) {
+            buffer.drain(sink);
+        }
+        buffer.drain(sink);
+
+        assertEquals(accepted.get(), (long) sum[0]);
+        assertEquals((long) producers * perProducer, accepted.get() + buffer.dropped());
+    }
+}
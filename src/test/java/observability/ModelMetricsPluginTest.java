@@ -0,0 +1,134 @@
+package observability;
+
+import agents.DummyCountingAgent;
+import agents.InvocationContextTestUtils;
+import com.google.adk.agents.CallbackContext;
+import com.google.adk.events.EventActions;
+import com.google.adk.models.BaseLlm;
+import com.google.adk.models.BaseLlmConnection;
+import com.google.adk.models.LlmRequest;
+import com.google.adk.models.LlmResponse;
+import com.google.genai.types.Content;
+import com.google.genai.types.GenerateContentResponseUsageMetadata;
+import com.google.genai.types.Part;
+import io.opentelemetry.api.common.Attributes;
+import io.reactivex.rxjava3.core.Flowable;
+import models.AdmissionControlledLlm;
+import models.AdmissionLimiter;
+import models.ModelCallShedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ModelMetricsPluginTest {
+
+    private static final String MODEL = "gemini-2.5-flash";
+    private static final Attributes CALL = Attributes.of(
+            stringKey("agent.name"), "DummyCountingAgent", stringKey("model"), MODEL);
+
+    private final ModelMetricsPlugin plugin = new ModelMetricsPlugin();
+    private TestMetrics metrics;
+
+    @BeforeEach
+    public void bindMetrics() {
+        metrics = TestMetrics.bind();
+    }
+
+    @Test
+    public void afterModelCallback_recordsFirstChunkThenOneCallWithUsage() {
+        CallbackContext ctx = callbackContext();
+        plugin.beforeModelCallback(ctx, LlmRequest.builder().model(MODEL)).blockingGet();
+
+        plugin.afterModelCallback(ctx, response(true, null)).blockingGet();
+        plugin.afterModelCallback(ctx, response(true, null)).blockingGet();
+        assertEquals(1, metrics.histogramCount("llm_time_to_first_chunk_ms", CALL));
+        assertEquals(0, metrics.counter("llm_calls_total", status("ok")));
+
+        plugin.afterModelCallback(ctx, response(false, GenerateContentResponseUsageMetadata.builder()
+                .promptTokenCount(120)
+                .candidatesTokenCount(30)
+                .totalTokenCount(150)
+                .build())).blockingGet();
+
+        assertEquals(1, metrics.histogramCount("llm_time_to_first_chunk_ms", CALL));
+        assertEquals(1, metrics.counter("llm_calls_total", status("ok")));
+        assertEquals(1, metrics.histogramCount("llm_call_latency_ms", status("ok")));
+        assertEquals(120, metrics.counter("llm_prompt_tokens_total", CALL));
+        assertEquals(30, metrics.counter("llm_candidate_tokens_total", CALL));
+        assertEquals(150, metrics.counter("llm_total_tokens_total", CALL));
+    }
+
+    @Test
+    public void onModelErrorCallback_countsErrorsAndShedCallsApart() {
+        CallbackContext failed = callbackContext();
+        plugin.beforeModelCallback(failed, LlmRequest.builder().model(MODEL)).blockingGet();
+        plugin.onModelErrorCallback(failed, LlmRequest.builder().model(MODEL), new IllegalStateException("503")).blockingGet();
+
+        CallbackContext shed = callbackContext();
+        plugin.beforeModelCallback(shed, LlmRequest.builder().model(MODEL)).blockingGet();
+        plugin.onModelErrorCallback(shed, LlmRequest.builder().model(MODEL),
+                new ModelCallShedException(MODEL, ModelCallShedException.Reason.QUEUE_FULL)).blockingGet();
+
+        assertEquals(1, metrics.counter("llm_calls_total", status("error")));
+        assertEquals(1, metrics.histogramCount("llm_call_latency_ms", status("error")));
+        assertEquals(1, metrics.counter("llm_calls_total", status("shed")));
+        assertEquals(0, metrics.histogramCount("llm_call_latency_ms", status("shed")));
+    }
+
+    @Test
+    public void afterModelCallback_timesAdmittedCallsFromTheGrant() throws Exception {
+        AdmissionLimiter limiter = new AdmissionLimiter(MODEL, 1_000, 100, 1, 1, 1, Duration.ofSeconds(5), 10);
+        AdmissionControlledLlm llm = new AdmissionControlledLlm(new OneResponseLlm(), limiter, Duration.ofSeconds(5));
+        CallbackContext ctx = callbackContext();
+
+        plugin.beforeModelCallback(ctx, LlmRequest.builder().model(MODEL)).blockingGet();
+        // Stands in for time spent before the grant, which belongs to llm_admission_wait_ms.
+        Thread.sleep(200);
+        LlmResponse response = llm.generateContent(LlmRequest.builder().build(), false).blockingFirst();
+        plugin.afterModelCallback(ctx, response).blockingGet();
+
+        assertEquals(1, metrics.histogramCount("llm_call_latency_ms", status("ok")));
+        assertTrue(metrics.histogramSum("llm_call_latency_ms", status("ok")) < 100);
+    }
+
+    private static CallbackContext callbackContext() {
+        return new CallbackContext(
+                InvocationContextTestUtils.createMinimalInvocationContext(new DummyCountingAgent()),
+                EventActions.builder().build());
+    }
+
+    private static LlmResponse response(boolean partial, GenerateContentResponseUsageMetadata usage) {
+        LlmResponse.Builder builder = LlmResponse.builder()
+                .content(Content.fromParts(Part.fromText("INV-1001 is OK to pay.")))
+                .partial(partial);
+        if (usage != null) {
+            builder.usageMetadata(usage);
+        }
+        return builder.build();
+    }
+
+    private static Attributes status(String status) {
+        return CALL.toBuilder().put(stringKey("status"), status).build();
+    }
+
+    private static final class OneResponseLlm extends BaseLlm {
+        OneResponseLlm() {
+            super(MODEL);
+        }
+
+        @Override
+        public Flowable<LlmResponse> generateContent(LlmRequest llmRequest, boolean stream) {
+            return Flowable.just(response(false, null));
+        }
+
+        @Override
+        public BaseLlmConnection connect(LlmRequest llmRequest) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
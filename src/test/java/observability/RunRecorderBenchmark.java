@@ -0,0 +1,110 @@
+package observability;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the caller-side cost of RunRecorder and checks that it allocates nothing.
+ *
+ * Run with:
+ *   mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=observability.RunRecorderBenchmark
+ *
+ * main runs the benchmarks with JMH's GC profiler and exits non-zero if any of them
+ * allocates a byte or more per operation (gc.alloc.rate.norm), or if an iteration dropped
+ * measurements: a full AsyncMetrics buffer would mean the drop path was measured instead of
+ * the normal one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RunRecorderBenchmark {
+
+    private static final double MAX_BYTES_PER_OP = 1.0;
+
+    private final RunRecorder recorder = new RunRecorder();
+    private long latencyMs;
+    private long droppedBefore;
+
+    @Setup
+    public void bindAttributes() {
+        // First use builds the attribute sets; the measured calls only look them up.
+        recorder.recordAgentRun("APInvoicePipeline", 1, "ok");
+        recorder.recordAgentRun("APInvoicePipeline", 1, "error");
+        recorder.recordTimeToFirstToken("APInvoicePipeline", 1);
+    }
+
+    @Setup(Level.Iteration)
+    public void countDropsFromHere() {
+        AsyncMetrics.flush();
+        droppedBefore = AsyncMetrics.dropped();
+    }
+
+    @TearDown(Level.Iteration)
+    public void failOnDrops() {
+        long dropped = AsyncMetrics.dropped() - droppedBefore;
+        System.out.printf("%nAsyncMetrics dropped %d measurements this iteration%n", dropped);
+        if (dropped > 0) {
+            throw new IllegalStateException("AsyncMetrics buffer overflowed (" + dropped
+                    + " drops); the drop path was measured. Raise AP_METRICS_BUFFER_SIZE.");
+        }
+    }
+
+    @Benchmark
+    public void recordAgentRun() {
+        recorder.recordAgentRun("APInvoicePipeline", latencyMs++ & 1023, "ok");
+    }
+
+    @Benchmark
+    public void recordTimeToFirstToken() {
+        recorder.recordTimeToFirstToken("APInvoicePipeline", latencyMs++ & 1023);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Collection<RunResult> results = new Runner(new OptionsBuilder()
+                .include(RunRecorderBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                // A failed iteration (see failOnDrops) fails the run instead of being skipped.
+                .shouldFailOnError(true)
+                .build())
+                .run();
+
+        boolean allocationFree = true;
+        for (RunResult result : results) {
+            String benchmark = result.getParams().getBenchmark();
+            for (Map.Entry<String, Result> secondary : result.getSecondaryResults().entrySet()) {
+                if (secondary.getKey().endsWith("gc.alloc.rate.norm")) {
+                    double bytesPerOp = secondary.getValue().getScore();
+                    System.out.printf("%s: %.3f B/op%n", benchmark, bytesPerOp);
+                    allocationFree &= bytesPerOp < MAX_BYTES_PER_OP;
+                }
+            }
+        }
+        if (!allocationFree) {
+            System.err.println("RunRecorder allocates on the recording path");
+            System.exit(1);
+        }
+    }
+}
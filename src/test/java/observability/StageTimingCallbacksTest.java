@@ -0,0 +1,37 @@
+package observability;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class StageTimingCallbacksTest {
+
+    @Test
+    public void finish_returnsElapsedSinceMatchingStart() {
+        String invocation = UUID.randomUUID().toString();
+
+        StageTimingCallbacks.start(invocation, "ap_invoice_intake", 1_000);
+
+        assertEquals(-1, StageTimingCallbacks.finish(invocation, "ap_po_loader", 5_000));
+        assertEquals(4_000, StageTimingCallbacks.finish(invocation, "ap_invoice_intake", 5_000));
+        assertEquals(-1, StageTimingCallbacks.finish(invocation, "ap_invoice_intake", 6_000));
+    }
+
+    @Test
+    public void sweep_dropsOnlyStaleStarts() {
+        String failed = UUID.randomUUID().toString();
+        String running = UUID.randomUUID().toString();
+        long now = System.nanoTime();
+        int before = StageTimingCallbacks.openCount();
+
+        StageTimingCallbacks.start(failed, "ap_invoice_intake", now - StageTimingCallbacks.STALE_AFTER_NANOS - 1);
+        StageTimingCallbacks.start(running, "ap_invoice_intake", now);
+        StageTimingCallbacks.sweep(now);
+
+        assertEquals(before + 1, StageTimingCallbacks.openCount());
+        assertEquals(-1, StageTimingCallbacks.finish(failed, "ap_invoice_intake", now));
+        assertEquals(0, StageTimingCallbacks.finish(running, "ap_invoice_intake", now));
+    }
+}
@@ -0,0 +1,186 @@
+package observability;
+
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TailSamplingSpanProcessorTest {
+
+    private final RecordingProcessor exported = new RecordingProcessor();
+    private SdkTracerProvider tracerProvider;
+
+    @AfterEach
+    public void shutdown() {
+        if (tracerProvider != null) {
+            tracerProvider.close();
+        }
+    }
+
+    @Test
+    public void onEnd_exportsErroredAndSlowTracesAndDropsTheRest() {
+        Tracer tracer = tracer(new TailSampling(Duration.ofSeconds(5), 0, 16, 16, Duration.ofMinutes(2)));
+
+        runTrace(tracer, "failed", 100, true);
+        runTrace(tracer, "slow", 6_000, false);
+        runTrace(tracer, "fast", 100, false);
+
+        assertEquals(List.of("failed.child", "failed", "slow.child", "slow"), exported.names());
+    }
+
+    @Test
+    public void onEnd_rateLimitsBaselineTraces() {
+        Tracer tracer = tracer(new TailSampling(Duration.ofSeconds(5), 1, 16, 16, Duration.ofMinutes(2)));
+
+        runTrace(tracer, "first", 100, false);
+        runTrace(tracer, "second", 100, false);
+
+        assertEquals(List.of("first.child", "first"), exported.names());
+    }
+
+    @Test
+    public void onEnd_lateSpansFollowTheTraceDecision() {
+        Tracer tracer = tracer(new TailSampling(Duration.ofSeconds(5), 0, 16, 16, Duration.ofMinutes(2)));
+
+        Span root = tracer.spanBuilder("root").setStartTimestamp(0, TimeUnit.MILLISECONDS).startSpan();
+        Span late = tracer.spanBuilder("late").setParent(Context.current().with(root)).startSpan();
+        root.setStatus(StatusCode.ERROR);
+        root.end(100, TimeUnit.MILLISECONDS);
+        late.end();
+
+        assertEquals(List.of("root", "late"), exported.names());
+    }
+
+    @Test
+    public void onEnd_boundsBufferedTracesAndSpans() {
+        TailSampling settings = new TailSampling(Duration.ofSeconds(5), 0, 1, 2, Duration.ofMinutes(2));
+        TailSamplingSpanProcessor processor = new TailSamplingSpanProcessor(exported, settings);
+        tracerProvider = SdkTracerProvider.builder().addSpanProcessor(processor).build();
+        Tracer tracer = tracerProvider.get("test");
+
+        Span first = tracer.spanBuilder("first").startSpan();
+        Span second = tracer.spanBuilder("second").startSpan();
+        for (int i = 0; i < 3; i++) {
+            tracer.spanBuilder("first.child").setParent(Context.current().with(first)).startSpan().end();
+        }
+        tracer.spanBuilder("second.child").setParent(Context.current().with(second)).startSpan().end();
+        assertEquals(1, processor.pendingTraces());
+
+        first.setStatus(StatusCode.ERROR);
+        first.end();
+        second.setStatus(StatusCode.ERROR);
+        second.end();
+
+        assertEquals(List.of("first.child", "first.child", "first", "second"), exported.names());
+        assertEquals(0, processor.pendingTraces());
+    }
+
+    @Test
+    public void onEnd_forgetsTheOldestDecisionsFirst() {
+        TailSampling settings = new TailSampling(Duration.ofSeconds(5), 0, 2, 16, Duration.ofMinutes(2));
+        TailSamplingSpanProcessor processor = new TailSamplingSpanProcessor(exported, settings);
+        tracerProvider = SdkTracerProvider.builder().addSpanProcessor(processor).build();
+        Tracer tracer = tracerProvider.get("test");
+
+        Span[] late = new Span[3];
+        for (int i = 0; i < 3; i++) {
+            Span root = tracer.spanBuilder("root" + i).startSpan();
+            late[i] = tracer.spanBuilder("late" + i).setParent(Context.current().with(root)).startSpan();
+            root.setStatus(StatusCode.ERROR);
+            root.end();
+        }
+        late[2].end();
+        late[1].end();
+        late[0].end();
+
+        // Only root0's decision was evicted; its late span is buffered as a new trace.
+        assertEquals(List.of("root0", "root1", "root2", "late2", "late1"), exported.names());
+        assertEquals(1, processor.pendingTraces());
+    }
+
+    @Test
+    public void sweep_releasesAbandonedTracesWithoutNewSpans() {
+        AtomicLong clock = new AtomicLong();
+        TailSampling settings = new TailSampling(Duration.ofSeconds(5), 0, 16, 16, Duration.ofMinutes(2));
+        TailSamplingSpanProcessor processor = new TailSamplingSpanProcessor(exported, settings, clock::get);
+        tracerProvider = SdkTracerProvider.builder().addSpanProcessor(processor).build();
+        Tracer tracer = tracerProvider.get("test");
+
+        Span failedRoot = tracer.spanBuilder("failed").startSpan();
+        Span failedChild = tracer.spanBuilder("failed.child").setParent(Context.current().with(failedRoot)).startSpan();
+        failedChild.setStatus(StatusCode.ERROR);
+        failedChild.end();
+        Span okRoot = tracer.spanBuilder("ok").startSpan();
+        tracer.spanBuilder("ok.child").setParent(Context.current().with(okRoot)).startSpan().end();
+
+        processor.sweep(TimeUnit.MINUTES.toNanos(1));
+        assertEquals(2, processor.pendingTraces());
+
+        processor.sweep(TimeUnit.MINUTES.toNanos(3));
+        assertEquals(0, processor.pendingTraces());
+        assertEquals(List.of("failed.child"), exported.names());
+    }
+
+    private Tracer tracer(TailSampling settings) {
+        tracerProvider = SdkTracerProvider.builder()
+                .addSpanProcessor(new TailSamplingSpanProcessor(exported, settings))
+                .build();
+        return tracerProvider.get("test");
+    }
+
+    private static void runTrace(Tracer tracer, String name, long latencyMs, boolean childFails) {
+        Span root = tracer.spanBuilder(name).setStartTimestamp(0, TimeUnit.MILLISECONDS).startSpan();
+        Span child = tracer.spanBuilder(name + ".child").setParent(Context.current().with(root)).startSpan();
+        if (childFails) {
+            child.setStatus(StatusCode.ERROR);
+        }
+        child.end();
+        root.end(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static final class RecordingProcessor implements SpanProcessor {
+        private final List<String> names = new CopyOnWriteArrayList<>();
+
+        List<String> names() {
+            return names;
+        }
+
+        @Override
+        public void onStart(Context parentContext, ReadWriteSpan span) {}
+
+        @Override
+        public boolean isStartRequired() {
+            return false;
+        }
+
+        @Override
+        public void onEnd(ReadableSpan span) {
+            names.add(span.getName());
+        }
+
+        @Override
+        public boolean isEndRequired() {
+            return true;
+        }
+
+        @Override
+        public CompletableResultCode shutdown() {
+            return CompletableResultCode.ofSuccess();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package observability;
+
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.InstrumentType;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
+import io.opentelemetry.sdk.metrics.data.HistogramPointData;
+import io.opentelemetry.sdk.metrics.data.LongPointData;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.export.CollectionRegistration;
+import io.opentelemetry.sdk.metrics.export.MetricReader;
+
+import java.util.Optional;
+
+/**
+ * Binds AgentMetrics to an in-memory SDK and reads back what was recorded since.
+ */
+public final class TestMetrics implements MetricReader {
+
+    private volatile CollectionRegistration registration;
+
+    private TestMetrics() {}
+
+    public static TestMetrics bind() {
+        TestMetrics reader = new TestMetrics();
+        SdkMeterProvider meterProvider = SdkMeterProvider.builder().registerMetricReader(reader).build();
+        AgentMetrics.bind(OpenTelemetrySdk.builder().setMeterProvider(meterProvider).build());
+        return reader;
+    }
+
+    /**
+     * Value of a counter series, 0 if nothing was recorded for it.
+     */
+    public long counter(String name, Attributes attributes) {
+        return metric(name)
+                .flatMap(metric -> metric.getLongSumData().getPoints().stream()
+                        .filter(point -> point.getAttributes().equals(attributes))
+                        .map(LongPointData::getValue)
+                        .findFirst())
+                .orElse(0L);
+    }
+
+    /**
+     * Number of measurements in a histogram series, 0 if nothing was recorded for it.
+     */
+    public long histogramCount(String name, Attributes attributes) {
+        return histogramPoint(name, attributes).map(HistogramPointData::getCount).orElse(0L);
+    }
+
+    public double histogramSum(String name, Attributes attributes) {
+        return histogramPoint(name, attributes).map(HistogramPointData::getSum).orElse(0.0);
+    }
+
+    private Optional<HistogramPointData> histogramPoint(String name, Attributes attributes) {
+        return metric(name).flatMap(metric -> metric.getHistogramData().getPoints().stream()
+                .filter(point -> point.getAttributes().equals(attributes))
+                .findFirst());
+    }
+
+    private Optional<MetricData> metric(String name) {
+        return registration.collectAllMetrics().stream()
+                .filter(metric -> metric.getName().equals(name))
+                .findFirst();
+    }
+
+    @Override
+    public void register(CollectionRegistration registration) {
+        this.registration = registration;
+    }
+
+    @Override
+    public AggregationTemporality getAggregationTemporality(InstrumentType instrumentType) {
+        return AggregationTemporality.CUMULATIVE;
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        return CompletableResultCode.ofSuccess();
+    }
+}
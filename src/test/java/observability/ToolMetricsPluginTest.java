@@ -0,0 +1,105 @@
+package observability;
+
+import agents.DummyCountingAgent;
+import agents.InvocationContextTestUtils;
+import com.google.adk.agents.InvocationContext;
+import com.google.adk.tools.BaseTool;
+import com.google.adk.tools.ToolContext;
+import io.opentelemetry.api.common.Attributes;
+import io.reactivex.rxjava3.core.Single;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static io.opentelemetry.api.common.AttributeKey.stringKey;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ToolMetricsPluginTest {
+
+    private final ToolMetricsPlugin plugin = new ToolMetricsPlugin();
+    private final InvocationContext ctx =
+            InvocationContextTestUtils.createMinimalInvocationContext(new DummyCountingAgent());
+    private TestMetrics metrics;
+
+    @BeforeEach
+    public void bindMetrics() {
+        metrics = TestMetrics.bind();
+    }
+
+    @Test
+    public void afterToolCallback_classifiesOutcomesByStatus() {
+        BaseTool tool = new NamedTool("getInvoice");
+
+        call(tool, "c1", Map.of("invoiceId", "INV-1001"));
+        call(tool, "c2", Map.of("status", "ok", "invoiceId", "INV-1001"));
+        call(tool, "c3", Map.of("status", "not_found"));
+        call(tool, "c4", Map.of("status", "error", "message", "store unavailable"));
+
+        assertEquals(2, metrics.counter("tool_calls_total", outcome("getInvoice", "ok")));
+        assertEquals(1, metrics.counter("tool_calls_total", outcome("getInvoice", "not_found")));
+        assertEquals(1, metrics.counter("tool_calls_total", outcome("getInvoice", "error")));
+        assertEquals(1, metrics.counter("tool_errors_total", kind("getInvoice", "status")));
+        assertEquals(2, metrics.histogramCount("tool_call_latency_ms", outcome("getInvoice", "ok")));
+        assertEquals(4, metrics.histogramCount("tool_call_args_bytes", tool("getInvoice")));
+        assertEquals(4, metrics.histogramCount("tool_call_response_bytes", tool("getInvoice")));
+    }
+
+    @Test
+    public void onToolErrorCallback_countsExceptionsAsErrors() {
+        BaseTool tool = new NamedTool("getPurchaseOrder");
+
+        plugin.beforeToolCallback(tool, Map.of("poNumber", "PO-1"), toolContext("c1")).blockingGet();
+        plugin.onToolErrorCallback(tool, Map.of("poNumber", "PO-1"), toolContext("c1"),
+                new IllegalStateException("store closed")).blockingGet();
+
+        assertEquals(1, metrics.counter("tool_calls_total", outcome("getPurchaseOrder", "error")));
+        assertEquals(1, metrics.counter("tool_errors_total", kind("getPurchaseOrder", "exception")));
+        assertEquals(1, metrics.histogramCount("tool_call_latency_ms", outcome("getPurchaseOrder", "error")));
+    }
+
+    @Test
+    public void afterToolCallback_reportsNamesBeyondTheCapAsOther() {
+        for (int i = 0; i < ToolMetricsPlugin.MAX_TOOL_NAMES + 2; i++) {
+            call(new NamedTool("tool" + i), "c" + i, Map.of("status", "ok"));
+        }
+
+        int last = ToolMetricsPlugin.MAX_TOOL_NAMES - 1;
+        assertEquals(1, metrics.counter("tool_calls_total", outcome("tool" + last, "ok")));
+        assertEquals(0, metrics.counter("tool_calls_total", outcome("tool" + (last + 1), "ok")));
+        assertEquals(2, metrics.counter("tool_calls_total", outcome(ToolMetricsPlugin.OTHER_TOOL, "ok")));
+    }
+
+    private void call(BaseTool tool, String callId, Map<String, Object> result) {
+        Map<String, Object> args = Map.of("invoiceId", "INV-1001");
+        plugin.beforeToolCallback(tool, args, toolContext(callId)).blockingGet();
+        plugin.afterToolCallback(tool, args, toolContext(callId), result).blockingGet();
+    }
+
+    private ToolContext toolContext(String callId) {
+        return ToolContext.builder(ctx).functionCallId(callId).build();
+    }
+
+    private static Attributes tool(String name) {
+        return Attributes.of(stringKey("tool.name"), name);
+    }
+
+    private static Attributes outcome(String name, String outcome) {
+        return Attributes.of(stringKey("tool.name"), name, stringKey("outcome"), outcome);
+    }
+
+    private static Attributes kind(String name, String kind) {
+        return Attributes.of(stringKey("tool.name"), name, stringKey("kind"), kind);
+    }
+
+    private static final class NamedTool extends BaseTool {
+        NamedTool(String name) {
+            super(name, "test tool");
+        }
+
+        @Override
+        public Single<Map<String, Object>> runAsync(Map<String, Object> args, ToolContext toolContext) {
+            return Single.just(Map.of("status", "ok"));
+        }
+    }
+}
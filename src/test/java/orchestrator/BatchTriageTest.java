@@ -0,0 +1,135 @@
+package orchestrator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.adk.agents.BaseAgent;
+import com.google.adk.agents.InvocationContext;
+import com.google.adk.events.Event;
+import com.google.adk.events.EventActions;
+import com.google.adk.runner.InMemoryRunner;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import constants.FinalResponseAgentName;
+import io.reactivex.rxjava3.core.Flowable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BatchTriageTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String DECISION = "{\"decision\":\"OK_TO_PAY\"}";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void run_writesOneLinePerItemIncludingFailures() throws Exception {
+        List<String> lines = new ArrayList<>(List.of("# header", ""));
+        for (int i = 1; i <= 11; i++) {
+            lines.add("INV-" + (1000 + i));
+        }
+        lines.add("Please fail INV-9999");
+        Path input = Files.write(dir.resolve("items.txt"), lines, StandardCharsets.UTF_8);
+        Path output = dir.resolve("results.jsonl");
+
+        BatchTriage.Summary summary = new BatchTriage(new InMemoryRunner(new ScriptedAgent()), "batch", 3)
+                .run(input, output);
+
+        Map<String, JsonNode> byInput = new HashMap<>();
+        for (String line : Files.readAllLines(output, StandardCharsets.UTF_8)) {
+            JsonNode result = MAPPER.readTree(line);
+            byInput.put(result.get("input").asText(), result);
+        }
+        assertEquals(12, byInput.size());
+        assertEquals(11, summary.succeeded());
+        assertEquals(1, summary.failed());
+
+        JsonNode ok = byInput.get("INV-1001");
+        assertEquals("ok", ok.get("status").asText());
+        assertEquals(DECISION, ok.get("ap_decision_json").asText());
+        assertEquals("INV-1001 is OK to pay.", ok.get("reply").asText());
+
+        JsonNode failed = byInput.get("Please fail INV-9999");
+        assertEquals("error", failed.get("status").asText());
+        assertTrue(failed.get("error").asText().contains("pipeline failed"), failed.toString());
+    }
+
+    @Test
+    public void run_keepsAtMostMaxConcurrencyTriagesInFlight() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 1; i <= 12; i++) {
+            lines.add("INV-" + (2000 + i));
+        }
+        Path input = Files.write(dir.resolve("items.txt"), lines, StandardCharsets.UTF_8);
+        ScriptedAgent pipeline = new ScriptedAgent();
+
+        BatchTriage.Summary summary = new BatchTriage(new InMemoryRunner(pipeline), "batch", 3)
+                .run(input, dir.resolve("results.jsonl"));
+
+        assertEquals(12, summary.succeeded());
+        assertTrue(pipeline.maxInFlight.get() <= 3, "max in flight " + pipeline.maxInFlight.get());
+        assertTrue(pipeline.maxInFlight.get() > 1, "items ran one at a time");
+    }
+
+    // Takes a moment per run, fails requests containing "fail", and tracks overlapping runs.
+    private static final class ScriptedAgent extends BaseAgent {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+
+        ScriptedAgent() {
+            super("ScriptedPipeline", "Test-only pipeline.", List.of(), null, null);
+        }
+
+        @Override
+        protected Flowable<Event> runAsyncImpl(InvocationContext ctx) {
+            String request = ctx.userContent()
+                    .flatMap(Content::parts)
+                    .flatMap(parts -> parts.get(0).text())
+                    .orElse("");
+            return Flowable.defer(() -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(50);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+                if (request.contains("fail")) {
+                    return Flowable.error(new IllegalStateException("pipeline failed"));
+                }
+                String invoiceId = request.replaceAll(".*(INV-\\d+).*", "$1");
+                ConcurrentHashMap<String, Object> delta = new ConcurrentHashMap<>();
+                delta.put("invoice_id", invoiceId);
+                delta.put("ap_decision_json", DECISION);
+                return Flowable.just(
+                        Event.builder()
+                                .invocationId(ctx.invocationId())
+                                .author("ap_comparison_analysis")
+                                .actions(EventActions.builder().stateDelta(delta).build())
+                                .build(),
+                        Event.builder()
+                                .invocationId(ctx.invocationId())
+                                .author(FinalResponseAgentName.VALUE)
+                                .content(Content.fromParts(Part.fromText(invoiceId + " is OK to pay.")))
+                                .build());
+            });
+        }
+
+        @Override
+        protected Flowable<Event> runLiveImpl(InvocationContext ctx) {
+            return runAsyncImpl(ctx);
+        }
+    }
+}
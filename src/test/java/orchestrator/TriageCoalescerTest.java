@@ -0,0 +1,188 @@
+package orchestrator;
+
+import com.google.adk.agents.BaseAgent;
+import com.google.adk.agents.InvocationContext;
+import com.google.adk.agents.RunConfig;
+import com.google.adk.events.Event;
+import com.google.adk.events.EventActions;
+import com.google.adk.runner.InMemoryRunner;
+import com.google.adk.runner.Runner;
+import com.google.adk.sessions.Session;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import io.reactivex.rxjava3.core.Flowable;
+import io.reactivex.rxjava3.schedulers.Schedulers;
+import io.reactivex.rxjava3.subscribers.TestSubscriber;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TriageCoalescerTest {
+
+    private static final Content MESSAGE = Content.fromParts(Part.fromText("Is INV-1001 OK to pay?"));
+    private static final String DECISION = "{\"decision\":\"OK_TO_PAY\"}";
+
+    @Test
+    public void runAsync_followerSharesLeaderRunAndGetsItsState() throws Exception {
+        GatedPipeline pipeline = new GatedPipeline(null);
+        Runner runner = new InMemoryRunner(pipeline);
+        TriageCoalescer coalescer = new TriageCoalescer(runner);
+        Session leaderSession = session(runner, "u1");
+        Session followerSession = session(runner, "u2");
+
+        TestSubscriber<Event> leader = coalescer.runAsync(leaderSession, MESSAGE, RunConfig.builder().build())
+                .subscribeOn(Schedulers.io())
+                .test();
+        assertTrue(pipeline.started.await(5, TimeUnit.SECONDS));
+        TestSubscriber<Event> follower = coalescer.runAsync(followerSession, MESSAGE, RunConfig.builder().build()).test();
+        pipeline.release.countDown();
+
+        leader.await(5, TimeUnit.SECONDS);
+        follower.await(5, TimeUnit.SECONDS);
+        leader.assertComplete();
+        follower.assertComplete();
+        assertEquals(1, pipeline.runs.get());
+        assertEquals(leader.values(), follower.values());
+        assertEquals("ap_reply_formatter", leader.values().get(leader.values().size() - 1).author());
+
+        Session stored = runner.sessionService()
+                .getSession(runner.appName(), "u2", followerSession.id(), Optional.empty())
+                .blockingGet();
+        assertEquals(DECISION, stored.state().get("ap_decision_json"));
+        assertEquals("INV-1001", stored.state().get("invoice_id"));
+        // The user message, then a copy of each complete event of the shared run.
+        assertEquals(1 + leader.values().size(), stored.events().size());
+        assertEquals("user", stored.events().get(0).author());
+        assertNotEquals(leader.values().get(0).id(), stored.events().get(1).id());
+    }
+
+    @Test
+    public void runAsync_leaderErrorReachesFollowers() throws Exception {
+        GatedPipeline pipeline = new GatedPipeline(new IllegalStateException("model unavailable"));
+        Runner runner = new InMemoryRunner(pipeline);
+        TriageCoalescer coalescer = new TriageCoalescer(runner);
+
+        TestSubscriber<Event> leader = coalescer.runAsync(session(runner, "u1"), MESSAGE, RunConfig.builder().build())
+                .subscribeOn(Schedulers.io())
+                .test();
+        assertTrue(pipeline.started.await(5, TimeUnit.SECONDS));
+        TestSubscriber<Event> follower = coalescer.runAsync(session(runner, "u1"), MESSAGE, RunConfig.builder().build()).test();
+        pipeline.release.countDown();
+
+        leader.await(5, TimeUnit.SECONDS);
+        follower.await(5, TimeUnit.SECONDS);
+        leader.assertError(IllegalStateException.class);
+        follower.assertError(IllegalStateException.class);
+        assertEquals(1, pipeline.runs.get());
+    }
+
+    @Test
+    public void runAsync_cancelsTheRunWhenTheLastSubscriberLeaves() throws Exception {
+        GatedPipeline pipeline = new GatedPipeline(null);
+        Runner runner = new InMemoryRunner(pipeline);
+        TriageCoalescer coalescer = new TriageCoalescer(runner);
+
+        TestSubscriber<Event> leader = coalescer.runAsync(session(runner, "u1"), MESSAGE, RunConfig.builder().build())
+                .subscribeOn(Schedulers.io())
+                .test();
+        assertTrue(pipeline.started.await(5, TimeUnit.SECONDS));
+        leader.cancel();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (coalescer.inFlightRuns() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, coalescer.inFlightRuns());
+        pipeline.release.countDown();
+    }
+
+    @Test
+    public void runAsync_finishedRunIsNotReused() {
+        GatedPipeline pipeline = new GatedPipeline(null);
+        pipeline.release.countDown();
+        Runner runner = new InMemoryRunner(pipeline);
+        TriageCoalescer coalescer = new TriageCoalescer(runner);
+
+        coalescer.runAsync(session(runner, "u1"), MESSAGE, RunConfig.builder().build()).toList().blockingGet();
+        coalescer.runAsync(session(runner, "u1"), MESSAGE, RunConfig.builder().build()).toList().blockingGet();
+
+        assertEquals(2, pipeline.runs.get());
+    }
+
+    @Test
+    public void key_sharesAcrossUsersAndSkipsSessionsWithHistory() {
+        Runner runner = new InMemoryRunner(new GatedPipeline(null));
+        Session first = session(runner, "u1");
+        Session other = session(runner, "u2");
+
+        assertEquals(TriageCoalescer.key(first, MESSAGE), TriageCoalescer.key(session(runner, "u1"), MESSAGE));
+        assertEquals(TriageCoalescer.key(first, MESSAGE), TriageCoalescer.key(other, MESSAGE));
+        assertNull(TriageCoalescer.key(first, Content.fromParts(Part.fromText("Compare INV-1001 and INV-2001"))));
+
+        runner.sessionService().appendEvent(first, Event.builder()
+                .id(Event.generateEventId())
+                .invocationId("inv")
+                .author("user")
+                .content(MESSAGE)
+                .build()).blockingGet();
+        assertNull(TriageCoalescer.key(first, MESSAGE));
+    }
+
+    private static Session session(Runner runner, String userId) {
+        return runner.sessionService().createSession(runner.appName(), userId).blockingGet();
+    }
+
+    // Writes intake and decision state, then the reply; blocks until the test releases it.
+    private static final class GatedPipeline extends BaseAgent {
+        final AtomicInteger runs = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        private final RuntimeException failure;
+
+        GatedPipeline(RuntimeException failure) {
+            super("GatedPipeline", "Test-only pipeline.", List.of(), null, null);
+            this.failure = failure;
+        }
+
+        @Override
+        protected Flowable<Event> runAsyncImpl(InvocationContext ctx) {
+            return Flowable.defer(() -> {
+                runs.incrementAndGet();
+                started.countDown();
+                assertTrue(release.await(5, TimeUnit.SECONDS));
+                if (failure != null) {
+                    return Flowable.error(failure);
+                }
+                ConcurrentHashMap<String, Object> delta = new ConcurrentHashMap<>();
+                delta.put("invoice_id", "INV-1001");
+                delta.put("ap_decision_json", DECISION);
+                return Flowable.just(
+                        Event.builder()
+                                .invocationId(ctx.invocationId())
+                                .author("ap_comparison_analysis")
+                                .actions(EventActions.builder().stateDelta(delta).build())
+                                .build(),
+                        Event.builder()
+                                .invocationId(ctx.invocationId())
+                                .author("ap_reply_formatter")
+                                .content(Content.fromParts(Part.fromText("INV-1001 is OK to pay.")))
+                                .build());
+            });
+        }
+
+        @Override
+        protected Flowable<Event> runLiveImpl(InvocationContext ctx) {
+            return runAsyncImpl(ctx);
+        }
+    }
+}
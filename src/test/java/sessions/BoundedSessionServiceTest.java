@@ -0,0 +1,82 @@
+package sessions;
+
+import com.google.adk.events.Event;
+import com.google.adk.events.EventActions;
+import com.google.adk.sessions.Session;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BoundedSessionServiceTest {
+
+    private BoundedSessionService service;
+
+    @AfterEach
+    public void tearDown() {
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    @Test
+    public void createSession_evictsLeastRecentlyUsedBeyondMaxSessions() {
+        service = new BoundedSessionService(2, Duration.ofMinutes(5), 10);
+        service.createSession("app", "u", null, "s1").blockingGet();
+        service.createSession("app", "u", null, "s2").blockingGet();
+        service.getSession("app", "u", "s1", Optional.empty()).blockingGet();
+        service.createSession("app", "u", null, "s3").blockingGet();
+
+        assertNull(service.getSession("app", "u", "s2", Optional.empty()).blockingGet());
+        assertEquals("s1", service.getSession("app", "u", "s1", Optional.empty()).blockingGet().id());
+        assertEquals(2, service.listSessions("app", "u").blockingGet().sessions().size());
+    }
+
+    @Test
+    public void appendEvent_capsEventHistoryButKeepsState() {
+        service = new BoundedSessionService(10, Duration.ofMinutes(5), 3);
+        Session session = service.createSession("app", "u", null, "s1").blockingGet();
+
+        for (int i = 0; i < 5; i++) {
+            ConcurrentHashMap<String, Object> delta = new ConcurrentHashMap<>();
+            delta.put("key" + i, "value" + i);
+            service.appendEvent(session, Event.builder()
+                    .id(Event.generateEventId())
+                    .invocationId("inv")
+                    .author("agent")
+                    .actions(EventActions.builder().stateDelta(delta).build())
+                    .build()).blockingGet();
+        }
+
+        Session stored = service.getSession("app", "u", "s1", Optional.empty()).blockingGet();
+        assertEquals(3, stored.events().size());
+        assertEquals(5, stored.state().size());
+        assertEquals("value0", stored.state().get("key0"));
+    }
+
+    @Test
+    public void approxBytes_tracksSerializedSizeWithoutSerializing() {
+        ConcurrentHashMap<String, Object> delta = new ConcurrentHashMap<>();
+        delta.put("ap_decision_json", "d".repeat(4_000));
+        Event event = Event.builder()
+                .id(Event.generateEventId())
+                .invocationId("inv")
+                .author("agent")
+                .content(Content.fromParts(Part.fromText("t".repeat(6_000))))
+                .actions(EventActions.builder().stateDelta(delta).build())
+                .build();
+
+        long estimate = BoundedSessionService.approxBytes(event);
+        long actual = event.toJson().length();
+
+        assertTrue(Math.abs(estimate - actual) < actual / 10, estimate + " vs " + actual);
+    }
+}
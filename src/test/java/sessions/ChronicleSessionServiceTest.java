@@ -0,0 +1,117 @@
+package sessions;
+
+import com.google.adk.events.Event;
+import com.google.adk.events.EventActions;
+import com.google.adk.sessions.Session;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChronicleSessionServiceTest {
+
+    private static final int SESSIONS = 8;
+    private static final int EVENTS_PER_SESSION = 50;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void appendEvent_concurrentWritersSurviveResumeFromCheckpoint() throws Exception {
+        List<Session> sessions = new ArrayList<>();
+        try (ChronicleSessionService service = new ChronicleSessionService(tempDir, 4, Duration.ofMinutes(5))) {
+            for (int s = 0; s < SESSIONS; s++) {
+                sessions.add(service.createSession("app", "u", null, "s" + s).blockingGet());
+            }
+
+            // Two writers per session, all released at once, so appends to one session and
+            // across sessions interleave.
+            ExecutorService executor = Executors.newFixedThreadPool(SESSIONS * 2);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<?>> writers = new ArrayList<>();
+            for (Session session : sessions) {
+                for (int w = 0; w < 2; w++) {
+                    int writer = w;
+                    writers.add(executor.submit(() -> {
+                        // Each writer appends through its own copy, as concurrent runs would.
+                        Session copy = service.getSession("app", "u", session.id(), Optional.empty()).blockingGet();
+                        start.await();
+                        for (int i = writer; i < EVENTS_PER_SESSION; i += 2) {
+                            service.appendEvent(copy, event("key" + i, session.id() + "-" + i)).blockingGet();
+                        }
+                        return null;
+                    }));
+                }
+            }
+            start.countDown();
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            executor.shutdown();
+
+            service.deleteSession("app", "u", "s0").blockingAwait();
+        }
+        assertTrue(Files.exists(tempDir.resolve("heads.idx")));
+
+        try (ChronicleSessionService reopened = new ChronicleSessionService(tempDir, 4, Duration.ofMinutes(5))) {
+            assertNull(reopened.getSession("app", "u", "s0", Optional.empty()).blockingGet());
+            assertEquals(SESSIONS - 1, reopened.listSessions("app", "u").blockingGet().sessions().size());
+            for (int s = 1; s < SESSIONS; s++) {
+                Session stored = reopened.getSession("app", "u", "s" + s, Optional.empty()).blockingGet();
+                assertEquals(EVENTS_PER_SESSION, stored.events().size());
+                assertEquals(EVENTS_PER_SESSION, stored.state().size());
+                assertEquals("s" + s + "-" + (EVENTS_PER_SESSION - 1), stored.state().get("key" + (EVENTS_PER_SESSION - 1)));
+            }
+        }
+    }
+
+    @Test
+    public void open_scansExcerptsAppendedAfterTheCheckpoint() throws Exception {
+        try (ChronicleSessionService service = new ChronicleSessionService(tempDir, 4, Duration.ofMinutes(5))) {
+            Session session = service.createSession("app", "u", null, "s1").blockingGet();
+            service.appendEvent(session, event("before", "checkpoint")).blockingGet();
+        }
+        Path checkpoint = tempDir.resolve("heads.idx");
+        byte[] stale = Files.readAllBytes(checkpoint);
+        try (ChronicleSessionService service = new ChronicleSessionService(tempDir, 4, Duration.ofMinutes(5))) {
+            Session session = service.getSession("app", "u", "s1", Optional.empty()).blockingGet();
+            service.appendEvent(session, event("after", "checkpoint")).blockingGet();
+            service.createSession("app", "u", null, "s2").blockingGet();
+        }
+        // As after a crash: the checkpoint predates the last run's writes.
+        Files.write(checkpoint, stale);
+
+        try (ChronicleSessionService reopened = new ChronicleSessionService(tempDir, 4, Duration.ofMinutes(5))) {
+            Session stored = reopened.getSession("app", "u", "s1", Optional.empty()).blockingGet();
+            assertEquals(2, stored.events().size());
+            assertEquals("checkpoint", stored.state().get("before"));
+            assertEquals("checkpoint", stored.state().get("after"));
+            assertEquals(2, reopened.listSessions("app", "u").blockingGet().sessions().size());
+        }
+    }
+
+    private static Event event(String key, String value) {
+        ConcurrentHashMap<String, Object> delta = new ConcurrentHashMap<>();
+        delta.put(key, value);
+        return Event.builder()
+                .id(Event.generateEventId())
+                .invocationId("inv")
+                .author("agent")
+                .actions(EventActions.builder().stateDelta(delta).build())
+                .build();
+    }
+}
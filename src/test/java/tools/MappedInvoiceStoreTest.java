@@ -0,0 +1,122 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class MappedInvoiceStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void mappedStore_returnsSamePayloadAsInMemoryStore() throws Exception {
+        InMemoryInvoiceStore demo = InMemoryInvoiceStore.demo();
+        Path file = tempDir.resolve("invoices.store");
+
+        MappedInvoiceStore.write(file, demo.invoices().values(), 4);
+
+        try (MappedInvoiceStore store = MappedInvoiceStore.open(file)) {
+            assertEquals(2, store.size());
+            for (String invoiceId : demo.invoices().keySet()) {
+                assertEquals(demo.findInvoice(invoiceId), store.findInvoice(invoiceId));
+            }
+            assertNull(store.findInvoice("INV-9999"));
+            assertNull(store.findInvoice(null));
+        }
+    }
+
+    @Test
+    public void findPolicyInputs_matchesTheDecodedInvoice() throws Exception {
+        InMemoryInvoiceStore demo = InMemoryInvoiceStore.demo();
+        Path file = tempDir.resolve("invoices.store");
+        MappedInvoiceStore.write(file, demo.invoices().values(), 4);
+
+        try (MappedInvoiceStore store = MappedInvoiceStore.open(file)) {
+            for (String invoiceId : demo.invoices().keySet()) {
+                assertEquals(demo.findPolicyInputs(invoiceId), store.findPolicyInputs(invoiceId));
+            }
+            assertEquals(new InvoiceStore.PolicyInputs("Acme Supplies", "USD", 1500.0),
+                    store.findPolicyInputs("INV-2001"));
+            assertNull(store.findPolicyInputs("INV-9999"));
+        }
+    }
+
+    @Test
+    public void mappedStore_resolvesEveryIdInLargerDataset() throws Exception {
+        List<Map<String, Object>> invoices = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            invoices.add(Map.of(
+                    "invoice_id", "INV-" + i,
+                    "vendor", "Vendor " + (i % 17),
+                    "po_number", "PO-" + (i / 3),
+                    "currency", "EUR",
+                    "total", i * 1.5,
+                    "lines", List.of(Map.of(
+                            "line_number", 1,
+                            "description", "Item " + i,
+                            "quantity", 2.5,
+                            "unit_price", 0.6 * i))));
+        }
+        Path file = tempDir.resolve("large.store");
+        MappedInvoiceStore.write(file, invoices, 1);
+
+        try (MappedInvoiceStore store = MappedInvoiceStore.open(file)) {
+            for (Map<String, Object> expected : invoices) {
+                assertEquals(expected, store.findInvoice((String) expected.get("invoice_id")));
+            }
+            assertNull(store.findInvoice("INV-5000"));
+        }
+    }
+
+    @Test
+    public void write_rejectsDuplicateInvoiceIds() {
+        Map<String, Object> invoice = InMemoryInvoiceStore.demo().findInvoice("INV-1001");
+        assertThrows(IllegalArgumentException.class,
+                () -> MappedInvoiceStore.write(tempDir.resolve("dup.store"), List.of(invoice, invoice), 4));
+    }
+
+    @Test
+    public void write_replacesStoreWithoutDisturbingOpenReaders() throws Exception {
+        InMemoryInvoiceStore demo = InMemoryInvoiceStore.demo();
+        Map<String, Object> first = demo.findInvoice("INV-1001");
+        Path file = tempDir.resolve("invoices.store");
+        MappedInvoiceStore.write(file, List.of(first), 4);
+
+        try (MappedInvoiceStore before = MappedInvoiceStore.open(file)) {
+            MappedInvoiceStore.write(file, demo.invoices().values(), 4);
+
+            assertEquals(1, before.size());
+            assertEquals(first, before.findInvoice("INV-1001"));
+            try (MappedInvoiceStore after = MappedInvoiceStore.open(file)) {
+                assertEquals(2, after.size());
+            }
+        }
+    }
+
+    @Test
+    public void write_failureLeavesExistingStoreInPlace() throws Exception {
+        Map<String, Object> invoice = InMemoryInvoiceStore.demo().findInvoice("INV-1001");
+        Path file = tempDir.resolve("invoices.store");
+        MappedInvoiceStore.write(file, List.of(invoice), 4);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> MappedInvoiceStore.write(file, List.of(invoice, invoice), 4));
+
+        try (MappedInvoiceStore store = MappedInvoiceStore.open(file)) {
+            assertEquals(invoice, store.findInvoice("INV-1001"));
+        }
+        try (var files = Files.list(tempDir)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+}
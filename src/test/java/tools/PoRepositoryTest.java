@@ -0,0 +1,47 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PoRepositoryTest {
+
+    @Test
+    public void findPoForInvoice_resolvesInvoicesSharingOnePo() {
+        PoRepository repository = PoRepository.demo();
+
+        Map<String, Object> po = repository.findPoForInvoice("INV-1001");
+
+        assertEquals("PO-2001", po.get("po_number"));
+        assertSame(po, repository.findPoForInvoice("INV-2001"));
+        assertSame(po, repository.findPo("PO-2001"));
+        assertEquals(1, repository.poCount());
+        assertEquals(2, repository.linkedInvoiceCount());
+    }
+
+    @Test
+    public void findPoForInvoice_unknownInvoiceIsNull() {
+        PoRepository repository = PoRepository.demo();
+
+        assertNull(repository.findPoForInvoice("INV-9999"));
+        assertNull(repository.findPoForInvoice(null));
+        assertNull(repository.findPo("PO-9999"));
+    }
+
+    @Test
+    public void linkInvoice_rejectsInvoicePointingToMissingPo() {
+        PoRepository.Builder builder = PoRepository.builder()
+                .addPo(Map.of("po_number", "PO-1", "vendor", "Acme Supplies"));
+
+        assertThrows(IllegalArgumentException.class, () -> builder.linkInvoice("INV-1", "PO-404"));
+
+        PoRepository repository = builder.build();
+        assertNull(repository.findPoForInvoice("INV-1"));
+        assertEquals(0, repository.linkedInvoiceCount());
+    }
+}
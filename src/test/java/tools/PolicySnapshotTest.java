@@ -0,0 +1,70 @@
+package tools;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PolicySnapshotTest {
+
+    private static final Map<String, Object> DEFAULTS = Map.of(
+            "max_line_variance_percent", 2.0,
+            "max_invoice_variance_percent", 1.0,
+            "auto_approval_max_amount", 1300.0);
+
+    private static PolicySnapshot snapshot() {
+        return PolicySnapshot.fromMap(Map.of(
+                "defaults", DEFAULTS,
+                "rules", List.of(
+                        Map.of("vendor", "Acme Supplies", "currency", "USD", "auto_approval_max_amount", 5000.0),
+                        Map.of("vendor", "Acme Supplies", "currency", "USD", "min_amount", 10000,
+                                "auto_approval_max_amount", 0.0),
+                        Map.of("vendor", "Acme Supplies", "max_line_variance_percent", 3.0),
+                        Map.of("currency", "EUR", "max_invoice_variance_percent", 0.5))), 7L);
+    }
+
+    @Test
+    public void thresholdsFor_prefersMostSpecificRuleAndBand() {
+        PolicySnapshot policy = snapshot();
+
+        Map<String, Object> small = policy.thresholdsFor("acme supplies", "usd", 1200.0);
+        assertEquals(5000.0, small.get("auto_approval_max_amount"));
+        assertEquals(2.0, small.get("max_line_variance_percent"));
+        assertEquals("ok", small.get("status"));
+
+        assertEquals(0.0, policy.thresholdsFor("Acme Supplies", "USD", 10000.0).get("auto_approval_max_amount"));
+        assertEquals(0.0, policy.thresholdsFor("Acme Supplies", "USD", 25000.0).get("auto_approval_max_amount"));
+    }
+
+    @Test
+    public void thresholdsFor_fallsBackThroughWildcardsToDefaults() {
+        PolicySnapshot policy = snapshot();
+
+        assertEquals(3.0, policy.thresholdsFor("Acme Supplies", "GBP", 100.0).get("max_line_variance_percent"));
+        assertEquals(0.5, policy.thresholdsFor("Other Vendor", "EUR", 100.0).get("max_invoice_variance_percent"));
+        assertSame(policy.defaults(), policy.thresholdsFor("Other Vendor", "USD", 100.0));
+        assertSame(policy.defaults(), policy.thresholdsFor(null, null, Double.NaN));
+        assertEquals(7L, policy.version());
+    }
+
+    @Test
+    public void thresholdsFor_returnsSameInstanceOnRepeatedLookups() {
+        PolicySnapshot policy = snapshot();
+
+        assertSame(policy.thresholdsFor("Acme Supplies", "USD", 1200.0),
+                policy.thresholdsFor("ACME SUPPLIES", "USD", 900.0));
+    }
+
+    @Test
+    public void fromMap_rejectsMissingDefaultsAndDuplicateBands() {
+        assertThrows(IllegalArgumentException.class, () -> PolicySnapshot.fromMap(Map.of(
+                "defaults", Map.of("max_line_variance_percent", 2.0)), 1L));
+        assertThrows(IllegalArgumentException.class, () -> PolicySnapshot.fromMap(Map.of(
+                "defaults", DEFAULTS,
+                "rules", List.of(Map.of("vendor", "A"), Map.of("vendor", "a", "min_amount", 0))), 1L));
+    }
+}
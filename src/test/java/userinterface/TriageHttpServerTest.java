@@ -0,0 +1,144 @@
+package userinterface;
+
+import com.google.adk.agents.BaseAgent;
+import com.google.adk.agents.InvocationContext;
+import com.google.adk.events.Event;
+import com.google.adk.events.EventActions;
+import com.google.adk.runner.InMemoryRunner;
+import com.google.genai.types.Content;
+import com.google.genai.types.Part;
+import constants.FinalResponseAgentName;
+import io.reactivex.rxjava3.core.Flowable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TriageHttpServerTest {
+
+    private static final String DECISION = "{\"decision\":\"OK_TO_PAY\"}";
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private TriageHttpServer server;
+
+    @AfterEach
+    public void stop() {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    public void triage_streamsRunAsServerSentEvents() throws Exception {
+        server = start();
+
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(uri("/triage"))
+                        .header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString("{\"message\": \"Is the Acme invoice OK to pay?\"}"))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(200, response.statusCode());
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream"));
+        String body = response.body();
+        assertTrue(body.startsWith("event: session\ndata: {\"session_id\":\""), body);
+        // Multi-line data is split into one data: field per line; every event ends with a blank line.
+        String expectedTail = "event: decision\ndata: " + DECISION + "\n\n"
+                + "event: delta\ndata: Invoice INV-1001\n\n"
+                + "event: reply\ndata: Invoice INV-1001\ndata: is OK to pay.\n\n"
+                + "event: done\ndata: \n\n";
+        assertTrue(body.endsWith(expectedTail), body);
+    }
+
+    @Test
+    public void triage_rejectsOtherMethodsAndEmptyBodies() throws Exception {
+        server = start();
+
+        HttpResponse<String> get = client.send(HttpRequest.newBuilder(uri("/triage")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> empty = client.send(
+                HttpRequest.newBuilder(uri("/triage")).POST(HttpRequest.BodyPublishers.ofString(" ")).build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(405, get.statusCode());
+        assertEquals(400, empty.statusCode());
+    }
+
+    @Test
+    public void triage_rejectsOversizeBodiesInsteadOfTruncating() throws Exception {
+        server = start();
+
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(uri("/triage"))
+                        .POST(HttpRequest.BodyPublishers.ofString("Is INV-1001 OK to pay? " + "x".repeat(64 * 1024)))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(413, response.statusCode());
+    }
+
+    @Test
+    public void bindAddress_isLoopbackUnlessConfigured() {
+        assertTrue(TriageHttpServer.bindAddress(null, 0).getAddress().isLoopbackAddress());
+        assertTrue(TriageHttpServer.bindAddress(" ", 0).getAddress().isLoopbackAddress());
+        assertTrue(TriageHttpServer.bindAddress("0.0.0.0", 0).getAddress().isAnyLocalAddress());
+    }
+
+    private TriageHttpServer start() throws Exception {
+        TriageHttpServer triageServer = new TriageHttpServer(
+                new InMemoryRunner(new ScriptedAgent()), "test-user", TriageHttpServer.bindAddress(null, 0));
+        triageServer.start();
+        return triageServer;
+    }
+
+    private URI uri(String path) {
+        InetSocketAddress address = server.address();
+        return URI.create("http://" + address.getAddress().getHostAddress() + ":" + address.getPort() + path);
+    }
+
+    // Emits what the pipeline would: the decision as state, then a streamed formatter reply.
+    private static final class ScriptedAgent extends BaseAgent {
+
+        ScriptedAgent() {
+            super("ScriptedPipeline", "Test-only pipeline.", List.of(), null, null);
+        }
+
+        @Override
+        protected Flowable<Event> runAsyncImpl(InvocationContext ctx) {
+            ConcurrentHashMap<String, Object> delta = new ConcurrentHashMap<>();
+            delta.put("ap_decision_json", DECISION);
+            return Flowable.just(
+                    Event.builder()
+                            .invocationId(ctx.invocationId())
+                            .author("ap_comparison_analysis")
+                            .actions(EventActions.builder().stateDelta(delta).build())
+                            .build(),
+                    Event.builder()
+                            .invocationId(ctx.invocationId())
+                            .author(FinalResponseAgentName.VALUE)
+                            .content(Content.fromParts(Part.fromText("Invoice INV-1001")))
+                            .partial(true)
+                            .build(),
+                    Event.builder()
+                            .invocationId(ctx.invocationId())
+                            .author(FinalResponseAgentName.VALUE)
+                            .content(Content.fromParts(Part.fromText("Invoice INV-1001\nis OK to pay.")))
+                            .build());
+        }
+
+        @Override
+        protected Flowable<Event> runLiveImpl(InvocationContext ctx) {
+            return runAsyncImpl(ctx);
+        }
+    }
+}